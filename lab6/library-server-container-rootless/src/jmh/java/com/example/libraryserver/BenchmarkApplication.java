@@ -0,0 +1,82 @@
+package com.example.libraryserver;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookRepository;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/** Starts the library server for benchmarks and fills its catalogue. */
+public final class BenchmarkApplication {
+
+  private static final int CHUNK_SIZE = 1000;
+
+  private BenchmarkApplication() {}
+
+  /**
+   * Starts the application on a random port with a fresh in-memory database. The given properties
+   * are passed as command line arguments, so they override those of {@code application.yml}.
+   */
+  public static ConfigurableApplicationContext start(String... properties) {
+    return start(new Class<?>[0], properties);
+  }
+
+  /** Starts the application like {@link #start(String...)} with additional configurations. */
+  public static ConfigurableApplicationContext start(
+      Class<?>[] configurations, String... properties) {
+    List<String> defaults = new ArrayList<>();
+    defaults.add("server.port=0");
+    defaults.add("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID());
+    defaults.add("spring.jpa.properties.hibernate.generate_statistics=false");
+    defaults.add("logging.level.root=warn");
+    Collections.addAll(defaults, properties);
+    return new SpringApplicationBuilder(Lab6LibraryServerApplicationContainer.class)
+        .sources(configurations)
+        .run(defaults.stream().map(p -> "--" + p).toArray(String[]::new));
+  }
+
+  /**
+   * Adds the given number of books with a description of about 1000 characters and two authors.
+   *
+   * @return the identifiers of the new books
+   */
+  public static List<UUID> createBooks(ConfigurableApplicationContext context, int count) {
+    BookRepository bookRepository = context.getBean(BookRepository.class);
+    IdGenerator idGenerator = context.getBean(IdGenerator.class);
+    TransactionTemplate transactionTemplate =
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    List<UUID> identifiers = new ArrayList<>(count);
+    for (int start = 0; start < count; start += CHUNK_SIZE) {
+      List<Book> books =
+          IntStream.range(start, Math.min(start + CHUNK_SIZE, count))
+              .mapToObj(i -> book(idGenerator.generateId(), i))
+              .collect(Collectors.toList());
+      transactionTemplate.executeWithoutResult(status -> bookRepository.saveAll(books));
+      books.forEach(b -> identifiers.add(b.getIdentifier()));
+    }
+    return identifiers;
+  }
+
+  private static Book book(UUID identifier, int number) {
+    Set<String> authors = new HashSet<>();
+    authors.add("Author " + number % 5000);
+    authors.add("Co-Author " + number % 777);
+    return new Book(
+        identifier,
+        String.format("978%010d", number),
+        "Title of book " + number,
+        ("Description of book " + number + " covering software design and delivery. ").repeat(14),
+        authors);
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.libraryserver.book.data;
+
+import com.example.libraryserver.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a page of 100 book summaries at a random cursor of the catalogue, once by loading managed
+ * {@link Book} entities and once through the {@link BookSummary} projection with authors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookReadBenchmark {
+
+  private static final int PAGE_SIZE = 100;
+
+  @Param({"10000", "100000"})
+  int books;
+
+  private ConfigurableApplicationContext context;
+  private BookRepository bookRepository;
+  private EntityManager entityManager;
+  private TransactionTemplate readOnly;
+  private List<UUID> identifiers;
+  private UUID cursor;
+
+  @Setup
+  public void setup() {
+    context = BenchmarkApplication.start();
+    bookRepository = context.getBean(BookRepository.class);
+    entityManager = context.getBean(EntityManager.class);
+    readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnly.setReadOnly(true);
+    identifiers = BenchmarkApplication.createBooks(context, books);
+  }
+
+  @Setup(Level.Invocation)
+  public void nextCursor() {
+    cursor = identifiers.get(ThreadLocalRandom.current().nextInt(books - PAGE_SIZE));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<BookSummary> entities() {
+    return readOnly.execute(
+        status ->
+            entityManager
+                .createQuery(
+                    "select b from Book b where b.identifier > :identifier "
+                        + "order by b.identifier asc",
+                    Book.class)
+                .setParameter("identifier", cursor)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(BookSummary::of)
+                .collect(Collectors.toList()));
+  }
+
+  @Benchmark
+  public List<BookSummary> projection() {
+    return readOnly.execute(
+        status ->
+            bookRepository.withAuthors(
+                bookRepository.findSummariesAfter(cursor, PageRequest.of(0, PAGE_SIZE))));
+  }
+}
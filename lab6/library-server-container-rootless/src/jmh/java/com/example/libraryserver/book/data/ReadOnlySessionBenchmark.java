@@ -0,0 +1,88 @@
+package com.example.libraryserver.book.data;
+
+import com.example.libraryserver.BenchmarkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads books as managed entities in read-only and in read-write transactions. Run with {@code
+ * -prof gc}: the allocation per operation shows the loaded state snapshots Hibernate keeps for
+ * dirty checking in read-write sessions, the time the flush on commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlySessionBenchmark {
+
+  private static final int BOOKS = 5000;
+
+  private ConfigurableApplicationContext context;
+  private BookRepository bookRepository;
+  private TransactionTemplate readOnly;
+  private TransactionTemplate readWrite;
+  private List<UUID> identifiers;
+  private UUID identifier;
+
+  @Setup
+  public void setup() {
+    context = BenchmarkApplication.start();
+    bookRepository = context.getBean(BookRepository.class);
+    PlatformTransactionManager transactionManager =
+        context.getBean(PlatformTransactionManager.class);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+    readWrite = new TransactionTemplate(transactionManager);
+    identifiers = BenchmarkApplication.createBooks(context, BOOKS);
+  }
+
+  @Setup(Level.Invocation)
+  public void nextIdentifier() {
+    identifier = identifiers.get(ThreadLocalRandom.current().nextInt(BOOKS));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int findAllReadOnly() {
+    return readOnly.execute(status -> findAll());
+  }
+
+  @Benchmark
+  public int findAllReadWrite() {
+    return readWrite.execute(status -> findAll());
+  }
+
+  @Benchmark
+  public Optional<Book> findOneByIdentifierReadOnly() {
+    return readOnly.execute(status -> bookRepository.findOneByIdentifier(identifier));
+  }
+
+  @Benchmark
+  public Optional<Book> findOneByIdentifierReadWrite() {
+    return readWrite.execute(status -> bookRepository.findOneByIdentifier(identifier));
+  }
+
+  private int findAll() {
+    return bookRepository.findAll(PageRequest.of(0, BOOKS)).getNumberOfElements();
+  }
+}
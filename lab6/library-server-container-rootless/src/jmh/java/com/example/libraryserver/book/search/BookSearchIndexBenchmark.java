@@ -0,0 +1,132 @@
+package com.example.libraryserver.book.search;
+
+import com.example.libraryserver.book.data.BookSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches a catalog of generated books. Words are drawn from a vocabulary of {@value #WORDS}
+ * words with a Zipf distribution, as in natural language: {@code commonTerm} is the most frequent
+ * word, {@code rareTerm} one found in a few dozen books, {@code shortPrefix} expands the first two
+ * letters of a frequent word. The heap used by the index is logged after building it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookSearchIndexBenchmark {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndexBenchmark.class);
+
+  private static final int WORDS = 50_000;
+  private static final int TITLE_WORDS = 3;
+  private static final int DESCRIPTION_WORDS = 60;
+  private static final int LIMIT = 20;
+
+  @Param({"50000", "500000"})
+  int books;
+
+  private BookSearchIndex index;
+  private String[] words;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    words = new String[WORDS];
+    for (int i = 0; i < WORDS; i++) {
+      words[i] = word(random, i);
+    }
+    double[] cumulative = new double[WORDS];
+    double sum = 0;
+    for (int i = 0; i < WORDS; i++) {
+      sum += 1d / (i + 1);
+      cumulative[i] = sum;
+    }
+
+    long heapBefore = usedHeap();
+    index = new BookSearchIndex();
+    for (int i = 0; i < books; i++) {
+      index.index(
+          new BookSummary(
+              UUID.randomUUID(),
+              0L,
+              "9780132350884",
+              text(random, cumulative, sum, TITLE_WORDS),
+              text(random, cumulative, sum, DESCRIPTION_WORDS),
+              new HashSet<>(
+                  Arrays.asList(
+                      "Author " + words[random.nextInt(WORDS)],
+                      "Author " + words[random.nextInt(WORDS)])),
+              null,
+              null,
+              null,
+              null));
+    }
+    index.compact();
+    LOGGER.info(
+        "Indexed {} books with {} terms, {} KB of postings, {} KB of heap",
+        index.size(),
+        index.termCount(),
+        index.postingBytes() / 1024,
+        (usedHeap() - heapBefore) / 1024);
+  }
+
+  @Benchmark
+  public List<UUID> commonTerm() {
+    return index.search(words[0], LIMIT);
+  }
+
+  @Benchmark
+  public List<UUID> rareTerm() {
+    return index.search(words[WORDS / 2], LIMIT);
+  }
+
+  @Benchmark
+  public List<UUID> twoTerms() {
+    return index.search(words[10] + " " + words[200], LIMIT);
+  }
+
+  @Benchmark
+  public List<UUID> shortPrefix() {
+    return index.search(words[1].substring(0, 2), LIMIT);
+  }
+
+  private String text(SplittableRandom random, double[] cumulative, double sum, int count) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      text.append(words[rank < 0 ? Math.min(-rank - 1, WORDS - 1) : rank]).append(' ');
+    }
+    return text.toString();
+  }
+
+  /** Distinct words of 4 to 10 letters, the rank is appended to keep them distinct. */
+  private static String word(SplittableRandom random, int rank) {
+    StringBuilder word = new StringBuilder();
+    int length = 4 + random.nextInt(7);
+    for (int i = 0; i < length; i++) {
+      word.append((char) ('a' + random.nextInt(26)));
+    }
+    return word.append(Integer.toString(rank, 36)).toString();
+  }
+
+  private static long usedHeap() {
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,160 @@
+package com.example.libraryserver.book.service;
+
+import com.example.libraryserver.BenchmarkApplication;
+import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.security.AuthenticatedUser;
+import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.data.UserRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets {@value #THREADS} users race for one hot book: every operation tries to borrow the book and
+ * returns it again when it won. {@code guardedUpdate} goes through {@link BookService}, which
+ * borrows with one guarded update, {@code loadThenSave} loads the book and the user, checks the
+ * borrower in memory and saves the book, as borrowing worked before. Losers of the latter fail on
+ * the version of the book. The {@code borrowed} counter shows the successful borrows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(BorrowContentionBenchmark.THREADS)
+public class BorrowContentionBenchmark {
+
+  static final int THREADS = 16;
+
+  private ConfigurableApplicationContext context;
+  private BookService bookService;
+  private BookRepository bookRepository;
+  private UserRepository userRepository;
+  private TransactionTemplate transactionTemplate;
+  private List<AuthenticatedUser> users;
+  private UUID bookIdentifier;
+  private final AtomicInteger nextUser = new AtomicInteger();
+
+  @Setup
+  public void setup() {
+    context = BenchmarkApplication.start();
+    bookService = context.getBean(BookService.class);
+    bookRepository = context.getBean(BookRepository.class);
+    userRepository = context.getBean(UserRepository.class);
+    transactionTemplate =
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    users = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      users.add(
+          new AuthenticatedUser(
+              userRepository.save(
+                  new User(
+                      UUID.randomUUID(),
+                      "Borrower",
+                      "Number " + i,
+                      "borrower" + i + "@example.com",
+                      "secret",
+                      new HashSet<>(Collections.singleton("LIBRARY_USER"))))));
+    }
+    bookIdentifier = BenchmarkApplication.createBooks(context, 1).get(0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  /** The user of a benchmark thread, also counting its successful borrows. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Borrower {
+
+    public long borrowed;
+
+    AuthenticatedUser user;
+
+    @Setup(Level.Iteration)
+    public void setup(BorrowContentionBenchmark benchmark) {
+      if (user == null) {
+        user = benchmark.users.get(benchmark.nextUser.getAndIncrement());
+      }
+      borrowed = 0;
+      SecurityContextHolder.getContext()
+          .setAuthentication(
+              new UsernamePasswordAuthenticationToken(user, "secret", user.getAuthorities()));
+    }
+  }
+
+  @Benchmark
+  public boolean guardedUpdate(Borrower borrower) {
+    UUID userIdentifier = borrower.user.getIdentifier();
+    if (bookService.borrowForUser(bookIdentifier, userIdentifier, borrower.user).isEmpty()) {
+      return false;
+    }
+    borrower.borrowed++;
+    return bookService.returnForUser(bookIdentifier, userIdentifier, borrower.user).isPresent();
+  }
+
+  @Benchmark
+  public boolean loadThenSave(Borrower borrower) {
+    if (!loadThenSave(borrower.user.getIdentifier(), true)) {
+      return false;
+    }
+    borrower.borrowed++;
+    // the holder may have read a stale book, but nobody else can return it
+    while (!loadThenSave(borrower.user.getIdentifier(), false)) {
+      Thread.onSpinWait();
+    }
+    return true;
+  }
+
+  private boolean loadThenSave(UUID userIdentifier, boolean borrow) {
+    try {
+      return Boolean.TRUE.equals(
+          transactionTemplate.execute(
+              status ->
+                  bookRepository
+                      .findOneByNaturalId(bookIdentifier)
+                      .filter(
+                          b ->
+                              borrow
+                                  ? b.getBorrowedByUser() == null
+                                  : b.getBorrowedByUser() != null
+                                      && userIdentifier.equals(
+                                          b.getBorrowedByUser().getIdentifier()))
+                      .flatMap(
+                          b ->
+                              userRepository
+                                  .findOneByIdentifier(userIdentifier)
+                                  .map(
+                                      u -> {
+                                        b.setBorrowedByUser(borrow ? u : null);
+                                        bookRepository.save(b);
+                                        return true;
+                                      }))
+                      .orElse(false)));
+    } catch (ConcurrencyFailureException ex) {
+      return false;
+    }
+  }
+}
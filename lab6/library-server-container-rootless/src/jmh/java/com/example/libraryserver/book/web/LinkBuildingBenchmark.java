@@ -0,0 +1,113 @@
+package com.example.libraryserver.book.web;
+
+import com.example.libraryserver.common.web.IdentifierLinkTemplate;
+import com.example.libraryserver.user.web.UserRestController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Builds the self, borrow, return and borrower links of a listing, once through {@code
+ * linkTo(methodOn(..))} per link and once through precompiled {@link IdentifierLinkTemplate}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LinkBuildingBenchmark {
+
+  @Param({"20", "1000"})
+  int books;
+
+  private UUID[] identifiers;
+  private IdentifierLinkTemplate self;
+  private IdentifierLinkTemplate borrow;
+  private IdentifierLinkTemplate giveBack;
+  private IdentifierLinkTemplate borrower;
+
+  @Setup
+  public void setup() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setScheme("https");
+    request.setServerName("library.example.com");
+    request.setServerPort(8443);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    identifiers = new UUID[books];
+    for (int i = 0; i < books; i++) {
+      identifiers[i] = UUID.randomUUID();
+    }
+    self =
+        IdentifierLinkTemplate.of(
+            BookRestController.class,
+            id -> methodOn(BookRestController.class).getSingleBook(id, null),
+            IanaLinkRelations.SELF);
+    borrow =
+        IdentifierLinkTemplate.of(
+            BookRestController.class,
+            id -> methodOn(BookRestController.class).borrowBook(id, null, null),
+            LinkRelation.of("borrow"));
+    giveBack =
+        IdentifierLinkTemplate.of(
+            BookRestController.class,
+            id -> methodOn(BookRestController.class).returnBook(id, null, null),
+            LinkRelation.of("return"));
+    borrower =
+        IdentifierLinkTemplate.of(
+            UserRestController.class,
+            id -> methodOn(UserRestController.class).getSingleUser(id, null),
+            IanaLinkRelations.SELF);
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public void methodOnProxies(Blackhole blackhole) {
+    for (UUID identifier : identifiers) {
+      blackhole.consume(
+          linkTo(methodOn(BookRestController.class).getSingleBook(identifier, null))
+              .withSelfRel());
+      blackhole.consume(
+          linkTo(methodOn(BookRestController.class).borrowBook(identifier, null, null))
+              .withRel("borrow"));
+      blackhole.consume(
+          linkTo(methodOn(BookRestController.class).returnBook(identifier, null, null))
+              .withRel("return"));
+      blackhole.consume(
+          linkTo(methodOn(UserRestController.class).getSingleUser(identifier, null))
+              .withSelfRel());
+    }
+  }
+
+  @Benchmark
+  public void precompiledTemplates(Blackhole blackhole) {
+    String books = self.baseUri();
+    String users = borrower.baseUri();
+    for (UUID identifier : identifiers) {
+      blackhole.consume(self.expand(books, identifier));
+      blackhole.consume(borrow.expand(books, identifier));
+      blackhole.consume(giveBack.expand(books, identifier));
+      blackhole.consume(borrower.expand(users, identifier));
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.libraryserver.common.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/** Generates identifiers from 64 threads sharing one generator. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(64)
+public class IdGenerationBenchmark {
+
+  private final IdGenerator random = new JdkIdGenerator();
+  private final IdGenerator timeOrdered = new TimeOrderedIdGenerator();
+
+  @Benchmark
+  public UUID random() {
+    return random.generateId();
+  }
+
+  @Benchmark
+  public UUID timeOrdered() {
+    return timeOrdered.generateId();
+  }
+}
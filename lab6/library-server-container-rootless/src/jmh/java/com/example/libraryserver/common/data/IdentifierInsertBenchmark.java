@@ -0,0 +1,81 @@
+package com.example.libraryserver.common.data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts one million identifiers into a {@code binary(16)} column with a unique index, as the
+ * {@code identifier} columns of books and users are mapped, with random and time ordered
+ * identifiers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdentifierInsertBenchmark {
+
+  private static final int ROWS = 1_000_000;
+  private static final int BATCH_SIZE = 1000;
+
+  @Param({"random", "timeOrdered"})
+  String generator;
+
+  private IdGenerator idGenerator;
+  private Connection connection;
+
+  @Setup(Level.Iteration)
+  public void setup() throws SQLException {
+    idGenerator =
+        "timeOrdered".equals(generator) ? new TimeOrderedIdGenerator() : new JdkIdGenerator();
+    connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table book (id bigint auto_increment primary key, "
+              + "identifier binary(16) not null, constraint uk_identifier unique (identifier))");
+    }
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Benchmark
+  public void insert() throws SQLException {
+    ByteBuffer bytes = ByteBuffer.allocate(16);
+    try (PreparedStatement insert =
+        connection.prepareStatement("insert into book (identifier) values (?)")) {
+      for (int row = 1; row <= ROWS; row++) {
+        UUID identifier = idGenerator.generateId();
+        bytes.clear();
+        bytes.putLong(identifier.getMostSignificantBits());
+        bytes.putLong(identifier.getLeastSignificantBits());
+        insert.setBytes(1, bytes.array().clone());
+        insert.addBatch();
+        if (row % BATCH_SIZE == 0) {
+          insert.executeBatch();
+          connection.commit();
+        }
+      }
+    }
+  }
+}
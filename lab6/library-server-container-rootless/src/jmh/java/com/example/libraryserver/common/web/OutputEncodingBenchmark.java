@@ -0,0 +1,54 @@
+package com.example.libraryserver.common.web;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.owasp.encoder.Encode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes book descriptions of about 2000 characters, once with the nested OWASP encoders and once
+ * with {@link HtmlJavaScriptEncoder}. {@code plain} descriptions need no escaping at all, {@code
+ * quoted} ones contain quotes, an ampersand and a line separator like real blurbs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OutputEncodingBenchmark {
+
+  private static final String PLAIN =
+      "Even bad code can function. But if code isnt clean, it can bring a development "
+          + "organization to its knees. Every year, countless hours and significant resources are "
+          + "lost because of poorly written code. But it doesnt have to be that way. ";
+  private static final String QUOTED =
+      "Noted software expert Robert C. Martin presents a revolutionary paradigm with \"Clean "
+          + "Code: A Handbook of Agile Software Craftsmanship\". Martin & his colleagues from "
+          + "Object Mentor distill their best agile practice of cleaning code \u2028on the fly. ";
+
+  @Param({"plain", "quoted"})
+  String kind;
+
+  private String description;
+
+  @Setup
+  public void setup() {
+    String sentence = "plain".equals(kind) ? PLAIN : QUOTED;
+    description = sentence.repeat(2000 / sentence.length() + 1).substring(0, 2000);
+  }
+
+  @Benchmark
+  public String owasp() {
+    return Encode.forJavaScript(Encode.forHtml(description));
+  }
+
+  @Benchmark
+  public String singlePass() {
+    return HtmlJavaScriptEncoder.encode(description);
+  }
+}
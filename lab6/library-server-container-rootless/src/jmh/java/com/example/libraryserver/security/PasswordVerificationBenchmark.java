@@ -0,0 +1,49 @@
+package com.example.libraryserver.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the same credentials repeatedly from a single thread, as a basic authentication client
+ * does with every request, once against the bcrypt hash and once through {@link
+ * CachingPasswordEncoder}. The throughput is the number of verifications one core manages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+public class PasswordVerificationBenchmark {
+
+  private static final String PASSWORD = "library_user";
+
+  private PasswordEncoder delegating;
+  private PasswordEncoder caching;
+  private String encodedPassword;
+
+  @Setup
+  public void setup() {
+    delegating = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    caching = new CachingPasswordEncoder(delegating);
+    encodedPassword = delegating.encode(PASSWORD);
+  }
+
+  @Benchmark
+  public boolean bcrypt() {
+    return delegating.matches(PASSWORD, encodedPassword);
+  }
+
+  @Benchmark
+  public boolean cached() {
+    return caching.matches(PASSWORD, encodedPassword);
+  }
+}
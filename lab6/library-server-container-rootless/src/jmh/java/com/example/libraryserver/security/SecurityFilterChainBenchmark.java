@@ -0,0 +1,136 @@
+package com.example.libraryserver.security;
+
+import com.example.libraryserver.BenchmarkApplication;
+import com.example.libraryserver.DataInitializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpMethod.PUT;
+import static org.springframework.security.config.Customizer.withDefaults;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sends API requests with HTTP basic credentials through the security filter chains, once with the
+ * former single chain for all requests ({@code single}) and once with the API chain ({@code
+ * split}). Verified credentials are cached, so the password hash does not hide the cost of the
+ * chain. {@code unknownPath} ends without a handler and shows the cost of the chain alone, {@code
+ * singleBook} the share of the chain in reading a book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SecurityFilterChainBenchmark {
+
+  private static final String USERNAME = "bruce.wayne@example.com";
+  private static final String PASSWORD = "wayne";
+
+  @Param({"single", "split"})
+  String chain;
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mvc;
+
+  @Setup
+  public void setup() {
+    context =
+        BenchmarkApplication.start(
+            "single".equals(chain)
+                ? new Class<?>[] {SingleChainConfiguration.class}
+                : new Class<?>[0],
+            "library.security.verified-credentials-cache.enabled=true");
+    mvc =
+        MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+            .apply(springSecurity())
+            .build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int unknownPath() throws Exception {
+    return mvc.perform(
+            get("/books/{bookIdentifier}/unknown", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                .with(httpBasic(USERNAME, PASSWORD)))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+
+  @Benchmark
+  public int singleBook() throws Exception {
+    return mvc.perform(
+            get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                .with(httpBasic(USERNAME, PASSWORD)))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+
+  /**
+   * The single chain used for all requests before the API got its own chain: sessions, form login
+   * and the ordered list of path patterns. Registered explicitly, so it is not picked up by the
+   * component scan of other benchmarks, and ordered before the chains of the application.
+   */
+  @Order(0)
+  static class SingleChainConfiguration extends WebSecurityConfigurerAdapter {
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+      http.authorizeRequests(
+              authorizeRequests ->
+                  authorizeRequests
+                      .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class))
+                      .permitAll()
+                      .requestMatchers(EndpointRequest.toAnyEndpoint())
+                      .hasRole("LIBRARY_ACTUATOR")
+                      .requestMatchers(PathRequest.toStaticResources().atCommonLocations())
+                      .permitAll()
+                      .mvcMatchers("/")
+                      .permitAll()
+                      .mvcMatchers(
+                          POST,
+                          "/books/{bookIdentifier}/borrow/{userIdentifier}",
+                          "/books/{bookIdentifier}/return/{userIdentifier}")
+                      .hasRole("LIBRARY_USER")
+                      .mvcMatchers(POST, "/books", "/books/batch")
+                      .hasRole("LIBRARY_CURATOR")
+                      .mvcMatchers(PUT, "/books/{bookIdentifier}")
+                      .hasRole("LIBRARY_CURATOR")
+                      .mvcMatchers(DELETE, "/books/{bookIdentifier}")
+                      .hasRole("LIBRARY_CURATOR")
+                      .mvcMatchers("/users", "/users/{userIdentifier}")
+                      .hasRole("LIBRARY_ADMIN")
+                      .anyRequest()
+                      .authenticated())
+          .httpBasic(withDefaults())
+          .formLogin(withDefaults());
+    }
+  }
+}
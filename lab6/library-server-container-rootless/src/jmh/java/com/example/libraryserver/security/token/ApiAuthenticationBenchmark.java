@@ -0,0 +1,78 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.BenchmarkApplication;
+import com.jayway.jsonpath.JsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Authenticates API requests listing a single book, once with HTTP basic credentials verified
+ * against the bcrypt hash of the user and once with a signed access token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ApiAuthenticationBenchmark {
+
+  private static final String USERNAME = "bruce.wayne@example.com";
+  private static final String PASSWORD = "wayne";
+
+  private ConfigurableApplicationContext context;
+  private MockMvc mvc;
+  private String token;
+
+  @Setup
+  public void setup() throws Exception {
+    context = BenchmarkApplication.start("library.security.token.enabled=true");
+    mvc =
+        MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+            .apply(springSecurity())
+            .build();
+    String content =
+        mvc.perform(post("/token").with(httpBasic(USERNAME, PASSWORD)))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    token = JsonPath.read(content, "$.access_token");
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int basic() throws Exception {
+    return mvc.perform(get("/books").param("size", "1").with(httpBasic(USERNAME, PASSWORD)))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+
+  @Benchmark
+  public int bearerToken() throws Exception {
+    return mvc.perform(
+            get("/books").param("size", "1").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+        .andReturn()
+        .getResponse()
+        .getStatus();
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.libraryserver.user.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a breached password list of random SHA-1 hashes and looks up hashes contained in the list
+ * and unknown ones. The heap footprint of the opened list is logged by {@link
+ * BreachedPasswordList#open(Path)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BreachedPasswordListBenchmark {
+
+  private static final int SAMPLES = 1024;
+
+  @Param({"1000000", "10000000"})
+  int hashes;
+
+  private Path file;
+  private BreachedPasswordList list;
+  private byte[][] contained;
+  private byte[][] unknown;
+  private int next;
+
+  @Setup
+  public void setup() throws IOException {
+    SplittableRandom random = new SplittableRandom(42);
+    Path hexHashes = Files.createTempFile("breached", ".txt");
+    file = Files.createTempFile("breached", ".bin");
+    contained = new byte[SAMPLES][];
+    long step = Long.divideUnsigned(-1L, hashes);
+    int sampleInterval = Math.max(1, hashes / SAMPLES);
+    try (BufferedWriter writer = Files.newBufferedWriter(hexHashes)) {
+      for (int i = 0; i < hashes; i++) {
+        byte[] hash = randomHash(random);
+        ByteBuffer.wrap(hash).putLong(step * i);
+        if (i % sampleInterval == 0 && i / sampleInterval < SAMPLES) {
+          contained[i / sampleInterval] = hash;
+        }
+        for (byte b : hash) {
+          writer.write(Character.forDigit((b >> 4) & 0xf, 16));
+          writer.write(Character.forDigit(b & 0xf, 16));
+        }
+        writer.newLine();
+      }
+    }
+    try (BufferedReader reader = Files.newBufferedReader(hexHashes)) {
+      BreachedPasswordList.write(reader, file, 10);
+    } finally {
+      Files.delete(hexHashes);
+    }
+    list = BreachedPasswordList.open(file);
+    unknown = new byte[SAMPLES][];
+    for (int i = 0; i < SAMPLES; i++) {
+      unknown[i] = randomHash(random);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void nextSample() {
+    next = (next + 1) % SAMPLES;
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(file);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public BreachedPasswordList open() throws IOException {
+    return BreachedPasswordList.open(file);
+  }
+
+  @Benchmark
+  public boolean containedHash() {
+    return list.contains(contained[next]);
+  }
+
+  @Benchmark
+  public boolean unknownHash() {
+    return list.contains(unknown[next]);
+  }
+
+  private static byte[] randomHash(SplittableRandom random) {
+    byte[] hash = new byte[BreachedPasswordList.HASH_LENGTH];
+    for (int i = 0; i < hash.length; i += Long.BYTES) {
+      long bits = random.nextLong();
+      for (int j = i; j < Math.min(i + Long.BYTES, hash.length); j++, bits >>>= 8) {
+        hash[j] = (byte) bits;
+      }
+    }
+    return hash;
+  }
+}
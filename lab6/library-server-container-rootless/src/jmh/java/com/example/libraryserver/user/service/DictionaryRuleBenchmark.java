@@ -0,0 +1,65 @@
+package com.example.libraryserver.user.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.passay.DictionarySubstringRule;
+import org.passay.PasswordData;
+import org.passay.RuleResult;
+import org.passay.dictionary.ArrayWordList;
+import org.passay.dictionary.WordListDictionary;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates a password of 16 characters containing no dictionary word, the worst case of both
+ * rules, against dictionaries of random lower case words of 4 to 10 characters. The dictionary of
+ * ten million words needs a heap of about 4 GB, e.g. {@code -jvmArgs -Xmx4g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DictionaryRuleBenchmark {
+
+  private static final PasswordData PASSWORD = new PasswordData("P4SSw0rd-2021!#Q");
+
+  @Param({"100", "100000", "10000000"})
+  int words;
+
+  private DictionarySubstringRule dictionarySubstringRule;
+  private AhoCorasickDictionaryRule ahoCorasickDictionaryRule;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    String[] dictionary = new String[words];
+    for (int i = 0; i < words; i++) {
+      char[] word = new char[4 + random.nextInt(7)];
+      for (int j = 0; j < word.length; j++) {
+        word[j] = (char) ('a' + random.nextInt(26));
+      }
+      dictionary[i] = new String(word);
+    }
+    ahoCorasickDictionaryRule = new AhoCorasickDictionaryRule(Arrays.asList(dictionary), true);
+    Arrays.sort(dictionary);
+    dictionarySubstringRule =
+        new DictionarySubstringRule(new WordListDictionary(new ArrayWordList(dictionary, true)));
+  }
+
+  @Benchmark
+  public RuleResult dictionarySubstringRule() {
+    return dictionarySubstringRule.validate(PASSWORD);
+  }
+
+  @Benchmark
+  public RuleResult ahoCorasickDictionaryRule() {
+    return ahoCorasickDictionaryRule.validate(PASSWORD);
+  }
+}
@@ -1,24 +1,44 @@
 package com.example.libraryserver.book.data;
 
 import com.example.libraryserver.user.data.User;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
+import javax.persistence.Cacheable;
+import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import javax.persistence.Version;
+import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Entity
 public class Book extends AbstractPersistable<Long> {
 
-  @NotNull private UUID identifier;
+  @NotNull
+  @NaturalId
+  @Column(columnDefinition = "binary(16)", nullable = false)
+  private UUID identifier;
 
   @NotNull
   @Pattern(regexp = "[0-9]{13}")
@@ -29,16 +49,26 @@ public class Book extends AbstractPersistable<Long> {
   private String title;
 
   @NotNull
-  @Size(min = 1, max = 2000)
-  private String description;
+  @Valid
+  @OneToOne(
+      fetch = FetchType.LAZY,
+      optional = false,
+      cascade = CascadeType.ALL,
+      orphanRemoval = true)
+  @JoinColumn(nullable = false)
+  private BookDescription description;
 
   @NotEmpty
+  @BatchSize(size = 100)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @ElementCollection(fetch = FetchType.EAGER)
   private Set<String> authors = new HashSet<>();
 
   @ManyToOne(fetch = FetchType.EAGER)
   private User borrowedByUser;
 
+  @Version private Long version;
+
   public Book() {}
 
   public Book(String isbn, String title, String description, Set<String> authors) {
@@ -59,7 +89,7 @@ public class Book extends AbstractPersistable<Long> {
     this.identifier = identifier;
     this.isbn = isbn;
     this.title = title;
-    this.description = description;
+    this.description = new BookDescription(description);
     this.authors = authors;
     this.borrowedByUser = borrowedByUser;
   }
@@ -88,20 +118,42 @@ public class Book extends AbstractPersistable<Long> {
     this.title = title;
   }
 
+  /**
+   * Returns the description, which is loaded from its own table on first access. Use {@link
+   * #isDescriptionLoaded()} to avoid that.
+   */
   public String getDescription() {
-    return description;
+    return description != null ? description.getText() : null;
   }
 
+  /**
+   * Replaces the description if it differs from the stored one, which is loaded for the
+   * comparison if necessary. Replacing it changes the book itself, so its version is incremented as
+   * for changes of any other attribute.
+   */
   public void setDescription(String description) {
-    this.description = description;
+    if (!Objects.equals(getDescription(), description)) {
+      this.description = new BookDescription(description);
+    }
+  }
+
+  /** Whether the description is available without reading it from the database. */
+  public boolean isDescriptionLoaded() {
+    return Hibernate.isInitialized(description);
   }
 
   public Set<String> getAuthors() {
     return authors;
   }
 
+  /**
+   * Replaces the authors if they differ. Keeping the loaded collection otherwise avoids rewriting
+   * it and incrementing the version of the book.
+   */
   public void setAuthors(Set<String> authors) {
-    this.authors = authors;
+    if (!Objects.equals(this.authors, authors)) {
+      this.authors = authors;
+    }
   }
 
   public User getBorrowedByUser() {
@@ -112,6 +164,10 @@ public class Book extends AbstractPersistable<Long> {
     this.borrowedByUser = borrowedbyUser;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
   @Override
   public String toString() {
     return "Book{"
@@ -123,13 +179,12 @@ public class Book extends AbstractPersistable<Long> {
         + ", title='"
         + title
         + '\''
-        + ", description='"
-        + description
-        + '\''
         + ", authors="
         + authors
         + ", borrowedByUser="
         + borrowedByUser
+        + ", version="
+        + version
         + '}';
   }
 }
@@ -0,0 +1,21 @@
+package com.example.libraryserver.book.data;
+
+import java.util.UUID;
+
+public interface BookBorrowingRepository {
+
+  /**
+   * Borrows a book that nobody holds for the user with one guarded update.
+   *
+   * @return the number of updated books, zero if the book is held, does not exist or the user does
+   *     not exist
+   */
+  int borrowForUser(UUID identifier, UUID userIdentifier);
+
+  /**
+   * Returns a book held by the user with one guarded update.
+   *
+   * @return the number of updated books, zero if the book is not held by the user
+   */
+  int returnForUser(UUID identifier, UUID userIdentifier);
+}
@@ -0,0 +1,82 @@
+package com.example.libraryserver.book.data;
+
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Borrows and returns books with native updates, referencing the borrower by a subquery on its
+ * identifier instead of loading it. Hibernate evicts all cached books after a bulk update of the
+ * book table, so the updates are synchronized with a query space of their own, and only the entry
+ * of the updated book is evicted, once right away and again when the transaction completes.
+ */
+class BookBorrowingRepositoryImpl implements BookBorrowingRepository {
+
+  private static final String QUERY_SPACE = "book_borrowing";
+
+  private static final String BORROW =
+      "update book set borrowed_by_user_id = (select u.id from user u where u.identifier = :user), "
+          + "version = version + 1 "
+          + "where identifier = :identifier and borrowed_by_user_id is null "
+          + "and exists (select u.id from user u where u.identifier = :user)";
+
+  private static final String RETURN =
+      "update book set borrowed_by_user_id = null, version = version + 1 "
+          + "where identifier = :identifier "
+          + "and borrowed_by_user_id = (select u.id from user u where u.identifier = :user)";
+
+  private final EntityManager entityManager;
+
+  BookBorrowingRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Transactional
+  @Override
+  public int borrowForUser(UUID identifier, UUID userIdentifier) {
+    return update(BORROW, identifier, userIdentifier);
+  }
+
+  @Transactional
+  @Override
+  public int returnForUser(UUID identifier, UUID userIdentifier) {
+    return update(RETURN, identifier, userIdentifier);
+  }
+
+  private int update(String sql, UUID identifier, UUID userIdentifier) {
+    Session session = entityManager.unwrap(Session.class);
+    Book book = session.bySimpleNaturalId(Book.class).getReference(identifier);
+    if (book == null) {
+      return 0;
+    }
+    int updated =
+        session
+            .createNativeQuery(sql)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace(QUERY_SPACE)
+            .setParameter("identifier", identifier)
+            .setParameter("user", userIdentifier)
+            .executeUpdate();
+    if (updated > 0) {
+      evict(session, session.getIdentifier(book));
+    }
+    return updated;
+  }
+
+  private void evict(Session session, Serializable id) {
+    session.getSessionFactory().getCache().evictEntityData(Book.class, id);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            session.getSessionFactory().getCache().evictEntityData(Book.class, id);
+          }
+        });
+  }
+}
@@ -0,0 +1,44 @@
+package com.example.libraryserver.book.data;
+
+import com.example.libraryserver.common.data.CompressedStringConverter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Description of a {@link Book}, kept in its own table so that only the detail view of a book
+ * reads it. The text is stored compressed and never changes, a new description replaces it.
+ */
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Immutable
+@Entity
+public class BookDescription extends AbstractPersistable<Long> {
+
+  /** At most 3 UTF-8 bytes per character plus the header byte of the converter. */
+  static final int MAX_STORED_LENGTH = 2000 * 3 + 1;
+
+  @NotNull
+  @Size(min = 1, max = 2000)
+  @Convert(converter = CompressedStringConverter.class)
+  @Column(length = MAX_STORED_LENGTH, nullable = false)
+  private String text;
+
+  public BookDescription() {}
+
+  public BookDescription(String text) {
+    this.text = text;
+  }
+
+  public String getText() {
+    return text;
+  }
+}
@@ -0,0 +1,13 @@
+package com.example.libraryserver.book.data;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BookNaturalIdRepository {
+
+  /**
+   * Loads a book by its natural identifier. Identifiers and entities loaded before are resolved from
+   * the second level cache without querying the database.
+   */
+  Optional<Book> findOneByNaturalId(UUID identifier);
+}
@@ -0,0 +1,26 @@
+package com.example.libraryserver.book.data;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+import java.util.UUID;
+
+class BookNaturalIdRepositoryImpl implements BookNaturalIdRepository {
+
+  private final EntityManager entityManager;
+
+  BookNaturalIdRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public Optional<Book> findOneByNaturalId(UUID identifier) {
+    return entityManager
+        .unwrap(Session.class)
+        .bySimpleNaturalId(Book.class)
+        .loadOptional(identifier);
+  }
+}
@@ -1,11 +1,131 @@
 package com.example.libraryserver.book.data;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository
+    extends JpaRepository<Book, Long>, BookNaturalIdRepository, BookBorrowingRepository {
 
+  String SELECT_SUMMARY =
+      "select new com.example.libraryserver.book.data.BookSummary("
+          + "b.identifier, b.version, b.isbn, b.title, "
+          + "u.identifier, u.version, u.firstName, u.lastName) "
+          + "from Book b left join b.borrowedByUser u ";
+
+  String SELECT_DETAIL =
+      "select new com.example.libraryserver.book.data.BookSummary("
+          + "b.identifier, b.version, b.isbn, b.title, d.text, "
+          + "u.identifier, u.version, u.firstName, u.lastName) "
+          + "from Book b join b.description d left join b.borrowedByUser u ";
+
+  @EntityGraph(attributePaths = {"authors", "borrowedByUser", "borrowedByUser.roles"})
+  @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
   Optional<Book> findOneByIdentifier(UUID identifier);
+
+  /** Loads a book with its description for updating it, see {@link Book#setDescription}. */
+  @EntityGraph(
+      attributePaths = {"description", "authors", "borrowedByUser", "borrowedByUser.roles"})
+  Optional<Book> findOneWithDescriptionByIdentifier(UUID identifier);
+
+  /**
+   * Streams all books with description, authors and borrower in order of their identifiers. Rows
+   * are fetched from the database while the stream is consumed, callers have to close the stream
+   * and detach the books they are done with.
+   */
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+    @QueryHint(name = "org.hibernate.fetchSize", value = "500")
+  })
+  @Query(
+      "select b from Book b join fetch b.description left join fetch b.authors "
+          + "left join fetch b.borrowedByUser order by b.identifier asc")
+  Stream<Book> streamAll();
+
+  @Query(SELECT_DETAIL + "where b.identifier = :identifier")
+  Optional<BookSummary> findSummaryByIdentifier(@Param("identifier") UUID identifier);
+
+  @Query(SELECT_SUMMARY + "where b.identifier in :identifiers")
+  List<BookSummary> findSummariesByIdentifierIn(
+      @Param("identifiers") Collection<UUID> identifiers);
+
+  @Query(SELECT_SUMMARY + "order by b.identifier asc")
+  List<BookSummary> findSummaries(Pageable pageable);
+
+  @Query(SELECT_SUMMARY + "where b.identifier > :identifier order by b.identifier asc")
+  List<BookSummary> findSummariesAfter(@Param("identifier") UUID identifier, Pageable pageable);
+
+  @Query(SELECT_SUMMARY + "where b.identifier < :identifier order by b.identifier desc")
+  List<BookSummary> findSummariesBefore(@Param("identifier") UUID identifier, Pageable pageable);
+
+  @Query(
+      "select b.identifier as identifier, a as author "
+          + "from Book b join b.authors a where b.identifier in :identifiers")
+  List<BookAuthor> findAuthorsByIdentifierIn(@Param("identifiers") Collection<UUID> identifiers);
+
+  @Query(
+      "select b.identifier as identifier, d.text as text "
+          + "from Book b join b.description d where b.identifier in :identifiers")
+  List<BookDescriptionText> findDescriptionsByIdentifierIn(
+      @Param("identifiers") Collection<UUID> identifiers);
+
+  /** Completes the given summaries with their authors using one additional query. */
+  default List<BookSummary> withAuthors(List<BookSummary> books) {
+    if (books.isEmpty()) {
+      return books;
+    }
+    Map<UUID, Set<String>> authors = new HashMap<>();
+    findAuthorsByIdentifierIn(
+            books.stream().map(BookSummary::getIdentifier).collect(Collectors.toList()))
+        .forEach(
+            a ->
+                authors.computeIfAbsent(a.getIdentifier(), i -> new HashSet<>()).add(a.getAuthor()));
+    return books.stream()
+        .map(b -> b.withAuthors(authors.getOrDefault(b.getIdentifier(), Collections.emptySet())))
+        .collect(Collectors.toList());
+  }
+
+  /** Completes the given summaries with their descriptions using one additional query. */
+  default List<BookSummary> withDescriptions(List<BookSummary> books) {
+    if (books.isEmpty()) {
+      return books;
+    }
+    Map<UUID, String> descriptions = new HashMap<>();
+    findDescriptionsByIdentifierIn(
+            books.stream().map(BookSummary::getIdentifier).collect(Collectors.toList()))
+        .forEach(d -> descriptions.put(d.getIdentifier(), d.getText()));
+    return books.stream()
+        .map(b -> b.withDescription(descriptions.get(b.getIdentifier())))
+        .collect(Collectors.toList());
+  }
+
+  interface BookAuthor {
+
+    UUID getIdentifier();
+
+    String getAuthor();
+  }
+
+  interface BookDescriptionText {
+
+    UUID getIdentifier();
+
+    String getText();
+  }
 }
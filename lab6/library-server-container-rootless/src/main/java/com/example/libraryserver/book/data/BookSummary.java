@@ -0,0 +1,203 @@
+package com.example.libraryserver.book.data;
+
+import com.example.libraryserver.user.data.User;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Flat, read-only view of a book selected directly by the query. Reading books this way does not
+ * hydrate any managed entities.
+ *
+ * <p>Only the detail view of a book selects its description. Summaries of lists and of borrowed or
+ * returned books come without one.
+ */
+public class BookSummary {
+
+  private final UUID identifier;
+  private final Long version;
+  private final String isbn;
+  private final String title;
+  private final String description;
+  private final Set<String> authors;
+  private final UUID borrowerIdentifier;
+  private final Long borrowerVersion;
+  private final String borrowerFirstName;
+  private final String borrowerLastName;
+
+  public BookSummary(
+      UUID identifier,
+      Long version,
+      String isbn,
+      String title,
+      UUID borrowerIdentifier,
+      Long borrowerVersion,
+      String borrowerFirstName,
+      String borrowerLastName) {
+    this(
+        identifier,
+        version,
+        isbn,
+        title,
+        null,
+        borrowerIdentifier,
+        borrowerVersion,
+        borrowerFirstName,
+        borrowerLastName);
+  }
+
+  public BookSummary(
+      UUID identifier,
+      Long version,
+      String isbn,
+      String title,
+      String description,
+      UUID borrowerIdentifier,
+      Long borrowerVersion,
+      String borrowerFirstName,
+      String borrowerLastName) {
+    this(
+        identifier,
+        version,
+        isbn,
+        title,
+        description,
+        Collections.emptySet(),
+        borrowerIdentifier,
+        borrowerVersion,
+        borrowerFirstName,
+        borrowerLastName);
+  }
+
+  public BookSummary(
+      UUID identifier,
+      Long version,
+      String isbn,
+      String title,
+      String description,
+      Set<String> authors,
+      UUID borrowerIdentifier,
+      Long borrowerVersion,
+      String borrowerFirstName,
+      String borrowerLastName) {
+    this.identifier = identifier;
+    this.version = version;
+    this.isbn = isbn;
+    this.title = title;
+    this.description = description;
+    this.authors = authors;
+    this.borrowerIdentifier = borrowerIdentifier;
+    this.borrowerVersion = borrowerVersion;
+    this.borrowerFirstName = borrowerFirstName;
+    this.borrowerLastName = borrowerLastName;
+  }
+
+  public static BookSummary of(Book book) {
+    User borrower = book.getBorrowedByUser();
+    return new BookSummary(
+        book.getIdentifier(),
+        book.getVersion(),
+        book.getIsbn(),
+        book.getTitle(),
+        book.isDescriptionLoaded() ? book.getDescription() : null,
+        new HashSet<>(book.getAuthors()),
+        borrower != null ? borrower.getIdentifier() : null,
+        borrower != null ? borrower.getVersion() : null,
+        borrower != null ? borrower.getFirstName() : null,
+        borrower != null ? borrower.getLastName() : null);
+  }
+
+  public BookSummary withAuthors(Set<String> authors) {
+    return new BookSummary(
+        identifier,
+        version,
+        isbn,
+        title,
+        description,
+        authors,
+        borrowerIdentifier,
+        borrowerVersion,
+        borrowerFirstName,
+        borrowerLastName);
+  }
+
+  public BookSummary withDescription(String description) {
+    return new BookSummary(
+        identifier,
+        version,
+        isbn,
+        title,
+        description,
+        authors,
+        borrowerIdentifier,
+        borrowerVersion,
+        borrowerFirstName,
+        borrowerLastName);
+  }
+
+  public UUID getIdentifier() {
+    return identifier;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public Set<String> getAuthors() {
+    return authors;
+  }
+
+  public boolean isBorrowed() {
+    return borrowerIdentifier != null;
+  }
+
+  public UUID getBorrowerIdentifier() {
+    return borrowerIdentifier;
+  }
+
+  public Long getBorrowerVersion() {
+    return borrowerVersion;
+  }
+
+  public String getBorrowerFirstName() {
+    return borrowerFirstName;
+  }
+
+  public String getBorrowerLastName() {
+    return borrowerLastName;
+  }
+
+  @Override
+  public String toString() {
+    return "BookSummary{"
+        + "identifier="
+        + identifier
+        + ", version="
+        + version
+        + ", isbn='"
+        + isbn
+        + '\''
+        + ", title='"
+        + title
+        + '\''
+        + ", authors="
+        + authors
+        + ", borrowerIdentifier="
+        + borrowerIdentifier
+        + '}';
+  }
+}
@@ -0,0 +1,992 @@
+package com.example.libraryserver.book.search;
+
+import com.example.libraryserver.book.data.BookSummary;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over title, authors and description of all books.
+ *
+ * <p>Terms are kept sorted, so a query term matches the indexed terms it is a prefix of, of which
+ * only the {@value #MAX_PREFIX_TERMS} found in most books are expanded. All query terms have to
+ * match (AND). Books are ranked by the summed weight of the fields the terms were found in; exact
+ * term matches count more than prefix matches. The index only returns the identifiers of the best
+ * books, the books themselves are read from the database.
+ *
+ * <p>To fit a large catalog into the heap every indexed book gets a compact document id. The
+ * postings of a term are the varint encoded gaps between ascending document ids, each followed by
+ * a weight byte. Per document only identifier, version, title with a sort key (to rank equal
+ * scores) and authors (to replace them on changes without description) are kept. A changed book
+ * gets a new document id, the old ones are dropped by {@link #compact()}.
+ *
+ * <p>Each term also keeps its best {@value #RANKED_DOCUMENTS} documents in ranking order. A query
+ * of a single term, the most common kind, merges these lists of the term and its expansions and
+ * stops at the limit instead of scoring every document the term is found in. Only if replaced
+ * books leave too few documents in a list, all postings are scored. Queries of several terms
+ * start with the rarest term and only look up its documents in the postings of the others. The
+ * expansions of prefixes of up to {@value #SHORT_PREFIX_LENGTH} characters, which match most
+ * terms, are kept until the terms change.
+ *
+ * <p>Deleted books stay as tombstones with their version for {@link #TOMBSTONE_RETENTION}, so an
+ * event of an older version arriving late does not add them again. Events are published right
+ * after their transaction commits, afterwards the index has caught up and the tombstones are
+ * dropped on the next change.
+ */
+@Component
+public class BookSearchIndex {
+
+  static final int TITLE_WEIGHT = 3;
+  static final int AUTHOR_WEIGHT = 2;
+  static final int DESCRIPTION_WEIGHT = 1;
+  static final float PREFIX_FACTOR = 0.5f;
+  static final int MAX_PREFIX_TERMS = 32;
+  static final int RANKED_DOCUMENTS = 256;
+  static final int SHORT_PREFIX_LENGTH = 2;
+  static final Duration TOMBSTONE_RETENTION = Duration.ofMinutes(1);
+
+  private static final int MAX_WEIGHT = 0xff;
+  private static final int MIN_GARBAGE_TO_COMPACT = 1024;
+  private static final String AUTHOR_SEPARATOR = "\n";
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final Clock clock;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<String, Postings> postings = new TreeMap<>();
+  private final Map<String, Expansion> shortPrefixExpansions = new ConcurrentHashMap<>();
+  private final Deque<Tombstone> tombstones = new ArrayDeque<>();
+
+  // columns indexed by document id; title is null for books deleted before they were indexed,
+  // authors for all books that are not live
+  private long[] mostSignificantBits = new long[16];
+  private long[] leastSignificantBits = new long[16];
+  private long[] versions = new long[16];
+  private String[] titles = new String[16];
+  private long[] titleKeys = new long[16];
+  private String[] authors = new String[16];
+  private final BitSet live = new BitSet();
+  private int documentCount;
+  private int liveCount;
+  private int garbageCount;
+
+  // open addressing from identifier to current document id + 1, 0 marks a free slot
+  private int[] slots = new int[32];
+  private int identifierCount;
+
+  public BookSearchIndex() {
+    this(Clock.systemUTC());
+  }
+
+  BookSearchIndex(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Adds the book to the index or replaces it. Books without description, e.g. after borrowing,
+   * keep the description indexed before.
+   */
+  public void index(BookSummary book) {
+    String title = book.getTitle() != null ? book.getTitle() : "";
+    String joinedAuthors = String.join(AUTHOR_SEPARATOR, new TreeSet<>(book.getAuthors()));
+    Map<String, Integer> fieldTerms = fieldTerms(title, joinedAuthors);
+    Map<String, Integer> descriptionTerms = new HashMap<>();
+    addTerms(descriptionTerms, book.getDescription(), DESCRIPTION_WEIGHT);
+    long version = version(book.getVersion());
+
+    lock.writeLock().lock();
+    try {
+      dropExpiredTombstones();
+      shortPrefixExpansions.clear();
+      int document = find(book.getIdentifier());
+      if (document >= 0) {
+        boolean isLive = live.get(document);
+        if (isLive ? version < versions[document] : version <= versions[document]) {
+          return;
+        }
+        if (isLive && book.getDescription() == null) {
+          versions[document] = version;
+          if (!title.equals(titles[document]) || !joinedAuthors.equals(authors[document])) {
+            Map<String, Integer> previousTerms = fieldTerms(titles[document], authors[document]);
+            if (!title.equals(titles[document])) {
+              titles[document] = title;
+              titleKeys[document] = titleKey(title);
+              // equal weights are ranked by title, also in the unknown postings of the description
+              postings.values().forEach(p -> p.reposition(document));
+            }
+            replaceTerms(document, previousTerms, fieldTerms);
+            authors[document] = joinedAuthors;
+          }
+          return;
+        }
+        if (isLive) {
+          discard(document);
+        }
+        garbageCount++;
+      }
+
+      int added = add(book.getIdentifier(), version, title, joinedAuthors);
+      live.set(added);
+      liveCount++;
+      descriptionTerms.forEach((term, weight) -> fieldTerms.merge(term, weight, Integer::sum));
+      fieldTerms.forEach(
+          (term, weight) -> postings.computeIfAbsent(term, t -> new Postings()).add(added, weight));
+      if (garbageCount > Math.max(MIN_GARBAGE_TO_COMPACT, liveCount)) {
+        compactLocked();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the book and remembers the deleted version, so saved versions up to this one are not
+   * indexed again.
+   */
+  public void remove(UUID identifier, Long version) {
+    lock.writeLock().lock();
+    try {
+      dropExpiredTombstones();
+      int document = find(identifier);
+      if (document < 0) {
+        add(identifier, version(version), null, null);
+        tombstones.add(new Tombstone(identifier, clock.millis()));
+        return;
+      }
+      versions[document] = Math.max(versions[document], version(version));
+      if (live.get(document)) {
+        discard(document);
+        garbageCount++;
+        tombstones.add(new Tombstone(identifier, clock.millis()));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Returns the identifiers of the best matching books, best first. */
+  public List<UUID> search(String query, int limit) {
+    Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+    if (queryTerms.isEmpty() || limit < 1) {
+      return Collections.emptyList();
+    }
+
+    lock.readLock().lock();
+    try {
+      List<Expansion> expansions = new ArrayList<>(queryTerms.size());
+      for (String queryTerm : queryTerms) {
+        expansions.add(expand(queryTerm));
+      }
+      if (expansions.size() == 1) {
+        List<UUID> best = topRanked(expansions.get(0), limit);
+        if (best != null) {
+          return best;
+        }
+      }
+      expansions.sort(Comparator.comparingLong(e -> e.total));
+      Matches scores = match(expansions.get(0));
+      for (int i = 1; i < expansions.size() && scores.size > 0; i++) {
+        scores = scores.restrict(expansions.get(i));
+      }
+      return scores.size > 0 ? top(scores, limit) : Collections.emptyList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Drops the postings of replaced and deleted books, renumbers the remaining documents and trims
+   * all arrays to their size.
+   */
+  public void compact() {
+    lock.writeLock().lock();
+    try {
+      compactLocked();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return liveCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      return postings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Approximate heap size of the postings and the identifier and version columns, without the
+   * strings of terms, titles and authors.
+   */
+  public long postingBytes() {
+    lock.readLock().lock();
+    try {
+      long bytes = 32L * mostSignificantBits.length + 4L * slots.length;
+      for (Postings posting : postings.values()) {
+        bytes += 16 + 16 + posting.data.length;
+      }
+      return bytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  static List<String> tokenize(String text) {
+    if (text == null || text.isBlank()) {
+      return Collections.emptyList();
+    }
+    String normalized =
+        DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    List<String> tokens = new ArrayList<>();
+    for (String token : SEPARATORS.split(normalized.toLowerCase(Locale.ROOT))) {
+      if (!token.isEmpty()) {
+        tokens.add(token);
+      }
+    }
+    return tokens;
+  }
+
+  private static Map<String, Integer> fieldTerms(String title, String joinedAuthors) {
+    Map<String, Integer> terms = new HashMap<>();
+    addTerms(terms, title, TITLE_WEIGHT);
+    addTerms(terms, joinedAuthors, AUTHOR_WEIGHT);
+    return terms;
+  }
+
+  private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+    tokenize(text).forEach(t -> terms.merge(t, weight, Integer::sum));
+  }
+
+  /** The first four characters of the title, ordered like the titles themselves. */
+  private static long titleKey(String title) {
+    long key = 0;
+    for (int i = 0; i < 4; i++) {
+      key = (key << 16) | (i < title.length() ? title.charAt(i) : 0);
+    }
+    return key;
+  }
+
+  private static long version(Long version) {
+    return version != null ? version : Long.MIN_VALUE;
+  }
+
+  /* the title still ranks the document in the postings until they are compacted */
+  private void discard(int document) {
+    live.clear(document);
+    liveCount--;
+    authors[document] = null;
+  }
+
+  private void dropExpiredTombstones() {
+    long expired = clock.millis() - TOMBSTONE_RETENTION.toMillis();
+    while (!tombstones.isEmpty() && tombstones.peek().deletedAt <= expired) {
+      int document = find(tombstones.poll().identifier);
+      if (document >= 0 && !live.get(document)) {
+        removeSlot(document);
+        garbageCount++;
+      }
+    }
+  }
+
+  /** Orders documents of equal score by title, then by identifier. */
+  private int compareDocuments(int documentA, int documentB) {
+    int byTitle = Long.compareUnsigned(titleKeys[documentA], titleKeys[documentB]);
+    if (byTitle == 0) {
+      byTitle = titles[documentA].compareTo(titles[documentB]);
+    }
+    if (byTitle != 0) {
+      return byTitle;
+    }
+    int byMsb = Long.compare(mostSignificantBits[documentA], mostSignificantBits[documentB]);
+    return byMsb != 0
+        ? byMsb
+        : Long.compare(leastSignificantBits[documentA], leastSignificantBits[documentB]);
+  }
+
+  /** Changes the title and author weights of a document in place, its description is unknown. */
+  private void replaceTerms(
+      int document, Map<String, Integer> oldTerms, Map<String, Integer> newTerms) {
+    Set<String> terms = new HashSet<>(oldTerms.keySet());
+    terms.addAll(newTerms.keySet());
+    for (String term : terms) {
+      int delta = newTerms.getOrDefault(term, 0) - oldTerms.getOrDefault(term, 0);
+      if (delta != 0) {
+        Postings posting = postings.computeIfAbsent(term, t -> new Postings());
+        posting.adjust(document, delta);
+        if (posting.count == 0) {
+          postings.remove(term);
+        }
+      }
+    }
+  }
+
+  private int add(UUID identifier, long version, String title, String joinedAuthors) {
+    if (documentCount == titles.length) {
+      int capacity = documentCount + (documentCount >> 1);
+      mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+      leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+      titles = Arrays.copyOf(titles, capacity);
+      titleKeys = Arrays.copyOf(titleKeys, capacity);
+      authors = Arrays.copyOf(authors, capacity);
+    }
+    int document = documentCount++;
+    mostSignificantBits[document] = identifier.getMostSignificantBits();
+    leastSignificantBits[document] = identifier.getLeastSignificantBits();
+    versions[document] = version;
+    titles[document] = title;
+    titleKeys[document] = title != null ? titleKey(title) : 0;
+    authors[document] = joinedAuthors;
+    put(document);
+    return document;
+  }
+
+  private int find(UUID identifier) {
+    long msb = identifier.getMostSignificantBits();
+    long lsb = identifier.getLeastSignificantBits();
+    int mask = slots.length - 1;
+    for (int slot = hash(msb, lsb) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int document = slots[slot] - 1;
+      if (mostSignificantBits[document] == msb && leastSignificantBits[document] == lsb) {
+        return document;
+      }
+    }
+    return -1;
+  }
+
+  /** Points the slot of the document's identifier to the document. */
+  private void put(int document) {
+    long msb = mostSignificantBits[document];
+    long lsb = leastSignificantBits[document];
+    int mask = slots.length - 1;
+    int slot = hash(msb, lsb) & mask;
+    while (slots[slot] != 0) {
+      int existing = slots[slot] - 1;
+      if (mostSignificantBits[existing] == msb && leastSignificantBits[existing] == lsb) {
+        slots[slot] = document + 1;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = document + 1;
+    if (++identifierCount * 2 > slots.length) {
+      rehash(slots.length * 2);
+    }
+  }
+
+  /** Frees the slot of the document, moving back the following slots of the same probe run. */
+  private void removeSlot(int document) {
+    int mask = slots.length - 1;
+    int slot = hash(mostSignificantBits[document], leastSignificantBits[document]) & mask;
+    while (slots[slot] != document + 1) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = 0;
+    identifierCount--;
+    for (int next = (slot + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+      int moved = slots[next] - 1;
+      int home = hash(mostSignificantBits[moved], leastSignificantBits[moved]) & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        slots[slot] = slots[next];
+        slots[next] = 0;
+        slot = next;
+      }
+    }
+  }
+
+  private void rehash(int capacity) {
+    int[] previous = slots;
+    slots = new int[capacity];
+    int mask = capacity - 1;
+    for (int entry : previous) {
+      if (entry != 0) {
+        int document = entry - 1;
+        int slot = hash(mostSignificantBits[document], leastSignificantBits[document]) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry;
+      }
+    }
+  }
+
+  private static int hash(long msb, long lsb) {
+    long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private void compactLocked() {
+    BitSet current = new BitSet(documentCount);
+    for (int entry : slots) {
+      if (entry != 0) {
+        current.set(entry - 1);
+      }
+    }
+    shortPrefixExpansions.clear();
+    int[] renumbered = new int[documentCount];
+    BitSet renumberedLive = new BitSet(liveCount);
+    int count = 0;
+    for (int document = 0; document < documentCount; document++) {
+      if (current.get(document)) {
+        if (live.get(document)) {
+          renumberedLive.set(count);
+        }
+        mostSignificantBits[count] = mostSignificantBits[document];
+        leastSignificantBits[count] = leastSignificantBits[document];
+        versions[count] = versions[document];
+        titles[count] = titles[document];
+        titleKeys[count] = titleKeys[document];
+        authors[count] = authors[document];
+        renumbered[document] = count++;
+      } else {
+        renumbered[document] = -1;
+      }
+    }
+    BitSet previousLive = (BitSet) live.clone();
+    live.clear();
+    live.or(renumberedLive);
+    postings.values().removeIf(p -> p.renumber(renumbered, previousLive) == 0);
+
+    int capacity = Math.max(count, 16);
+    mostSignificantBits = Arrays.copyOf(mostSignificantBits, capacity);
+    leastSignificantBits = Arrays.copyOf(leastSignificantBits, capacity);
+    versions = Arrays.copyOf(versions, capacity);
+    titles = Arrays.copyOf(titles, capacity);
+    titleKeys = Arrays.copyOf(titleKeys, capacity);
+    authors = Arrays.copyOf(authors, capacity);
+    documentCount = count;
+    garbageCount = 0;
+
+    slots = new int[Math.max(32, Integer.highestOneBit(Math.max(1, count)) * 4)];
+    identifierCount = 0;
+    for (int document = 0; document < count; document++) {
+      put(document);
+    }
+  }
+
+  /** The postings of the term itself and of its most frequent extensions. */
+  private Expansion expand(String queryTerm) {
+    if (queryTerm.length() > SHORT_PREFIX_LENGTH) {
+      return expandTerm(queryTerm);
+    }
+    return shortPrefixExpansions.computeIfAbsent(queryTerm, this::expandTerm);
+  }
+
+  private Expansion expandTerm(String queryTerm) {
+    PriorityQueue<Postings> mostFrequent =
+        new PriorityQueue<>(Comparator.comparingInt((Postings p) -> p.count));
+    for (Postings posting :
+        postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+      if (mostFrequent.size() < MAX_PREFIX_TERMS) {
+        mostFrequent.offer(posting);
+      } else if (posting.count > mostFrequent.peek().count) {
+        mostFrequent.poll();
+        mostFrequent.offer(posting);
+      }
+    }
+    return new Expansion(postings.get(queryTerm), new ArrayList<>(mostFrequent));
+  }
+
+  /** Best weight per book of the term itself and its most frequent extensions. */
+  private Matches match(Expansion expansion) {
+    Postings exact = expansion.exact;
+    if (!expansion.prefixed.isEmpty() && expansion.total > documentCount / 8) {
+      // merging many long lists costs more than a score per document
+      float[] best = new float[documentCount];
+      if (exact != null) {
+        exact.accumulate(best, 1f, live);
+      }
+      expansion.prefixed.forEach(p -> p.accumulate(best, PREFIX_FACTOR, live));
+      return Matches.of(best);
+    }
+    Matches matches = exact != null ? exact.decode(1f, live) : Matches.EMPTY;
+    for (Postings posting : expansion.prefixed) {
+      matches = matches.union(posting.decode(PREFIX_FACTOR, live));
+    }
+    return matches;
+  }
+
+  /**
+   * Merges the ranked documents of the term and its extensions, best first, until the limit is
+   * reached. A document is ranked by its first, best occurrence. Returns null if a list without
+   * all of its documents runs out before, as the missing ones could rank anywhere below it.
+   */
+  private List<UUID> topRanked(Expansion expansion, int limit) {
+    List<Postings> lists = new ArrayList<>(expansion.prefixed.size() + 1);
+    if (expansion.exact != null) {
+      lists.add(expansion.exact);
+    }
+    lists.addAll(expansion.prefixed);
+    float[] factors = new float[lists.size()];
+    Arrays.fill(factors, PREFIX_FACTOR);
+    if (expansion.exact != null) {
+      factors[0] = 1f;
+    }
+    int[] positions = new int[lists.size()];
+    int[] found = new int[limit];
+    int foundCount = 0;
+    while (foundCount < limit) {
+      int best = -1;
+      float bestScore = 0;
+      for (int i = 0; i < positions.length; i++) {
+        Postings list = lists.get(i);
+        if (positions[i] == list.rankedSize) {
+          if (list.truncated) {
+            return null;
+          }
+          continue;
+        }
+        float score = (list.rankedWeights[positions[i]] & 0xff) * factors[i];
+        if (best < 0
+            || score > bestScore
+            || (score == bestScore
+                && compareDocuments(
+                        list.ranked[positions[i]], lists.get(best).ranked[positions[best]])
+                    < 0)) {
+          best = i;
+          bestScore = score;
+        }
+      }
+      if (best < 0) {
+        break;
+      }
+      int document = lists.get(best).ranked[positions[best]++];
+      if (live.get(document) && !contains(found, foundCount, document)) {
+        found[foundCount++] = document;
+      }
+    }
+    List<UUID> identifiers = new ArrayList<>(foundCount);
+    for (int i = 0; i < foundCount; i++) {
+      identifiers.add(new UUID(mostSignificantBits[found[i]], leastSignificantBits[found[i]]));
+    }
+    return identifiers;
+  }
+
+  private static boolean contains(int[] documents, int size, int document) {
+    for (int i = 0; i < size; i++) {
+      if (documents[i] == document) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<UUID> top(Matches scores, int limit) {
+    Comparator<Integer> ranking =
+        (a, b) -> {
+          int byScore = Float.compare(scores.scores[b], scores.scores[a]);
+          return byScore != 0
+              ? byScore
+              : compareDocuments(scores.documents[a], scores.documents[b]);
+        };
+    PriorityQueue<Integer> worstFirst = new PriorityQueue<>(limit + 1, ranking.reversed());
+    for (int i = 0; i < scores.size; i++) {
+      if (worstFirst.size() < limit) {
+        worstFirst.offer(i);
+      } else if (scores.scores[i] >= scores.scores[worstFirst.peek()]
+          && ranking.compare(i, worstFirst.peek()) < 0) {
+        worstFirst.poll();
+        worstFirst.offer(i);
+      }
+    }
+    List<Integer> best = new ArrayList<>(worstFirst);
+    best.sort(ranking);
+    List<UUID> identifiers = new ArrayList<>(best.size());
+    for (int i : best) {
+      int document = scores.documents[i];
+      identifiers.add(
+          new UUID(mostSignificantBits[document], leastSignificantBits[document]));
+    }
+    return identifiers;
+  }
+
+  /** A query term with the postings it matches, limited to the most frequent extensions. */
+  private static final class Expansion {
+
+    private final Postings exact;
+    private final List<Postings> prefixed;
+    private final long total;
+
+    Expansion(Postings exact, List<Postings> prefixed) {
+      this.exact = exact;
+      this.prefixed = prefixed;
+      long count = exact != null ? exact.count : 0;
+      for (Postings posting : prefixed) {
+        count += posting.count;
+      }
+      this.total = count;
+    }
+  }
+
+  private static final class Tombstone {
+
+    private final UUID identifier;
+    private final long deletedAt;
+
+    Tombstone(UUID identifier, long deletedAt) {
+      this.identifier = identifier;
+      this.deletedAt = deletedAt;
+    }
+  }
+
+  /**
+   * Documents of a term as varint encoded gaps between ascending ids, each with a weight byte,
+   * and the best of them in ranking order. Documents missing in a truncated ranking rank below its
+   * last one.
+   */
+  private final class Postings {
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int count;
+    private int lastDocument = -1;
+    private int[] ranked = new int[4];
+    private byte[] rankedWeights = new byte[4];
+    private int rankedSize;
+    private boolean truncated;
+
+    void add(int document, int weight) {
+      if (length + 6 > data.length) {
+        data = Arrays.copyOf(data, Math.max(length + 6, data.length + (data.length >> 1)));
+      }
+      int gap = document - lastDocument;
+      while ((gap & ~0x7f) != 0) {
+        data[length++] = (byte) ((gap & 0x7f) | 0x80);
+        gap >>>= 7;
+      }
+      data[length++] = (byte) gap;
+      data[length++] = (byte) Math.min(weight, MAX_WEIGHT);
+      count++;
+      lastDocument = document;
+      rank(document, Math.min(weight, MAX_WEIGHT));
+    }
+
+    private void rank(int document, int weight) {
+      if (belowRanking(document, weight)) {
+        truncated = true;
+        return;
+      }
+      int low = 0;
+      int high = rankedSize;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (ranksBefore(document, weight, middle)) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      if (rankedSize == RANKED_DOCUMENTS) {
+        truncated = true;
+        rankedSize--;
+      } else if (rankedSize == ranked.length) {
+        int capacity = Math.min(RANKED_DOCUMENTS, Math.max(4, rankedSize * 2));
+        ranked = Arrays.copyOf(ranked, capacity);
+        rankedWeights = Arrays.copyOf(rankedWeights, capacity);
+      }
+      System.arraycopy(ranked, low, ranked, low + 1, rankedSize - low);
+      System.arraycopy(rankedWeights, low, rankedWeights, low + 1, rankedSize - low);
+      ranked[low] = document;
+      rankedWeights[low] = (byte) weight;
+      rankedSize++;
+    }
+
+    /* a document after the last one of a truncated ranking could rank below missing ones */
+    private boolean belowRanking(int document, int weight) {
+      return (truncated || rankedSize == RANKED_DOCUMENTS)
+          && (rankedSize == 0 || !ranksBefore(document, weight, rankedSize - 1));
+    }
+
+    private boolean ranksBefore(int document, int weight, int position) {
+      int rankedWeight = rankedWeights[position] & 0xff;
+      return weight != rankedWeight
+          ? weight > rankedWeight
+          : compareDocuments(document, ranked[position]) < 0;
+    }
+
+    /** Moves the document to its place in the ranking after its title changed. */
+    void reposition(int document) {
+      int position = 0;
+      while (position < rankedSize && ranked[position] != document) {
+        position++;
+      }
+      int weight;
+      if (position < rankedSize) {
+        weight = rankedWeights[position] & 0xff;
+        System.arraycopy(ranked, position + 1, ranked, position, rankedSize - position - 1);
+        System.arraycopy(
+            rankedWeights, position + 1, rankedWeights, position, rankedSize - position - 1);
+        rankedSize--;
+      } else if (truncated) {
+        weight = weightOf(document);
+      } else {
+        return;
+      }
+      if (weight > 0) {
+        rank(document, weight);
+      }
+    }
+
+    private int weightOf(int document) {
+      int current = -1;
+      int position = 0;
+      while (position < length && current < document) {
+        int gap = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          gap |= (b & 0x7f) << shift;
+          shift += 7;
+        } while (b < 0);
+        current += gap;
+        if (current == document) {
+          return data[position] & 0xff;
+        }
+        position++;
+      }
+      return 0;
+    }
+
+    /** Decodes the documents contained in live, or all of them if live is null. */
+    Matches decode(float factor, BitSet live) {
+      int[] documents = new int[count];
+      float[] scores = new float[count];
+      int size = 0;
+      int document = -1;
+      int position = 0;
+      while (position < length) {
+        int gap = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          gap |= (b & 0x7f) << shift;
+          shift += 7;
+        } while (b < 0);
+        document += gap;
+        int weight = data[position++] & 0xff;
+        if (live == null || live.get(document)) {
+          documents[size] = document;
+          scores[size++] = weight * factor;
+        }
+      }
+      return new Matches(documents, scores, size);
+    }
+
+    /** Keeps the better of the given and the weighted score of every live document. */
+    void accumulate(float[] best, float factor, BitSet live) {
+      int document = -1;
+      int position = 0;
+      while (position < length) {
+        int gap = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          gap |= (b & 0x7f) << shift;
+          shift += 7;
+        } while (b < 0);
+        document += gap;
+        float score = (data[position++] & 0xff) * factor;
+        if (score > best[document] && live.get(document)) {
+          best[document] = score;
+        }
+      }
+    }
+
+    /**
+     * Keeps the better of the given and the weighted score of the candidates, found by walking
+     * both in document order. Stops after the last candidate.
+     */
+    void accumulate(Matches candidates, float[] best, float factor) {
+      int document = -1;
+      int position = 0;
+      int candidate = 0;
+      while (position < length && candidate < candidates.size) {
+        int gap = 0;
+        int shift = 0;
+        byte b;
+        do {
+          b = data[position++];
+          gap |= (b & 0x7f) << shift;
+          shift += 7;
+        } while (b < 0);
+        document += gap;
+        int weight = data[position++] & 0xff;
+        while (candidate < candidates.size && candidates.documents[candidate] < document) {
+          candidate++;
+        }
+        if (candidate < candidates.size && candidates.documents[candidate] == document) {
+          best[candidate] = Math.max(best[candidate], weight * factor);
+        }
+      }
+    }
+
+    /** Adds the delta to the weight of the document, removing it when no weight is left. */
+    void adjust(int document, int delta) {
+      Matches all = decode(1f, null);
+      clear();
+      boolean adjusted = false;
+      for (int i = 0; i < all.size; i++) {
+        int existing = all.documents[i];
+        int weight = (int) all.scores[i];
+        if (!adjusted && existing >= document) {
+          adjusted = true;
+          int adjustedWeight = (existing == document ? weight : 0) + delta;
+          if (adjustedWeight > 0) {
+            add(document, adjustedWeight);
+          }
+          if (existing == document) {
+            continue;
+          }
+        }
+        add(existing, weight);
+      }
+      if (!adjusted && delta > 0) {
+        add(document, delta);
+      }
+      data = Arrays.copyOf(data, length);
+    }
+
+    /** Keeps the live documents under their new ids and returns how many are left. */
+    int renumber(int[] renumbered, BitSet live) {
+      Matches all = decode(1f, live);
+      clear();
+      for (int i = 0; i < all.size; i++) {
+        add(renumbered[all.documents[i]], (int) all.scores[i]);
+      }
+      data = Arrays.copyOf(data, length);
+      ranked = Arrays.copyOf(ranked, rankedSize);
+      rankedWeights = Arrays.copyOf(rankedWeights, rankedSize);
+      return count;
+    }
+
+    private void clear() {
+      data = new byte[Math.max(8, length)];
+      length = 0;
+      count = 0;
+      lastDocument = -1;
+      rankedSize = 0;
+      truncated = false;
+    }
+  }
+
+  /** Scores of books sorted by document id. */
+  private static final class Matches {
+
+    static final Matches EMPTY = new Matches(new int[0], new float[0], 0);
+
+    private final int[] documents;
+    private final float[] scores;
+    private final int size;
+
+    Matches(int[] documents, float[] scores, int size) {
+      this.documents = documents;
+      this.scores = scores;
+      this.size = size;
+    }
+
+    /** Books with a score above zero. */
+    static Matches of(float[] best) {
+      int size = 0;
+      for (float score : best) {
+        if (score > 0) {
+          size++;
+        }
+      }
+      int[] documents = new int[size];
+      float[] scores = new float[size];
+      int n = 0;
+      for (int document = 0; document < best.length; document++) {
+        if (best[document] > 0) {
+          documents[n] = document;
+          scores[n++] = best[document];
+        }
+      }
+      return new Matches(documents, scores, size);
+    }
+
+    /** Books matching any of both, with the better score. */
+    Matches union(Matches other) {
+      int[] mergedDocuments = new int[size + other.size];
+      float[] mergedScores = new float[size + other.size];
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < size || j < other.size) {
+        if (j == other.size || (i < size && documents[i] < other.documents[j])) {
+          mergedDocuments[n] = documents[i];
+          mergedScores[n++] = scores[i++];
+        } else if (i == size || other.documents[j] < documents[i]) {
+          mergedDocuments[n] = other.documents[j];
+          mergedScores[n++] = other.scores[j++];
+        } else {
+          mergedDocuments[n] = documents[i];
+          mergedScores[n++] = Math.max(scores[i++], other.scores[j++]);
+        }
+      }
+      return new Matches(mergedDocuments, mergedScores, n);
+    }
+
+    /**
+     * Books also matching the expansion, with its best weight added to their score. Only the
+     * postings up to the last of these books are read.
+     */
+    Matches restrict(Expansion expansion) {
+      float[] best = new float[size];
+      if (expansion.exact != null) {
+        expansion.exact.accumulate(this, best, 1f);
+      }
+      for (Postings posting : expansion.prefixed) {
+        posting.accumulate(this, best, PREFIX_FACTOR);
+      }
+      int[] commonDocuments = new int[size];
+      float[] commonScores = new float[size];
+      int n = 0;
+      for (int i = 0; i < size; i++) {
+        if (best[i] > 0) {
+          commonDocuments[n] = documents[i];
+          commonScores[n++] = scores[i] + best[i];
+        }
+      }
+      return new Matches(commonDocuments, commonScores, n);
+    }
+  }
+}
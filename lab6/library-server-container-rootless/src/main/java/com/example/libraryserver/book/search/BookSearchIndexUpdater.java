@@ -0,0 +1,82 @@
+package com.example.libraryserver.book.search;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.book.service.BookChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.stream.Stream;
+
+/**
+ * Fills the {@link BookSearchIndex} once on startup and afterwards applies every committed book
+ * change to it, so the index never has to be rebuilt.
+ */
+@Component
+public class BookSearchIndexUpdater {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookSearchIndexUpdater.class);
+
+  private final BookSearchIndex bookSearchIndex;
+  private final BookRepository bookRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+
+  public BookSearchIndexUpdater(
+      BookSearchIndex bookSearchIndex,
+      BookRepository bookRepository,
+      EntityManager entityManager,
+      PlatformTransactionManager transactionManager) {
+    this.bookSearchIndex = bookSearchIndex;
+    this.bookRepository = bookRepository;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildIndex() {
+    long start = System.nanoTime();
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          // detach every indexed book, so the session never holds the whole catalog
+          try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(
+                b -> {
+                  bookSearchIndex.index(BookSummary.of(b));
+                  entityManager.detach(b);
+                });
+          }
+        });
+    bookSearchIndex.compact();
+    LOGGER.info(
+        "Indexed {} books with {} terms in {} KB of postings for search in {} ms",
+        bookSearchIndex.size(),
+        bookSearchIndex.termCount(),
+        bookSearchIndex.postingBytes() / 1024,
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Events of concurrent transactions may arrive in any order. The index ignores older versions, a
+   * deleted book is never added again by the event of a save committed before its deletion.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    LOGGER.trace("Update search index for {}", event);
+    event
+        .getBook()
+        .map(BookSummary::of)
+        .ifPresentOrElse(
+            bookSearchIndex::index,
+            () -> bookSearchIndex.remove(event.getIdentifier(), event.getVersion()));
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.libraryserver.book.service;
+
+import com.example.libraryserver.book.data.Book;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Published by {@link BookService} whenever a book has been stored, borrowed, returned or deleted.
+ * Deleted books carry no book state, only the version they were deleted in.
+ */
+public class BookChangedEvent {
+
+  private final UUID identifier;
+  private final Long version;
+  private final Book book;
+
+  private BookChangedEvent(UUID identifier, Long version, Book book) {
+    this.identifier = identifier;
+    this.version = version;
+    this.book = book;
+  }
+
+  public static BookChangedEvent saved(Book book) {
+    return new BookChangedEvent(book.getIdentifier(), book.getVersion(), book);
+  }
+
+  public static BookChangedEvent deleted(UUID identifier, Long version) {
+    return new BookChangedEvent(identifier, version, null);
+  }
+
+  public UUID getIdentifier() {
+    return identifier;
+  }
+
+  public Long getVersion() {
+    return version;
+  }
+
+  public Optional<Book> getBook() {
+    return Optional.ofNullable(book);
+  }
+
+  public boolean isDeleted() {
+    return book == null;
+  }
+
+  @Override
+  public String toString() {
+    return "BookChangedEvent{"
+        + "identifier="
+        + identifier
+        + ", version="
+        + version
+        + ", deleted="
+        + isDeleted()
+        + '}';
+  }
+}
@@ -0,0 +1,55 @@
+package com.example.libraryserver.book.service;
+
+import com.example.libraryserver.book.data.BookSummary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/** A bounded, keyset paginated slice of the book catalog ordered by book identifier. */
+public class BookPage {
+
+  private final List<BookSummary> books;
+  private final boolean hasPrevious;
+  private final boolean hasNext;
+
+  public BookPage(List<BookSummary> books, boolean hasPrevious, boolean hasNext) {
+    this.books = books;
+    this.hasPrevious = hasPrevious;
+    this.hasNext = hasNext;
+  }
+
+  public List<BookSummary> getBooks() {
+    return books;
+  }
+
+  public boolean hasPrevious() {
+    return hasPrevious && !books.isEmpty();
+  }
+
+  public boolean hasNext() {
+    return hasNext && !books.isEmpty();
+  }
+
+  public Optional<UUID> getFirstIdentifier() {
+    return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0).getIdentifier());
+  }
+
+  public Optional<UUID> getLastIdentifier() {
+    return books.isEmpty()
+        ? Optional.empty()
+        : Optional.of(books.get(books.size() - 1).getIdentifier());
+  }
+
+  @Override
+  public String toString() {
+    return "BookPage{"
+        + "books="
+        + books.size()
+        + ", hasPrevious="
+        + hasPrevious
+        + ", hasNext="
+        + hasNext
+        + '}';
+  }
+}
@@ -2,45 +2,113 @@ package com.example.libraryserver.book.service;
 
 import com.example.libraryserver.book.data.Book;
 import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.book.search.BookSearchIndex;
 import com.example.libraryserver.security.AuthenticatedUser;
-import com.example.libraryserver.user.data.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.IdGenerator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @PreAuthorize("isAuthenticated()")
 @Transactional(readOnly = true)
 public class BookService {
 
+  public static final int MAX_PAGE_SIZE = 100;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(BookService.class);
 
   private final BookRepository bookRepository;
-  private final UserRepository userRepository;
   private final IdGenerator idGenerator;
+  private final BookSearchIndex bookSearchIndex;
+  private final ApplicationEventPublisher eventPublisher;
 
   public BookService(
-      BookRepository bookRepository, UserRepository userRepository, IdGenerator idGenerator) {
+      BookRepository bookRepository,
+      IdGenerator idGenerator,
+      BookSearchIndex bookSearchIndex,
+      ApplicationEventPublisher eventPublisher) {
     this.bookRepository = bookRepository;
-    this.userRepository = userRepository;
     this.idGenerator = idGenerator;
+    this.bookSearchIndex = bookSearchIndex;
+    this.eventPublisher = eventPublisher;
   }
 
+  /**
+   * Loads a book to be updated. Its description is loaded as well, so an unchanged description is
+   * recognized after the book has been detached and is not replaced.
+   */
   public Optional<Book> findOneByIdentifier(UUID identifier) {
     LOGGER.trace("find book for identifier {}", identifier);
-    return bookRepository.findOneByIdentifier(identifier);
+    return bookRepository.findOneWithDescriptionByIdentifier(identifier);
+  }
+
+  public Optional<BookSummary> findSummaryByIdentifier(UUID identifier) {
+    LOGGER.trace("find book summary for identifier {}", identifier);
+    return bookRepository
+        .findSummaryByIdentifier(identifier)
+        .map(b -> bookRepository.withAuthors(Collections.singletonList(b)).get(0));
   }
 
-  public List<Book> findAll() {
-    LOGGER.trace("find all books");
-    return bookRepository.findAll();
+  public BookPage findPage(UUID after, UUID before, int size) {
+    LOGGER.trace("find page of books after {} before {} with size {}", after, before, size);
+
+    int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    Pageable pageable = PageRequest.of(0, limit + 1);
+
+    if (before != null) {
+      List<BookSummary> books = bookRepository.findSummariesBefore(before, pageable);
+      boolean hasPrevious = books.size() > limit;
+      List<BookSummary> page = new ArrayList<>(books.subList(0, Math.min(books.size(), limit)));
+      Collections.reverse(page);
+      return new BookPage(bookRepository.withAuthors(page), hasPrevious, true);
+    }
+
+    List<BookSummary> books =
+        after != null
+            ? bookRepository.findSummariesAfter(after, pageable)
+            : bookRepository.findSummaries(pageable);
+    boolean hasNext = books.size() > limit;
+    return new BookPage(
+        bookRepository.withAuthors(books.subList(0, Math.min(books.size(), limit))),
+        after != null,
+        hasNext);
+  }
+
+  /** Searches the index and reads the found books, keeping their rank. */
+  public List<BookSummary> search(String query, int size) {
+    LOGGER.trace("search books for {} with size {}", query, size);
+
+    List<UUID> identifiers =
+        bookSearchIndex.search(query, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    if (identifiers.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<UUID, BookSummary> books = new HashMap<>();
+    bookRepository
+        .findSummariesByIdentifierIn(identifiers)
+        .forEach(b -> books.put(b.getIdentifier(), b));
+    return bookRepository.withAuthors(
+        identifiers.stream()
+            .map(books::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
   }
 
   @PreAuthorize("hasRole('LIBRARY_CURATOR')")
@@ -51,7 +119,22 @@ public class BookService {
     if (book.getIdentifier() == null) {
       book.setIdentifier(idGenerator.generateId());
     }
-    return bookRepository.save(book);
+    Book savedBook = bookRepository.save(book);
+    eventPublisher.publishEvent(BookChangedEvent.saved(savedBook));
+    return savedBook;
+  }
+
+  @PreAuthorize("hasRole('LIBRARY_CURATOR')")
+  @Transactional
+  public List<Book> saveAll(List<Book> books) {
+    LOGGER.trace("Save {} books", books.size());
+
+    books.stream()
+        .filter(b -> b.getIdentifier() == null)
+        .forEach(b -> b.setIdentifier(idGenerator.generateId()));
+    List<Book> savedBooks = bookRepository.saveAll(books);
+    savedBooks.forEach(b -> eventPublisher.publishEvent(BookChangedEvent.saved(b)));
+    return savedBooks;
   }
 
   @PreAuthorize("hasRole('LIBRARY_USER')")
@@ -63,25 +146,14 @@ public class BookService {
         bookIdentifier,
         userIdentifier);
 
-    return bookRepository
-        .findOneByIdentifier(bookIdentifier)
-        .filter(
-            b ->
-                b.getBorrowedByUser() == null
-                    && authenticatedUser != null
-                    && userIdentifier.equals(authenticatedUser.getIdentifier()))
-        .flatMap(
-            b ->
-                userRepository
-                    .findOneByIdentifier(userIdentifier)
-                    .map(
-                        u -> {
-                          b.setBorrowedByUser(u);
-                          Book borrowedBook = bookRepository.save(b);
-                          LOGGER.info("Borrowed book {} for user {}", borrowedBook, u);
-                          return Optional.of(borrowedBook);
-                        })
-                    .orElse(Optional.empty()));
+    if (!isAuthenticatedAs(userIdentifier, authenticatedUser)
+        || bookRepository.borrowForUser(bookIdentifier, userIdentifier) == 0) {
+      return Optional.empty();
+    }
+    Optional<Book> borrowedBook = bookRepository.findOneByNaturalId(bookIdentifier);
+    borrowedBook.ifPresent(b -> eventPublisher.publishEvent(BookChangedEvent.saved(b)));
+    LOGGER.info("Borrowed book {} for user {}", bookIdentifier, userIdentifier);
+    return borrowedBook;
   }
 
   @PreAuthorize("hasRole('LIBRARY_USER')")
@@ -93,28 +165,18 @@ public class BookService {
         bookIdentifier,
         userIdentifier);
 
-    return bookRepository
-        .findOneByIdentifier(bookIdentifier)
-        .filter(
-            b ->
-                b.getBorrowedByUser() != null
-                    && authenticatedUser != null
-                    && b.getBorrowedByUser().getIdentifier().equals(userIdentifier)
-                    && b.getBorrowedByUser()
-                        .getIdentifier()
-                        .equals(authenticatedUser.getIdentifier()))
-        .flatMap(
-            b ->
-                userRepository
-                    .findOneByIdentifier(userIdentifier)
-                    .map(
-                        u -> {
-                          b.setBorrowedByUser(null);
-                          Book returnedBook = bookRepository.save(b);
-                          LOGGER.info("Returned book {} for user {}", returnedBook, u);
-                          return Optional.of(returnedBook);
-                        })
-                    .orElse(Optional.empty()));
+    if (!isAuthenticatedAs(userIdentifier, authenticatedUser)
+        || bookRepository.returnForUser(bookIdentifier, userIdentifier) == 0) {
+      return Optional.empty();
+    }
+    Optional<Book> returnedBook = bookRepository.findOneByNaturalId(bookIdentifier);
+    returnedBook.ifPresent(b -> eventPublisher.publishEvent(BookChangedEvent.saved(b)));
+    LOGGER.info("Returned book {} for user {}", bookIdentifier, userIdentifier);
+    return returnedBook;
+  }
+
+  private boolean isAuthenticatedAs(UUID userIdentifier, AuthenticatedUser authenticatedUser) {
+    return authenticatedUser != null && userIdentifier.equals(authenticatedUser.getIdentifier());
   }
 
   @PreAuthorize("hasRole('LIBRARY_CURATOR')")
@@ -123,10 +185,11 @@ public class BookService {
     LOGGER.trace("delete book with identifier {}", bookIdentifier);
 
     return bookRepository
-        .findOneByIdentifier(bookIdentifier)
+        .findOneByNaturalId(bookIdentifier)
         .map(
             b -> {
               bookRepository.delete(b);
+              eventPublisher.publishEvent(BookChangedEvent.deleted(bookIdentifier, b.getVersion()));
               return true;
             })
         .orElse(false);
@@ -0,0 +1,178 @@
+package com.example.libraryserver.book.web;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.service.BookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.owasp.encoder.Encode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams books from a JSON array or from newline delimited JSON, validates each one on its own
+ * and stores the valid ones in chunks. Invalid entries are reported by their position in the input
+ * and do not abort the import.
+ *
+ * <p>A chunk the database rejects is split in halves, each stored in a transaction of its own,
+ * until the books that cannot be stored are found. Only these are reported, all others are
+ * imported.
+ */
+@Component
+public class BookBatchImporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookBatchImporter.class);
+
+  static final int CHUNK_SIZE = 500;
+  static final int MAX_REPORTED_ERRORS = 100;
+
+  private final BookService bookService;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final ObjectReader treeReader;
+
+  public BookBatchImporter(BookService bookService, Validator validator, ObjectMapper objectMapper) {
+    this.bookService = bookService;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.treeReader = objectMapper.readerFor(JsonNode.class);
+  }
+
+  public BookBatchResultModel importJsonArray(InputStream inputStream) throws IOException {
+    Batch batch = new Batch();
+    int index = 0;
+    try (MappingIterator<JsonNode> nodes = treeReader.readValues(inputStream)) {
+      while (nodes.hasNextValue()) {
+        batch.add(index++, nodes.nextValue());
+      }
+    } catch (JsonProcessingException ex) {
+      batch.reject(index, "Malformed JSON, import stopped: " + ex.getOriginalMessage());
+    }
+    return batch.complete();
+  }
+
+  public BookBatchResultModel importNdJson(InputStream inputStream) throws IOException {
+    Batch batch = new Batch();
+    int index = 0;
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        try {
+          batch.add(index, treeReader.readValue(line));
+        } catch (JsonProcessingException ex) {
+          batch.reject(index, "Malformed JSON: " + ex.getOriginalMessage());
+        }
+        index++;
+      }
+    }
+    return batch.complete();
+  }
+
+  private static Book toBook(BookModel bookModel) {
+    return new Book(
+        bookModel.getIsbn(),
+        bookModel.getTitle(),
+        bookModel.getDescription(),
+        bookModel.getAuthors());
+  }
+
+  private class Batch {
+
+    private final List<BookModel> books = new ArrayList<>(CHUNK_SIZE);
+    private final List<Integer> indices = new ArrayList<>(CHUNK_SIZE);
+    private final List<BookBatchResultModel.ItemError> errors = new ArrayList<>();
+    private int imported;
+    private int failed;
+
+    void add(int index, JsonNode node) {
+      BookModel bookModel;
+      try {
+        bookModel = objectMapper.treeToValue(node, BookModel.class);
+      } catch (JsonProcessingException ex) {
+        reject(index, ex.getOriginalMessage());
+        return;
+      }
+      Set<ConstraintViolation<BookModel>> violations = validator.validate(bookModel);
+      if (!violations.isEmpty()) {
+        reject(
+            index,
+            violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", ")));
+        return;
+      }
+      books.add(bookModel);
+      indices.add(index);
+      if (books.size() == CHUNK_SIZE) {
+        flush();
+      }
+    }
+
+    void reject(int index, String message) {
+      failed++;
+      if (errors.size() < MAX_REPORTED_ERRORS) {
+        errors.add(
+            new BookBatchResultModel.ItemError(
+                index, Encode.forJavaScriptSource(Encode.forHtmlContent(message))));
+      }
+    }
+
+    BookBatchResultModel complete() {
+      flush();
+      LOGGER.info("Imported {} books, rejected {}", imported, failed);
+      return new BookBatchResultModel(imported, failed, errors);
+    }
+
+    private void flush() {
+      if (books.isEmpty()) {
+        return;
+      }
+      store(books, indices);
+      books.clear();
+      indices.clear();
+    }
+
+    /* entities of a rolled back chunk keep their generated ids, so each attempt creates new ones */
+    private void store(List<BookModel> bookModels, List<Integer> bookIndices) {
+      try {
+        imported +=
+            bookService
+                .saveAll(bookModels.stream().map(BookBatchImporter::toBook).collect(Collectors.toList()))
+                .size();
+      } catch (DataAccessException ex) {
+        if (bookModels.size() == 1) {
+          LOGGER.warn("Could not store book at index {}", bookIndices.get(0), ex);
+          reject(bookIndices.get(0), "Could not store book");
+          return;
+        }
+        LOGGER.debug("Could not store chunk of {} books, splitting it", bookModels.size(), ex);
+        int half = bookModels.size() / 2;
+        store(bookModels.subList(0, half), bookIndices.subList(0, half));
+        store(
+            bookModels.subList(half, bookModels.size()),
+            bookIndices.subList(half, bookIndices.size()));
+      }
+    }
+  }
+}
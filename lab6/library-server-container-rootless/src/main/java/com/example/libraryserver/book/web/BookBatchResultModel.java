@@ -0,0 +1,58 @@
+package com.example.libraryserver.book.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Outcome of a batch import: how many books were stored and why the others were rejected. */
+public class BookBatchResultModel {
+
+  private int imported;
+  private int failed;
+  private List<ItemError> errors = new ArrayList<>();
+
+  public BookBatchResultModel() {}
+
+  public BookBatchResultModel(int imported, int failed, List<ItemError> errors) {
+    this.imported = imported;
+    this.failed = failed;
+    this.errors = errors;
+  }
+
+  public int getImported() {
+    return imported;
+  }
+
+  public int getFailed() {
+    return failed;
+  }
+
+  public List<ItemError> getErrors() {
+    return errors;
+  }
+
+  @Override
+  public String toString() {
+    return "BookBatchResultModel{" + "imported=" + imported + ", failed=" + failed + '}';
+  }
+
+  public static class ItemError {
+
+    private int index;
+    private String message;
+
+    public ItemError() {}
+
+    public ItemError(int index, String message) {
+      this.index = index;
+      this.message = message;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+  }
+}
@@ -1,27 +1,63 @@
 package com.example.libraryserver.book.web;
 
 import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.common.web.HtmlJavaScriptEncoder;
+import com.example.libraryserver.common.web.IdentifierLinkTemplate;
 import com.example.libraryserver.user.web.UserModelAssembler;
-import org.owasp.encoder.Encode;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @Component
-public class BookModelAssembler extends RepresentationModelAssemblerSupport<Book, BookModel> {
+public class BookModelAssembler
+    extends RepresentationModelAssemblerSupport<BookSummary, BookModel> {
 
-  public BookModelAssembler() {
+  private final IdentifierLinkTemplate selfLink =
+      IdentifierLinkTemplate.of(
+          BookRestController.class,
+          identifier -> methodOn(BookRestController.class).getSingleBook(identifier, null),
+          IanaLinkRelations.SELF);
+  private final IdentifierLinkTemplate borrowLink =
+      IdentifierLinkTemplate.of(
+          BookRestController.class,
+          identifier -> methodOn(BookRestController.class).borrowBook(identifier, null, null),
+          LinkRelation.of("borrow"));
+  private final IdentifierLinkTemplate returnLink =
+      IdentifierLinkTemplate.of(
+          BookRestController.class,
+          identifier -> methodOn(BookRestController.class).returnBook(identifier, null, null),
+          LinkRelation.of("return"));
+
+  private final UserModelAssembler userModelAssembler;
+
+  public BookModelAssembler(UserModelAssembler userModelAssembler) {
     super(BookRestController.class, BookModel.class);
+    this.userModelAssembler = userModelAssembler;
   }
 
-  @Override
   public BookModel toModel(Book book) {
+    return toModel(BookSummary.of(book));
+  }
+
+  @Override
+  public BookModel toModel(BookSummary book) {
+    return toModel(book, selfLink.baseUri(), userModelAssembler.baseUri());
+  }
+
+  /** Base URI of book links for the current request. */
+  String baseUri() {
+    return selfLink.baseUri();
+  }
+
+  private BookModel toModel(BookSummary book, String baseUri, String usersBaseUri) {
     BookModel bookModel =
         outputEscaping(
             new BookModel(
@@ -30,29 +66,29 @@ public class BookModelAssembler extends RepresentationModelAssemblerSupport<Book
                 book.getTitle(),
                 book.getDescription(),
                 book.getAuthors(),
-                book.getBorrowedByUser() != null
-                    ? new UserModelAssembler().toModel(book.getBorrowedByUser())
+                book.isBorrowed()
+                    ? userModelAssembler.toBorrowerModel(
+                        book.getBorrowerIdentifier(),
+                        book.getBorrowerFirstName(),
+                        book.getBorrowerLastName(),
+                        usersBaseUri)
                     : null));
-    bookModel.add(
-        linkTo(methodOn(BookRestController.class).getSingleBook(bookModel.getIdentifier()))
-            .withSelfRel());
-    bookModel.add(
-        linkTo(methodOn(BookRestController.class).borrowBook(bookModel.getIdentifier(), null, null))
-            .withRel("borrow"));
-    bookModel.add(
-        linkTo(methodOn(BookRestController.class).returnBook(bookModel.getIdentifier(), null, null))
-            .withRel("return"));
+    bookModel.add(selfLink.expand(baseUri, bookModel.getIdentifier()));
+    bookModel.add(borrowLink.expand(baseUri, bookModel.getIdentifier()));
+    bookModel.add(returnLink.expand(baseUri, bookModel.getIdentifier()));
 
     return bookModel;
   }
 
   @Override
-  public CollectionModel<BookModel> toCollectionModel(Iterable<? extends Book> entities) {
+  public CollectionModel<BookModel> toCollectionModel(Iterable<? extends BookSummary> entities) {
 
     List<BookModel> result = new ArrayList<>();
+    String baseUri = selfLink.baseUri();
+    String usersBaseUri = userModelAssembler.baseUri();
 
-    for (Book entity : entities) {
-      result.add(toModel(entity));
+    for (BookSummary entity : entities) {
+      result.add(toModel(entity, baseUri, usersBaseUri));
     }
 
     return new BookModelList(result);
@@ -60,13 +96,15 @@ public class BookModelAssembler extends RepresentationModelAssemblerSupport<Book
 
   private BookModel outputEscaping(BookModel input) {
     BookModel output = new BookModel();
-    output.setDescription(Encode.forJavaScript(Encode.forHtml(input.getDescription())));
-    output.setTitle(Encode.forJavaScript(Encode.forHtml(input.getTitle())));
-    output.setIsbn(Encode.forJavaScript(Encode.forHtml(input.getIsbn())));
+    if (input.getDescription() != null) {
+      output.setDescription(HtmlJavaScriptEncoder.encode(input.getDescription()));
+    }
+    output.setTitle(HtmlJavaScriptEncoder.encode(input.getTitle()));
+    output.setIsbn(HtmlJavaScriptEncoder.encode(input.getIsbn()));
     output.setBorrowedByUser(input.getBorrowedByUser());
     output.setIdentifier(input.getIdentifier());
     for (String author : input.getAuthors()) {
-      output.getAuthors().add(Encode.forJavaScript(Encode.forHtml(author)));
+      output.getAuthors().add(HtmlJavaScriptEncoder.encode(author));
     }
 
     return output;
@@ -0,0 +1,201 @@
+package com.example.libraryserver.book.web;
+
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.book.service.BookChangedEvent;
+import com.example.libraryserver.common.web.EntityTags;
+import com.example.libraryserver.user.service.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.mediatype.hal.HalMediaTypeConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of single books serialized as HAL, together with their entity tag.
+ *
+ * <p>Entries are stored per book identifier with the version of the book and the base URI the
+ * links were rendered for. A cached book is answered without querying the database; only a miss
+ * reads the book and serializes it. Every committed {@link BookChangedEvent} evicts the entry of
+ * the book, and a {@link UserChangedEvent} the entries of books borrowed by that user, as their
+ * names are part of the representation.
+ *
+ * <p>A request that read a book before a change committed must not store its stale copy after the
+ * eviction. Each change therefore leaves the committed version for a while, and only books read
+ * in at least that version are stored again. Changed users are counted instead, as their changes
+ * are rare: a borrowed book read before the count changed is not stored.
+ *
+ * <p>The cache is bounded by the approximate memory held by the serialized books. Hit, miss and
+ * eviction counts are published as {@code cache.*} metrics with tag {@code cache=books}.
+ */
+@Component
+public class BookModelCache implements MeterBinder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BookModelCache.class);
+
+  static final String NAME = "books";
+  static final long MAXIMUM_WEIGHT = 16L * 1024 * 1024;
+  static final int ENTRY_OVERHEAD = 256;
+  static final Duration CHANGE_RETENTION = Duration.ofMinutes(1);
+
+  private final BookModelAssembler bookModelAssembler;
+  private final ObjectMapper halObjectMapper;
+  private final Cache<UUID, Representation> cache;
+  private final Cache<UUID, Long> changedVersions;
+  private final AtomicLong userChanges = new AtomicLong();
+
+  @Autowired
+  public BookModelCache(
+      BookModelAssembler bookModelAssembler,
+      ObjectMapper objectMapper,
+      HalMediaTypeConfiguration halMediaTypeConfiguration) {
+    this(bookModelAssembler, halMediaTypeConfiguration.configureObjectMapper(objectMapper.copy()));
+  }
+
+  BookModelCache(BookModelAssembler bookModelAssembler, ObjectMapper halObjectMapper) {
+    this.bookModelAssembler = bookModelAssembler;
+    this.halObjectMapper = halObjectMapper;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(MAXIMUM_WEIGHT)
+            .weigher((UUID identifier, Representation representation) -> representation.weight)
+            .recordStats()
+            .build();
+    this.changedVersions =
+        Caffeine.newBuilder().expireAfterWrite(CHANGE_RETENTION).maximumSize(100_000).build();
+  }
+
+  /**
+   * Returns the cached representation of a book, or reads the book with the given loader and
+   * caches it. The result is empty if the loader does not find the book.
+   */
+  public Optional<Representation> get(
+      UUID identifier, Function<UUID, Optional<BookSummary>> loader) {
+    String baseUri = bookModelAssembler.baseUri();
+    Representation representation = cache.getIfPresent(identifier);
+    if (representation != null && representation.baseUri.equals(baseUri)) {
+      return Optional.of(representation);
+    }
+    long userChangesBeforeLoad = userChanges.get();
+    return loader.apply(identifier).map(book -> store(book, baseUri, userChangesBeforeLoad));
+  }
+
+  private Representation store(BookSummary book, String baseUri, long userChangesBeforeLoad) {
+    Representation representation = render(book, baseUri);
+    if (book.getBorrowerIdentifier() != null && userChanges.get() != userChangesBeforeLoad) {
+      return representation;
+    }
+    cache
+        .asMap()
+        .compute(
+            book.getIdentifier(),
+            (identifier, cached) -> {
+              Long changedVersion = changedVersions.getIfPresent(identifier);
+              if (changedVersion != null && version(book) < changedVersion) {
+                return cached;
+              }
+              return cached == null || cached.version <= version(book) ? representation : cached;
+            });
+    return representation;
+  }
+
+  private Representation render(BookSummary book, String baseUri) {
+    try {
+      return new Representation(
+          book,
+          baseUri,
+          EntityTags.of(
+              book.getVersion(), book.getBorrowerIdentifier(), book.getBorrowerVersion()),
+          halObjectMapper.writeValueAsBytes(bookModelAssembler.toModel(book)));
+    } catch (JsonProcessingException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * The version of a saved book is read only now, after the commit has flushed it. A deleted book
+   * rejects every read up to the version it was deleted in.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onBookChanged(BookChangedEvent event) {
+    LOGGER.trace("Evict cached representation for {}", event);
+    long version =
+        event
+            .getBook()
+            .map(b -> version(b.getVersion()))
+            .orElseGet(() -> version(event.getVersion()) + 1);
+    changedVersions.asMap().merge(event.getIdentifier(), version, Math::max);
+    cache.invalidate(event.getIdentifier());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    LOGGER.trace("Evict cached representations borrowed by {}", event);
+    userChanges.incrementAndGet();
+    cache
+        .asMap()
+        .values()
+        .removeIf(cached -> event.getIdentifier().equals(cached.borrowerIdentifier));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, NAME);
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private static long version(BookSummary book) {
+    return version(book.getVersion());
+  }
+
+  private static long version(Long version) {
+    return version != null ? version : 0L;
+  }
+
+  /** A book serialized as HAL for the base URI of its links, with its entity tag. */
+  public static final class Representation {
+
+    private final long version;
+    private final UUID borrowerIdentifier;
+    private final String baseUri;
+    private final String entityTag;
+    private final byte[] content;
+    private final int weight;
+
+    Representation(BookSummary book, String baseUri, String entityTag, byte[] content) {
+      this.version = version(book);
+      this.borrowerIdentifier = book.getBorrowerIdentifier();
+      this.baseUri = baseUri;
+      this.entityTag = entityTag;
+      this.content = content;
+      this.weight = ENTRY_OVERHEAD + content.length;
+    }
+
+    public String getEntityTag() {
+      return entityTag;
+    }
+
+    /** The serialized book, shared by all requests and therefore never to be modified. */
+    public byte[] getContent() {
+      return content;
+    }
+  }
+}
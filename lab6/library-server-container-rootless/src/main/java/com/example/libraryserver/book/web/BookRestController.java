@@ -1,9 +1,19 @@
 package com.example.libraryserver.book.web;
 
 import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.service.BookPage;
 import com.example.libraryserver.book.service.BookService;
+import com.example.libraryserver.common.web.EntityTags;
 import com.example.libraryserver.security.AuthenticatedUser;
+import com.example.libraryserver.user.data.User;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
@@ -13,28 +23,43 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.net.URI;
 import java.util.UUID;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @RestController
 @RequestMapping("/books")
 @Validated
 public class BookRestController {
 
+  private static final String DEFAULT_PAGE_SIZE = "20";
+
   private final BookService bookService;
   private final BookModelAssembler bookModelAssembler;
-
-  public BookRestController(BookService bookService, BookModelAssembler bookModelAssembler) {
+  private final BookModelCache bookModelCache;
+  private final BookBatchImporter bookBatchImporter;
+
+  public BookRestController(
+      BookService bookService,
+      BookModelAssembler bookModelAssembler,
+      BookModelCache bookModelCache,
+      BookBatchImporter bookBatchImporter) {
     this.bookService = bookService;
     this.bookModelAssembler = bookModelAssembler;
+    this.bookModelCache = bookModelCache;
+    this.bookBatchImporter = bookBatchImporter;
   }
 
   @PostMapping
@@ -56,20 +81,42 @@ public class BookRestController {
     return ResponseEntity.created(uri).body(bookModelAssembler.toModel(book));
   }
 
+  @PostMapping(
+      path = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<BookBatchResultModel> importBooks(HttpServletRequest request)
+      throws IOException {
+    MediaType contentType = MediaType.parseMediaType(request.getContentType());
+    BookBatchResultModel result =
+        MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+            ? bookBatchImporter.importNdJson(request.getInputStream())
+            : bookBatchImporter.importJsonArray(request.getInputStream());
+    return ResponseEntity.ok(result);
+  }
+
   @PutMapping("/{bookIdentifier}")
   public ResponseEntity<BookModel> updateBook(
       @PathVariable("bookIdentifier") UUID bookIdentifier,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid BookModel bookModel) {
 
     return bookService
         .findOneByIdentifier(bookIdentifier)
         .map(
             b -> {
+              if (ifMatch != null && !EntityTags.matches(ifMatch, entityTag(b))) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(entityTag(b))
+                    .<BookModel>build();
+              }
               b.setAuthors(bookModel.getAuthors());
               b.setIsbn(bookModel.getIsbn());
               b.setTitle(bookModel.getTitle());
               b.setDescription(bookModel.getDescription());
-              return ResponseEntity.ok(bookModelAssembler.toModel(bookService.save(b)));
+              Book updatedBook = bookService.save(b);
+              return ResponseEntity.ok()
+                  .eTag(entityTag(updatedBook))
+                  .body(bookModelAssembler.toModel(updatedBook));
             })
         .orElse(ResponseEntity.notFound().build());
   }
@@ -99,27 +146,80 @@ public class BookRestController {
   }
 
   @GetMapping
-  public ResponseEntity<CollectionModel<BookModel>> listAllBooks() {
-    CollectionModel<BookModel> bookModel =
-        bookModelAssembler.toCollectionModel(bookService.findAll());
-    bookModel.add(linkTo(BookRestController.class).withSelfRel());
+  public ResponseEntity<CollectionModel<BookModel>> listBooks(
+      @RequestParam(name = "after", required = false) UUID after,
+      @RequestParam(name = "before", required = false) UUID before,
+      @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) int size) {
+    BookPage page = bookService.findPage(after, before, size);
+    CollectionModel<BookModel> bookModel = bookModelAssembler.toCollectionModel(page.getBooks());
+    bookModel.add(pageLink(after, before, size, IanaLinkRelations.SELF));
+    if (page.hasPrevious()) {
+      page.getFirstIdentifier()
+          .ifPresent(first -> bookModel.add(pageLink(null, first, size, IanaLinkRelations.PREV)));
+    }
+    if (page.hasNext()) {
+      page.getLastIdentifier()
+          .ifPresent(last -> bookModel.add(pageLink(last, null, size, IanaLinkRelations.NEXT)));
+    }
 
     return ResponseEntity.ok(bookModel);
   }
 
-  @GetMapping("/{bookIdentifier}")
-  public ResponseEntity<BookModel> getSingleBook(
-      @PathVariable("bookIdentifier") UUID bookIdentifier) {
-    return bookService
-        .findOneByIdentifier(bookIdentifier)
+  @GetMapping("/search")
+  public ResponseEntity<CollectionModel<BookModel>> searchBooks(
+      @RequestParam("q") String query,
+      @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) int size) {
+    CollectionModel<BookModel> bookModel =
+        bookModelAssembler.toCollectionModel(bookService.search(query, size));
+    bookModel.add(linkTo(methodOn(BookRestController.class).searchBooks(query, size)).withSelfRel());
+    return ResponseEntity.ok(bookModel);
+  }
+
+  /**
+   * Answers from the serialized books cached by {@link BookModelCache}, the database is only
+   * queried on a miss. Authentication is still required by the security filter chain.
+   */
+  @GetMapping(
+      path = "/{bookIdentifier}",
+      produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<byte[]> getSingleBook(
+      @PathVariable("bookIdentifier") UUID bookIdentifier,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    return bookModelCache
+        .get(bookIdentifier, bookService::findSummaryByIdentifier)
         .map(
             b -> {
-              BookModel bookModel = bookModelAssembler.toModel(b);
-              return ResponseEntity.ok(bookModel);
+              if (EntityTags.matchesWeakly(ifNoneMatch, b.getEntityTag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(b.getEntityTag())
+                    .<byte[]>build();
+              }
+              return ResponseEntity.ok().eTag(b.getEntityTag()).body(b.getContent());
             })
         .orElse(ResponseEntity.notFound().build());
   }
 
+  /* the representation of a book includes the names of its borrower */
+
+  private static String entityTag(Book book) {
+    User borrower = book.getBorrowedByUser();
+    return borrower != null
+        ? EntityTags.of(book.getVersion(), borrower.getIdentifier(), borrower.getVersion())
+        : EntityTags.of(book.getVersion());
+  }
+
+  private Link pageLink(UUID after, UUID before, int size, LinkRelation relation) {
+    UriComponentsBuilder builder = linkTo(BookRestController.class).toUriComponentsBuilder();
+    if (after != null) {
+      builder.queryParam("after", after);
+    }
+    if (before != null) {
+      builder.queryParam("before", before);
+    }
+    builder.queryParam("size", Math.min(Math.max(size, 1), BookService.MAX_PAGE_SIZE));
+    return Link.of(builder.build().toUriString(), relation);
+  }
+
   @DeleteMapping("/{bookIdentifier}")
   public ResponseEntity<Void> deleteSingleBook(
       @PathVariable("bookIdentifier") UUID bookIdentifier) {
@@ -0,0 +1,77 @@
+package com.example.libraryserver.common.data;
+
+import javax.persistence.AttributeConverter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text deflated as binary column.
+ *
+ * <p>The first byte tells how the remaining bytes are stored: {@code 1} for deflated UTF-8,
+ * {@code 0} for plain UTF-8. Short texts often grow when deflated, these are kept plain.
+ */
+public class CompressedStringConverter implements AttributeConverter<String, byte[]> {
+
+  static final byte PLAIN = 0;
+  static final byte DEFLATED = 1;
+
+  @Override
+  public byte[] convertToDatabaseColumn(String attribute) {
+    if (attribute == null) {
+      return null;
+    }
+    byte[] plain = attribute.getBytes(StandardCharsets.UTF_8);
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try {
+      deflater.setInput(plain);
+      deflater.finish();
+      byte[] deflated = new byte[plain.length + 1];
+      deflated[0] = DEFLATED;
+      int length = 1;
+      while (!deflater.finished() && length < deflated.length) {
+        length += deflater.deflate(deflated, length, deflated.length - length);
+      }
+      if (deflater.finished() && length < deflated.length) {
+        return Arrays.copyOf(deflated, length);
+      }
+    } finally {
+      deflater.end();
+    }
+    byte[] stored = new byte[plain.length + 1];
+    stored[0] = PLAIN;
+    System.arraycopy(plain, 0, stored, 1, plain.length);
+    return stored;
+  }
+
+  @Override
+  public String convertToEntityAttribute(byte[] dbData) {
+    if (dbData == null) {
+      return null;
+    }
+    if (dbData[0] == PLAIN) {
+      return new String(dbData, 1, dbData.length - 1, StandardCharsets.UTF_8);
+    }
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(dbData, 1, dbData.length - 1);
+      ByteArrayOutputStream plain = new ByteArrayOutputStream(dbData.length * 4);
+      byte[] buffer = new byte[1024];
+      while (!inflater.finished()) {
+        int length = inflater.inflate(buffer);
+        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("Truncated compressed text");
+        }
+        plain.write(buffer, 0, length);
+      }
+      return plain.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException ex) {
+      throw new IllegalArgumentException("Invalid compressed text", ex);
+    } finally {
+      inflater.end();
+    }
+  }
+}
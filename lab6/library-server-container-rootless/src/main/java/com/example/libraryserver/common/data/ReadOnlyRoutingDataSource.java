@@ -0,0 +1,61 @@
+package com.example.libraryserver.common.data;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions to the replicas in round robin order and everything else to the
+ * primary.
+ *
+ * <p>The transaction is only known to be read-only after its connection would usually have been
+ * acquired, so this data source has to be wrapped in a {@link
+ * org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}. The target data sources are
+ * closed together with this data source.
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+  private static final String PRIMARY = "primary";
+
+  private final List<String> replicaKeys = new ArrayList<>();
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  public ReadOnlyRoutingDataSource(DataSource primary, List<? extends DataSource> replicas) {
+    Map<Object, Object> targetDataSources = new HashMap<>();
+    targetDataSources.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      String key = "replica-" + (i + 1);
+      targetDataSources.put(key, replicas.get(i));
+      replicaKeys.add(key);
+    }
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(primary);
+    setLenientFallback(false);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicaKeys.isEmpty()
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return PRIMARY;
+    }
+    return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    for (DataSource dataSource : getResolvedDataSources().values()) {
+      if (dataSource instanceof AutoCloseable) {
+        ((AutoCloseable) dataSource).close();
+      }
+    }
+  }
+}
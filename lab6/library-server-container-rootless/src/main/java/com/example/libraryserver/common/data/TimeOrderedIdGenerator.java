@@ -0,0 +1,54 @@
+package com.example.libraryserver.common.data;
+
+import org.springframework.util.IdGenerator;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time ordered version 7 {@link UUID}s as specified by RFC 9562.
+ *
+ * <p>The 48 most significant bits hold the unix timestamp in milliseconds, followed by a 12 bit
+ * counter that keeps identifiers generated within the same millisecond in order. The remaining 62
+ * bits are random. New identifiers are therefore appended at the end of an index instead of being
+ * scattered across it like random identifiers.
+ *
+ * <p>The random bits come from a {@link SecureRandom} per thread, as identifiers are exposed in the
+ * API and must not be predictable from others. Timestamp and counter are advanced with a single
+ * compare and set, so threads never block each other. If the counter overflows within a
+ * millisecond, the timestamp runs ahead of the clock until the clock catches up.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+  private static final int COUNTER_BITS = 12;
+  private static final long VERSION = 7L << 12;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+  private static final ThreadLocal<SecureRandom> RANDOM =
+      ThreadLocal.withInitial(SecureRandom::new);
+
+  private final Clock clock;
+  private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+  public TimeOrderedIdGenerator() {
+    this(Clock.systemUTC());
+  }
+
+  public TimeOrderedIdGenerator(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public UUID generateId() {
+    long now = clock.millis() << COUNTER_BITS;
+    long timestampAndCounter =
+        lastTimestampAndCounter.updateAndGet(last -> Math.max(now, last + 1));
+    long timestamp = timestampAndCounter >>> COUNTER_BITS;
+    long counter = timestampAndCounter & ((1L << COUNTER_BITS) - 1);
+    long random = RANDOM.get().nextLong();
+    return new UUID(timestamp << 16 | VERSION | counter, VARIANT | random & RANDOM_MASK);
+  }
+}
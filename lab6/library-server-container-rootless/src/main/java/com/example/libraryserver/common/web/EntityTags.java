@@ -0,0 +1,69 @@
+package com.example.libraryserver.common.web;
+
+import java.util.UUID;
+
+/** Strong entity tags derived from the optimistic lock versions of the rendered entities. */
+public final class EntityTags {
+
+  private static final String WEAK_PREFIX = "W/";
+
+  private EntityTags() {}
+
+  public static String of(Long version) {
+    return "\"" + version(version) + "\"";
+  }
+
+  /**
+   * Entity tag of a resource that also renders a related entity, like the borrower of a book. The
+   * tag changes with the version of either entity and when the related entity is replaced.
+   */
+  public static String of(Long version, UUID relatedIdentifier, Long relatedVersion) {
+    if (relatedIdentifier == null) {
+      return of(version);
+    }
+    return "\"" + version(version) + "-" + relatedIdentifier + "-" + version(relatedVersion) + "\"";
+  }
+
+  /**
+   * Checks an <code>If-Match</code> header value against the given entity tag using strong
+   * comparison. Weak tags never match.
+   */
+  public static boolean matches(String header, String entityTag) {
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      String tag = candidate.trim();
+      if ("*".equals(tag) || tag.equals(entityTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks an <code>If-None-Match</code> header value against the given entity tag using weak
+   * comparison (RFC 7232, section 3.2), i.e. tags match regardless of their weak indicators.
+   */
+  public static boolean matchesWeakly(String header, String entityTag) {
+    if (header == null) {
+      return false;
+    }
+    String opaqueTag = opaque(entityTag);
+    for (String candidate : header.split(",")) {
+      String tag = candidate.trim();
+      if ("*".equals(tag) || opaque(tag).equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String opaque(String tag) {
+    return tag.startsWith(WEAK_PREFIX) ? tag.substring(WEAK_PREFIX.length()) : tag;
+  }
+
+  private static long version(Long version) {
+    return version != null ? version : 0L;
+  }
+}
@@ -1,9 +1,12 @@
 package com.example.libraryserver.common.web;
 
+import com.example.libraryserver.security.PasswordHashingRejectedException;
 import com.example.libraryserver.user.service.InvalidPasswordError;
 import org.owasp.encoder.Encode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -32,6 +35,21 @@ public class ErrorHandler {
         .body(Encode.forJavaScriptSource(Encode.forHtmlContent(ex.getMessage())));
   }
 
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<String> handle(OptimisticLockingFailureException ex) {
+    LOGGER.warn(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+        .body("Resource has been modified concurrently");
+  }
+
+  @ExceptionHandler(PasswordHashingRejectedException.class)
+  public ResponseEntity<String> handle(PasswordHashingRejectedException ex) {
+    LOGGER.warn(ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(ex.getMessage());
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<String> handle(RuntimeException ex) {
     LOGGER.error(ex.getMessage(), ex);
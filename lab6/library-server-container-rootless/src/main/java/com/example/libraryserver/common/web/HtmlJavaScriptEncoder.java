@@ -0,0 +1,110 @@
+package com.example.libraryserver.common.web;
+
+import org.owasp.encoder.Encode;
+
+/**
+ * Single pass equivalent of {@code Encode.forJavaScript(Encode.forHtml(value))}.
+ *
+ * <p>The replacements of ASCII characters are taken from the OWASP encoders once when the class is
+ * loaded. Outside of ASCII only a few ranges are escaped, these are checked by range instead of a
+ * lookup. Encoding scans the input once and returns it unchanged if nothing has to be escaped.
+ * Otherwise it writes into a buffer reused per thread, so the only allocation is the result.
+ */
+public final class HtmlJavaScriptEncoder {
+
+  private static final int MAX_REUSED_CAPACITY = 16 * 1024;
+
+  private static final String[] ASCII_REPLACEMENTS = new String[128];
+  private static final String INVALID = owasp("\u0080");
+  private static final String LINE_SEPARATOR = owasp("\u2028");
+  private static final String PARAGRAPH_SEPARATOR = owasp("\u2029");
+  private static final String LONE_HIGH_SURROGATE =
+      owasp(String.valueOf(Character.MIN_HIGH_SURROGATE));
+  private static final String LONE_LOW_SURROGATE =
+      owasp(String.valueOf(Character.MIN_LOW_SURROGATE));
+  private static final String SUPPLEMENTARY_NONCHARACTER =
+      owasp(new String(Character.toChars(0x1FFFF)));
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+  static {
+    for (char c = 0; c < ASCII_REPLACEMENTS.length; c++) {
+      String value = String.valueOf(c);
+      String encoded = owasp(value);
+      if (!encoded.equals(value)) {
+        ASCII_REPLACEMENTS[c] = encoded;
+      }
+    }
+  }
+
+  private HtmlJavaScriptEncoder() {}
+
+  public static String encode(String input) {
+    if (input == null) {
+      return owasp(null);
+    }
+    int length = input.length();
+    int first = 0;
+    while (first < length && !isEscaped(input.charAt(first))) {
+      first++;
+    }
+    if (first == length) {
+      return input;
+    }
+
+    StringBuilder output = BUFFER.get();
+    output.setLength(0);
+    output.append(input, 0, first);
+    for (int i = first; i < length; i++) {
+      char c = input.charAt(i);
+      if (!isEscaped(c)) {
+        output.append(c);
+      } else if (c < ASCII_REPLACEMENTS.length) {
+        output.append(ASCII_REPLACEMENTS[c]);
+      } else if (Character.isHighSurrogate(c)) {
+        if (i + 1 < length && Character.isLowSurrogate(input.charAt(i + 1))) {
+          char low = input.charAt(++i);
+          if ((Character.toCodePoint(c, low) & 0xFFFE) == 0xFFFE) {
+            output.append(SUPPLEMENTARY_NONCHARACTER);
+          } else {
+            output.append(c).append(low);
+          }
+        } else {
+          output.append(LONE_HIGH_SURROGATE);
+        }
+      } else if (Character.isLowSurrogate(c)) {
+        output.append(LONE_LOW_SURROGATE);
+      } else if (c == '\u2028') {
+        output.append(LINE_SEPARATOR);
+      } else if (c == '\u2029') {
+        output.append(PARAGRAPH_SEPARATOR);
+      } else {
+        output.append(INVALID);
+      }
+    }
+    String result = output.toString();
+    if (output.capacity() > MAX_REUSED_CAPACITY) {
+      BUFFER.remove();
+    }
+    return result;
+  }
+
+  /**
+   * Whether the character is not passed through unchanged: ASCII characters with a replacement,
+   * C1 controls except NEL, line and paragraph separators, surrogates and the noncharacters
+   * U+FDD0..U+FDEF, U+FFFE and U+FFFF.
+   */
+  private static boolean isEscaped(char c) {
+    if (c < ASCII_REPLACEMENTS.length) {
+      return ASCII_REPLACEMENTS[c] != null;
+    }
+    if (c < Character.MIN_SURROGATE) {
+      return (c <= '\u009f' && c != '\u0085') || c == '\u2028' || c == '\u2029';
+    }
+    return c <= Character.MAX_SURROGATE || (c >= '\ufdd0' && c <= '\ufdef') || c >= '\ufffe';
+  }
+
+  private static String owasp(String value) {
+    return Encode.forJavaScript(Encode.forHtml(value));
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.libraryserver.common.web;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * Link to a controller method taking a resource identifier as path variable.
+ *
+ * <p>The path of the method relative to its controller is resolved once through {@code methodOn}
+ * when the template is created. Building a link afterwards only concatenates the base URI of the
+ * controller for the current request, the identifier and any remaining (templated) path, so no
+ * invocation recording proxy is involved per link.
+ */
+public final class IdentifierLinkTemplate {
+
+  private static final UUID PLACEHOLDER = new UUID(0L, 0L);
+
+  private final Class<?> controller;
+  private final String prefix;
+  private final String suffix;
+  private final LinkRelation relation;
+
+  private IdentifierLinkTemplate(
+      Class<?> controller, String prefix, String suffix, LinkRelation relation) {
+    this.controller = controller;
+    this.prefix = prefix;
+    this.suffix = suffix;
+    this.relation = relation;
+  }
+
+  /**
+   * Creates a template from a {@code methodOn} invocation on the given controller.
+   *
+   * @param invocation invokes the controller method proxy with the given identifier
+   */
+  public static IdentifierLinkTemplate of(
+      Class<?> controller, Function<UUID, Object> invocation, LinkRelation relation) {
+    String base = linkTo(controller).withSelfRel().getHref();
+    String href = linkTo(invocation.apply(PLACEHOLDER)).withSelfRel().getHref();
+    String placeholder = PLACEHOLDER.toString();
+    int index = href.indexOf(placeholder);
+    if (!href.startsWith(base) || index < 0) {
+      throw new IllegalArgumentException("Cannot derive link template from " + href);
+    }
+    return new IdentifierLinkTemplate(
+        controller,
+        href.substring(base.length(), index),
+        href.substring(index + placeholder.length()),
+        relation);
+  }
+
+  /** Base URI of the controller for the current request, to be reused for many links. */
+  public String baseUri() {
+    return linkTo(controller).withSelfRel().getHref();
+  }
+
+  public Link expand(String baseUri, UUID identifier) {
+    return Link.of(baseUri + prefix + identifier + suffix, relation);
+  }
+}
@@ -1,5 +1,7 @@
 package com.example.libraryserver.config;
 
+import com.example.libraryserver.common.data.TimeOrderedIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.IdGenerator;
@@ -9,7 +11,8 @@ import org.springframework.util.JdkIdGenerator;
 public class IdGeneratorConfiguration {
 
   @Bean
-  public IdGenerator idGenerator() {
-    return new JdkIdGenerator();
+  public IdGenerator idGenerator(
+      @Value("${library.id-generator.time-ordered:true}") boolean timeOrdered) {
+    return timeOrdered ? new TimeOrderedIdGenerator() : new JdkIdGenerator();
   }
 }
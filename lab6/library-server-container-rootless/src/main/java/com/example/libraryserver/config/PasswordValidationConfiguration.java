@@ -1,14 +1,28 @@
 package com.example.libraryserver.config;
 
+import com.example.libraryserver.user.service.BreachedPasswordList;
 import com.example.libraryserver.user.service.PasswordValidationService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 
 @Configuration
 public class PasswordValidationConfiguration {
 
   @Bean
-  public PasswordValidationService passwordValidationService() {
-    return new PasswordValidationService();
+  public PasswordValidationService passwordValidationService(
+      @Value("${library.security.password-list.location:classpath:password-list.txt}")
+          Resource passwordList,
+      @Value("${library.security.password-list.check-interval:1m}") Duration checkInterval,
+      @Value("${library.security.breached-passwords.location:}") String breachedPasswords)
+      throws IOException {
+    BreachedPasswordList breachedPasswordList =
+        breachedPasswords.isEmpty() ? null : BreachedPasswordList.open(Paths.get(breachedPasswords));
+    return new PasswordValidationService(passwordList, checkInterval, breachedPasswordList);
   }
 }
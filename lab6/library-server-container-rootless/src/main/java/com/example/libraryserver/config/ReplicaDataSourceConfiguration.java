@@ -0,0 +1,78 @@
+package com.example.libraryserver.config;
+
+import com.example.libraryserver.common.data.ReadOnlyRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to the read replicas configured as {@code
+ * library.datasource.replica-urls}, using the credentials of the primary. Each pool publishes its
+ * {@code hikaricp.*} metrics tagged with the pool name {@code primary} or {@code replica-n}.
+ *
+ * <p>All pools get the {@code spring.datasource.hikari.*} settings of the single pool, each pool
+ * may override them with {@code library.datasource.pools.<pool name>.*}.
+ */
+@ConditionalOnExpression("!'${library.datasource.replica-urls:}'.isEmpty()")
+@Configuration
+public class ReplicaDataSourceConfiguration {
+
+  private static final String POOL_PROPERTIES = "spring.datasource.hikari";
+  private static final String POOL_OVERRIDES = "library.datasource.pools";
+
+  @Bean
+  public ReadOnlyRoutingDataSource routingDataSource(
+      DataSourceProperties properties,
+      @Value("${library.datasource.replica-urls}") List<String> replicaUrls,
+      Environment environment,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    Binder binder = Binder.get(environment);
+    HikariDataSource primary = pool(properties, binder, properties.determineUrl(), "primary");
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (String replicaUrl : replicaUrls) {
+      HikariDataSource replica =
+          pool(properties, binder, replicaUrl, "replica-" + (replicas.size() + 1));
+      replica.setReadOnly(true);
+      replicas.add(replica);
+    }
+    meterRegistry.ifAvailable(
+        registry -> {
+          primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+          replicas.forEach(
+              r -> r.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        });
+    return new ReadOnlyRoutingDataSource(primary, replicas);
+  }
+
+  @Primary
+  @Bean
+  public DataSource dataSource(ReadOnlyRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  private static HikariDataSource pool(
+      DataSourceProperties properties, Binder binder, String url, String name) {
+    HikariDataSource dataSource =
+        properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    binder.bind(POOL_PROPERTIES, Bindable.ofInstance(dataSource));
+    binder.bind(POOL_OVERRIDES + "." + name, Bindable.ofInstance(dataSource));
+    dataSource.setJdbcUrl(url);
+    dataSource.setPoolName(name);
+    return dataSource;
+  }
+}
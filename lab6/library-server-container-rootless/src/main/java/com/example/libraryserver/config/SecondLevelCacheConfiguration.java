@@ -0,0 +1,34 @@
+package com.example.libraryserver.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Second level cache for entities and natural identifiers, sized by {@code
+ * caffeine.jcache.default} in {@code application.conf}.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+  /**
+   * Hands the session factory a cache manager of its own, which is closed together with the session
+   * factory, instead of the default cache manager shared by all session factories of the JVM.
+   */
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheManager() {
+    return properties ->
+        properties.put(
+            ConfigSettings.CACHE_MANAGER,
+            Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(
+                    URI.create("library-" + UUID.randomUUID()),
+                    SecondLevelCacheConfiguration.class.getClassLoader()));
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.libraryserver.config;
+
+import com.example.libraryserver.security.LibraryUserDetailsService;
+import com.example.libraryserver.security.token.TokenAuthenticationConverter;
+import com.example.libraryserver.security.token.TokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Signed access tokens for the API. Tokens are signed with the base64 encoded key configured as
+ * {@code library.security.token.signing-key}, or with a key generated on startup that is only known
+ * to this instance.
+ *
+ * <p>Requests are authorized by the roles in the token alone. If {@code
+ * library.security.token.check-user} is set, the user of every token is looked up in the cache of
+ * authenticated users instead, so tokens of deleted users are rejected before they expire.
+ */
+@ConditionalOnProperty(prefix = "library.security.token", name = "enabled", havingValue = "true")
+@Configuration
+public class TokenConfiguration {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TokenConfiguration.class);
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  @Bean
+  public SecretKey tokenSigningKey(@Value("${library.security.token.signing-key:}") String key)
+      throws NoSuchAlgorithmException {
+    if (key.isEmpty()) {
+      LOGGER.warn("No token signing key configured, tokens are only valid for this instance");
+      KeyGenerator keyGenerator = KeyGenerator.getInstance(ALGORITHM);
+      keyGenerator.init(256);
+      return keyGenerator.generateKey();
+    }
+    return new SecretKeySpec(Base64.getDecoder().decode(key), ALGORITHM);
+  }
+
+  @Bean
+  public TokenService tokenService(
+      SecretKey tokenSigningKey,
+      @Value("${library.security.token.time-to-live:5m}") Duration timeToLive) {
+    return new TokenService(tokenSigningKey, timeToLive);
+  }
+
+  @Bean
+  public TokenAuthenticationConverter tokenAuthenticationConverter(
+      @Value("${library.security.token.check-user:false}") boolean checkUser,
+      LibraryUserDetailsService libraryUserDetailsService) {
+    return checkUser
+        ? new TokenAuthenticationConverter(libraryUserDetailsService::loadUserByIdentifier)
+        : new TokenAuthenticationConverter();
+  }
+
+  @Bean
+  public JwtDecoder jwtDecoder(SecretKey tokenSigningKey) {
+    return NimbusJwtDecoder.withSecretKey(tokenSigningKey).macAlgorithm(MacAlgorithm.HS256).build();
+  }
+}
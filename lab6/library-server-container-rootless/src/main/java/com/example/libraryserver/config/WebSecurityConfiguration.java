@@ -1,6 +1,16 @@
 package com.example.libraryserver.config;
 
+import com.example.libraryserver.security.ApiAuthorizationManager;
+import com.example.libraryserver.security.BoundedPasswordEncoder;
+import com.example.libraryserver.security.CachingPasswordEncoder;
+import com.example.libraryserver.security.LibraryUserDetailsService;
+import com.example.libraryserver.security.PasswordHashingExecutor;
+import com.example.libraryserver.security.PasswordHashingRejectedFilter;
+import com.example.libraryserver.security.RejectingPasswordEncoder;
+import com.example.libraryserver.security.token.TokenAuthenticationConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.boot.actuate.info.InfoEndpoint;
@@ -8,20 +18,35 @@ import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
+import org.springframework.security.config.annotation.web.configurers.LogoutConfigurer;
+import org.springframework.security.config.annotation.web.configurers.RequestCacheConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.MediaTypeRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.springframework.http.HttpMethod.DELETE;
-import static org.springframework.http.HttpMethod.POST;
-import static org.springframework.http.HttpMethod.PUT;
+import static org.springframework.http.MediaType.ALL;
+import static org.springframework.http.MediaType.TEXT_HTML;
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
@@ -29,10 +54,53 @@ import static org.springframework.security.config.Customizer.withDefaults;
 @EnableWebSecurity
 public class WebSecurityConfiguration {
 
+  @Bean
+  public PasswordHashingExecutor passwordHashingExecutor(
+      @Value("${library.security.password-hashing.threads:0}") int threads,
+      @Value("${library.security.password-hashing.queue-capacity:100}") int queueCapacity,
+      @Value("${library.security.password-hashing.max-wait:5s}") Duration maxWait,
+      @Value("${library.security.password-hashing.retry-after:1s}") Duration retryAfter) {
+    return new PasswordHashingExecutor(
+        threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+        queueCapacity,
+        maxWait,
+        retryAfter);
+  }
+
+  /** Hashes on the hashing executor, also for callers continuing asynchronously after hashing. */
+  @Bean
+  public BoundedPasswordEncoder boundedPasswordEncoder(
+      PasswordHashingExecutor passwordHashingExecutor) {
+    DelegatingPasswordEncoder delegatingPasswordEncoder =
+        (DelegatingPasswordEncoder) PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(new RejectingPasswordEncoder());
+    return new BoundedPasswordEncoder(delegatingPasswordEncoder, passwordHashingExecutor);
+  }
+
   @Primary
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+      BoundedPasswordEncoder boundedPasswordEncoder,
+      @Value("${library.security.verified-credentials-cache.enabled:false}")
+          boolean cacheVerifiedCredentials) {
+    return cacheVerifiedCredentials
+        ? new CachingPasswordEncoder(boundedPasswordEncoder)
+        : boundedPasswordEncoder;
+  }
+
+  /**
+   * Checks passwords with the primary encoder. With the legacy encoder as a second encoder bean,
+   * Spring Security would otherwise authenticate with a default encoder of its own, bypassing the
+   * hashing executor.
+   */
+  @Bean
+  public DaoAuthenticationProvider daoAuthenticationProvider(
+      LibraryUserDetailsService libraryUserDetailsService, PasswordEncoder passwordEncoder) {
+    DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+    authenticationProvider.setUserDetailsService(libraryUserDetailsService);
+    authenticationProvider.setUserDetailsPasswordService(libraryUserDetailsService);
+    authenticationProvider.setPasswordEncoder(passwordEncoder);
+    return authenticationProvider;
   }
 
   @Qualifier("LegacyEncoder")
@@ -46,13 +114,71 @@ public class WebSecurityConfiguration {
     return new DelegatingPasswordEncoder(encodingId, encoders);
   }
 
+  /**
+   * Stateless chain of the REST API: authenticates every request on its own and selects the
+   * required role by {@link ApiAuthorizationManager}. It neither reads nor creates sessions, and
+   * has no CSRF protection and no request cache.
+   *
+   * <p>Browsers, which navigate to the API explicitly accepting HTML or send the cookie of a session
+   * created by the login form, are served by the {@link UiWebSecurityConfigurationAdapter UI
+   * chain} instead.
+   */
+  @Order(1)
   @Configuration
   public static class ApiWebSecurityConfigurationAdapter extends WebSecurityConfigurerAdapter {
 
+    private final ObjectProvider<JwtDecoder> jwtDecoder;
+    private final ObjectProvider<TokenAuthenticationConverter> tokenAuthenticationConverter;
+
+    public ApiWebSecurityConfigurationAdapter(
+        ObjectProvider<JwtDecoder> jwtDecoder,
+        ObjectProvider<TokenAuthenticationConverter> tokenAuthenticationConverter) {
+      this.jwtDecoder = jwtDecoder;
+      this.tokenAuthenticationConverter = tokenAuthenticationConverter;
+    }
+
+    @Override
+    protected void configure(HttpSecurity http) throws Exception {
+      http.requestMatcher(
+              new AndRequestMatcher(
+                  apiRequestMatcher(), new NegatedRequestMatcher(browserRequestMatcher())))
+          .authorizeHttpRequests(
+              authorizeRequests ->
+                  authorizeRequests.anyRequest().access(new ApiAuthorizationManager()))
+          .sessionManagement(
+              sessionManagement ->
+                  sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+          .csrf(CsrfConfigurer::disable)
+          .requestCache(RequestCacheConfigurer::disable)
+          .logout(LogoutConfigurer::disable)
+          .httpBasic(withDefaults())
+          .addFilterBefore(
+              new PasswordHashingRejectedFilter(), UsernamePasswordAuthenticationFilter.class);
+
+      JwtDecoder decoder = jwtDecoder.getIfAvailable();
+      if (decoder != null) {
+        http.oauth2ResourceServer(
+            oauth2 ->
+                oauth2.jwt(
+                    jwt ->
+                        jwt.decoder(decoder)
+                            .jwtAuthenticationConverter(tokenAuthenticationConverter.getObject())));
+      }
+    }
+  }
+
+  /**
+   * Chain of the index page, login, static resources and actuator endpoints. It also serves
+   * browsers using the API with the session of the login form, with CSRF protection and the same
+   * rules as the API chain.
+   */
+  @Order(2)
+  @Configuration
+  public static class UiWebSecurityConfigurationAdapter extends WebSecurityConfigurerAdapter {
+
     @Override
     protected void configure(HttpSecurity http) throws Exception {
-      // http.csrf().disable();
-      http.authorizeRequests(
+      http.authorizeHttpRequests(
               authorizeRequests ->
                   authorizeRequests
                       .requestMatchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class))
@@ -63,23 +189,32 @@ public class WebSecurityConfiguration {
                       .permitAll()
                       .mvcMatchers("/")
                       .permitAll()
-                      .mvcMatchers(
-                          POST,
-                          "/books/{bookIdentifier}/borrow/{userIdentifier}",
-                          "/books/{bookIdentifier}/return/{userIdentifier}")
-                      .hasRole("LIBRARY_USER")
-                      .mvcMatchers(POST, "/books")
-                      .hasRole("LIBRARY_CURATOR")
-                      .mvcMatchers(PUT, "/books/{bookIdentifier}")
-                      .hasRole("LIBRARY_CURATOR")
-                      .mvcMatchers(DELETE, "/books/{bookIdentifier}")
-                      .hasRole("LIBRARY_CURATOR")
-                      .mvcMatchers("/users", "/users/{userIdentifier}")
-                      .hasRole("LIBRARY_ADMIN")
+                      .requestMatchers(apiRequestMatcher())
+                      .access(new ApiAuthorizationManager())
                       .anyRequest()
                       .authenticated())
           .httpBasic(withDefaults())
-          .formLogin(withDefaults());
+          .formLogin(withDefaults())
+          .addFilterBefore(
+              new PasswordHashingRejectedFilter(), UsernamePasswordAuthenticationFilter.class);
     }
   }
+
+  private static RequestMatcher apiRequestMatcher() {
+    return new OrRequestMatcher(
+        new AntPathRequestMatcher("/books/**"),
+        new AntPathRequestMatcher("/users/**"),
+        new AntPathRequestMatcher("/token"));
+  }
+
+  /**
+   * Requests of browsers: navigation explicitly accepting HTML, or any request with the cookie of a
+   * session. Only the presence of the cookie is checked, the session itself is not looked up.
+   */
+  private static RequestMatcher browserRequestMatcher() {
+    MediaTypeRequestMatcher navigationRequestMatcher = new MediaTypeRequestMatcher(TEXT_HTML);
+    navigationRequestMatcher.setIgnoredMediaTypes(Collections.singleton(ALL));
+    return new OrRequestMatcher(
+        navigationRequestMatcher, request -> request.getRequestedSessionId() != null);
+  }
 }
@@ -0,0 +1,122 @@
+package com.example.libraryserver.security;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.web.util.UrlPathHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.springframework.http.HttpMethod.DELETE;
+import static org.springframework.http.HttpMethod.POST;
+import static org.springframework.http.HttpMethod.PUT;
+
+/**
+ * Authorization rules of the {@code /books} and {@code /users} API.
+ *
+ * <p>The path patterns are parsed once and grouped by request method, so a request is only
+ * matched against the few patterns of its own method instead of evaluating a list of all patterns
+ * in order:
+ *
+ * <ul>
+ *   <li>{@code POST /books/{id}/borrow/{user}} and {@code POST /books/{id}/return/{user}} require
+ *       {@code LIBRARY_USER}
+ *   <li>{@code POST /books}, {@code POST /books/batch}, {@code PUT /books/{id}} and {@code DELETE
+ *       /books/{id}} require {@code LIBRARY_CURATOR}
+ *   <li>{@code /users/**} requires {@code LIBRARY_ADMIN}
+ *   <li>everything else requires an authenticated user
+ * </ul>
+ */
+public class ApiAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+  private static final AuthorizationManager<RequestAuthorizationContext> USER =
+      AuthorityAuthorizationManager.hasRole("LIBRARY_USER");
+  private static final AuthorizationManager<RequestAuthorizationContext> CURATOR =
+      AuthorityAuthorizationManager.hasRole("LIBRARY_CURATOR");
+  private static final AuthorizationManager<RequestAuthorizationContext> ADMIN =
+      AuthorityAuthorizationManager.hasRole("LIBRARY_ADMIN");
+  private static final AuthorizationManager<RequestAuthorizationContext> AUTHENTICATED =
+      AuthenticatedAuthorizationManager.authenticated();
+
+  private final PathPatternParser pathPatternParser = new PathPatternParser();
+  private final Map<String, List<Rule>> rulesByMethod = new HashMap<>();
+  private final List<Rule> rulesForAnyMethod = new ArrayList<>();
+
+  public ApiAuthorizationManager() {
+    add(
+        POST.name(),
+        USER,
+        "/books/{bookIdentifier}/borrow/{userIdentifier}",
+        "/books/{bookIdentifier}/return/{userIdentifier}");
+    add(POST.name(), CURATOR, "/books", "/books/batch");
+    add(PUT.name(), CURATOR, "/books/{bookIdentifier}");
+    add(DELETE.name(), CURATOR, "/books/{bookIdentifier}");
+    add(null, ADMIN, "/users/**");
+  }
+
+  @Override
+  public AuthorizationDecision check(
+      Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+    HttpServletRequest request = context.getRequest();
+    return managerFor(request.getMethod(), path(request)).check(authentication, context);
+  }
+
+  AuthorizationManager<RequestAuthorizationContext> managerFor(String method, PathContainer path) {
+    for (Rule rule : rulesByMethod.getOrDefault(method, Collections.emptyList())) {
+      if (rule.pathPattern.matches(path)) {
+        return rule.manager;
+      }
+    }
+    for (Rule rule : rulesForAnyMethod) {
+      if (rule.pathPattern.matches(path)) {
+        return rule.manager;
+      }
+    }
+    return AUTHENTICATED;
+  }
+
+  /**
+   * Path within the application, with duplicate slashes removed like for the handler lookup of
+   * Spring MVC. Segments are decoded by the path patterns.
+   */
+  static PathContainer path(HttpServletRequest request) {
+    return PathContainer.parsePath(UrlPathHelper.rawPathInstance.getPathWithinApplication(request));
+  }
+
+  private void add(
+      String method,
+      AuthorizationManager<RequestAuthorizationContext> manager,
+      String... patterns) {
+    List<Rule> rules =
+        method != null
+            ? rulesByMethod.computeIfAbsent(method, m -> new ArrayList<>())
+            : rulesForAnyMethod;
+    for (String pattern : patterns) {
+      rules.add(new Rule(pathPatternParser.parse(pattern), manager));
+    }
+  }
+
+  private static final class Rule {
+
+    private final PathPattern pathPattern;
+    private final AuthorizationManager<RequestAuthorizationContext> manager;
+
+    private Rule(
+        PathPattern pathPattern, AuthorizationManager<RequestAuthorizationContext> manager) {
+      this.pathPattern = pathPattern;
+      this.manager = manager;
+    }
+  }
+}
@@ -2,15 +2,43 @@ package com.example.libraryserver.security;
 
 import com.example.libraryserver.user.data.User;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
 
-public class AuthenticatedUser extends User implements UserDetails {
+/**
+ * Immutable snapshot of an authenticated {@link User}.
+ *
+ * <p>Roles are kept as a sorted list without duplicates, the corresponding {@code ROLE_} authorities are computed once
+ * when the snapshot is created or deserialized, and are not part of the serialized form.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String ROLE_PREFIX = "ROLE_";
+
+  private final Long id;
+  private final UUID identifier;
+  private final String firstName;
+  private final String lastName;
+  private final String email;
+  private final String password;
+  private final List<String> roles;
+  private transient List<GrantedAuthority> authorities;
 
   public AuthenticatedUser(User user) {
-    super(
+    this(
+        user.getId(),
         user.getIdentifier(),
         user.getFirstName(),
         user.getLastName(),
@@ -19,9 +47,85 @@ public class AuthenticatedUser extends User implements UserDetails {
         user.getRoles());
   }
 
+  /** Creates a user authenticated without password, e.g. by a signed token. */
+  public AuthenticatedUser(
+      Long id,
+      UUID identifier,
+      String firstName,
+      String lastName,
+      String email,
+      Collection<String> roles) {
+    this(id, identifier, firstName, lastName, email, null, roles);
+  }
+
+  private AuthenticatedUser(
+      Long id,
+      UUID identifier,
+      String firstName,
+      String lastName,
+      String email,
+      String password,
+      Collection<String> roles) {
+    this.id = id;
+    this.identifier = identifier;
+    this.firstName = firstName;
+    this.lastName = lastName;
+    this.email = email;
+    this.password = password;
+    this.roles = List.copyOf(new TreeSet<>(roles));
+    this.authorities = authoritiesOf(this.roles);
+  }
+
+  private static List<GrantedAuthority> authoritiesOf(List<String> roles) {
+    List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+    for (String role : roles) {
+      authorities.add(
+          new SimpleGrantedAuthority(role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role));
+    }
+    return List.copyOf(authorities);
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    authorities = authoritiesOf(roles);
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getIdentifier() {
+    return identifier;
+  }
+
+  public String getFirstName() {
+    return firstName;
+  }
+
+  public String getLastName() {
+    return lastName;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public List<String> getRoles() {
+    return roles;
+  }
+
+  public boolean hasRole(String role) {
+    return Collections.binarySearch(roles, role) >= 0;
+  }
+
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    return AuthorityUtils.commaSeparatedStringToAuthorityList(String.join(",", getRoles()));
+    return authorities;
+  }
+
+  @Override
+  public String getPassword() {
+    return password;
   }
 
   @Override
@@ -48,4 +152,36 @@ public class AuthenticatedUser extends User implements UserDetails {
   public boolean isEnabled() {
     return true;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    AuthenticatedUser that = (AuthenticatedUser) o;
+    return Objects.equals(identifier, that.identifier) && Objects.equals(email, that.email);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(identifier, email);
+  }
+
+  @Override
+  public String toString() {
+    return "AuthenticatedUser{"
+        + "identifier="
+        + identifier
+        + ", firstName='"
+        + firstName
+        + '\''
+        + ", lastName='"
+        + lastName
+        + '\''
+        + ", email='"
+        + email
+        + '\''
+        + ", roles="
+        + roles
+        + '}';
+  }
 }
@@ -0,0 +1,116 @@
+package com.example.libraryserver.security;
+
+import com.example.libraryserver.user.service.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of {@link AuthenticatedUser}s by user name, so authenticating repeated requests
+ * does not query the database.
+ *
+ * <p>Entries expire after a short time and are evicted as soon as a change of the user has been
+ * committed. Users that do not exist are not remembered. Hit and miss counts and load durations
+ * are published as {@code cache.*} metrics with tag {@code cache=users}.
+ *
+ * <p>Changes name the user by identifier, so the user name of each cached identifier is kept in an
+ * index and the entry is evicted by its key. Every change increments a generation: a user loaded
+ * while any change was committed is evicted again right away, as it may have been read before the
+ * change.
+ *
+ * <p>Users of access tokens are looked up by identifier through the same index, and added to the
+ * cache by their user name once loaded.
+ */
+@Component
+public class AuthenticatedUserCache implements MeterBinder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticatedUserCache.class);
+
+  static final String NAME = "users";
+  static final int MAXIMUM_SIZE = 10_000;
+  static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+
+  private final Map<UUID, String> usernames = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+
+  private final Cache<String, AuthenticatedUser> cache =
+      Caffeine.newBuilder()
+          .maximumSize(MAXIMUM_SIZE)
+          .expireAfterWrite(TIME_TO_LIVE)
+          .evictionListener(
+              (String username, AuthenticatedUser user, RemovalCause cause) -> {
+                if (user != null && user.getIdentifier() != null) {
+                  usernames.remove(user.getIdentifier(), username);
+                }
+              })
+          .recordStats()
+          .build();
+
+  public Optional<AuthenticatedUser> get(
+      String username, Function<String, Optional<AuthenticatedUser>> loader) {
+    long loadGeneration = generation.get();
+    AuthenticatedUser user =
+        cache.get(
+            username,
+            u -> {
+              AuthenticatedUser loaded = loader.apply(u).orElse(null);
+              if (loaded != null && loaded.getIdentifier() != null) {
+                usernames.put(loaded.getIdentifier(), u);
+              }
+              return loaded;
+            });
+    if (user != null && loadGeneration != generation.get()) {
+      cache.invalidate(username);
+    }
+    return Optional.ofNullable(user);
+  }
+
+  public Optional<AuthenticatedUser> getByIdentifier(
+      UUID identifier, Function<UUID, Optional<AuthenticatedUser>> loader) {
+    long loadGeneration = generation.get();
+    String username = usernames.get(identifier);
+    AuthenticatedUser user = username != null ? cache.getIfPresent(username) : null;
+    if (user != null && identifier.equals(user.getIdentifier())) {
+      return Optional.of(user);
+    }
+    user = loader.apply(identifier).orElse(null);
+    if (user != null && loadGeneration == generation.get()) {
+      usernames.put(identifier, user.getUsername());
+      cache.put(user.getUsername(), user);
+      if (loadGeneration != generation.get()) {
+        cache.invalidate(user.getUsername());
+      }
+    }
+    return Optional.ofNullable(user);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    LOGGER.trace("Evict cached user for {}", event);
+    generation.incrementAndGet();
+    String username = usernames.remove(event.getIdentifier());
+    if (username != null) {
+      cache.invalidate(username);
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, cache, NAME);
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.libraryserver.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Computes password hashes of the delegate on a {@link PasswordHashingExecutor}, so bursts of
+ * logins and registrations can not occupy all request threads with hashing.
+ *
+ * <p>{@link #encodeAsync} and {@link #matchesAsync} do not wait for the hash, so request threads
+ * returning their result asynchronously are not held while hashing. Authentication runs in the
+ * security filters before any controller and still waits for its hash, at most the maximum wait
+ * of the executor.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final PasswordHashingExecutor passwordHashingExecutor;
+
+  public BoundedPasswordEncoder(
+      PasswordEncoder delegate, PasswordHashingExecutor passwordHashingExecutor) {
+    this.delegate = delegate;
+    this.passwordHashingExecutor = passwordHashingExecutor;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return passwordHashingExecutor.execute(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return passwordHashingExecutor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /** Encodes the password on the hashing pool, see {@link PasswordHashingExecutor#submit}. */
+  public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+    return passwordHashingExecutor.submit(() -> delegate.encode(rawPassword));
+  }
+
+  /** Checks the password on the hashing pool, see {@link PasswordHashingExecutor#submit}. */
+  public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+    return passwordHashingExecutor.submit(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
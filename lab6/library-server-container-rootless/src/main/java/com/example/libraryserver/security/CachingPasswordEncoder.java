@@ -0,0 +1,83 @@
+package com.example.libraryserver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers successfully verified credentials for a short time, so clients sending the same
+ * credentials with every request (like HTTP basic authentication) only pay for the slow password
+ * hash once.
+ *
+ * <p>Only a HMAC of the stored password hash and the presented password is kept, using a random
+ * key that never leaves this instance. Changing the password changes the stored hash, so earlier
+ * entries no longer match. Failed verifications are never cached and always run the slow hash.
+ * Stored password hashes are neither read nor written differently than by the delegate.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+  static final String HMAC_ALGORITHM = "HmacSHA256";
+  static final int MAXIMUM_SIZE = 10_000;
+  static final Duration TIME_TO_LIVE = Duration.ofMinutes(2);
+
+  private final PasswordEncoder delegate;
+  private final SecretKeySpec key;
+  private final Cache<ByteBuffer, Boolean> verified =
+      Caffeine.newBuilder().maximumSize(MAXIMUM_SIZE).expireAfterWrite(TIME_TO_LIVE).build();
+
+  public CachingPasswordEncoder(PasswordEncoder delegate) {
+    this.delegate = delegate;
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return delegate.encode(rawPassword);
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    if (rawPassword == null || encodedPassword == null) {
+      return delegate.matches(rawPassword, encodedPassword);
+    }
+    ByteBuffer fingerprint = fingerprint(rawPassword, encodedPassword);
+    if (verified.getIfPresent(fingerprint) != null) {
+      return true;
+    }
+    boolean matches = delegate.matches(rawPassword, encodedPassword);
+    if (matches) {
+      verified.put(fingerprint, Boolean.TRUE);
+    }
+    return matches;
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private ByteBuffer fingerprint(CharSequence rawPassword, String encodedPassword) {
+    try {
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(key);
+      byte[] encoded = encodedPassword.getBytes(StandardCharsets.UTF_8);
+      mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(encoded.length).array());
+      mac.update(encoded);
+      mac.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(rawPassword)));
+      return ByteBuffer.wrap(mac.doFinal());
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException("Cannot compute " + HMAC_ALGORITHM, ex);
+    }
+  }
+}
@@ -10,6 +10,9 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+import java.util.UUID;
+
 @Primary
 @Service
 public class LibraryUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
@@ -17,19 +20,27 @@ public class LibraryUserDetailsService implements UserDetailsService, UserDetail
   private static final Logger LOGGER = LoggerFactory.getLogger(LibraryUserDetailsService.class);
 
   private final UserService userService;
+  private final AuthenticatedUserCache authenticatedUserCache;
 
-  public LibraryUserDetailsService(UserService userService) {
+  public LibraryUserDetailsService(
+      UserService userService, AuthenticatedUserCache authenticatedUserCache) {
     this.userService = userService;
+    this.authenticatedUserCache = authenticatedUserCache;
   }
 
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    return userService
-        .findOneByEmail(username)
-        .map(AuthenticatedUser::new)
+    return authenticatedUserCache
+        .get(username, email -> userService.findOneByEmail(email).map(AuthenticatedUser::new))
         .orElseThrow(() -> new UsernameNotFoundException("No user found for " + username));
   }
 
+  /** Resolves the user of an access token, which only carries the public identifier. */
+  public Optional<AuthenticatedUser> loadUserByIdentifier(UUID identifier) {
+    return authenticatedUserCache.getByIdentifier(
+        identifier, i -> userService.findOneForAuthentication(i).map(AuthenticatedUser::new));
+  }
+
   @Override
   public UserDetails updatePassword(UserDetails user, String newPassword) {
     return userService
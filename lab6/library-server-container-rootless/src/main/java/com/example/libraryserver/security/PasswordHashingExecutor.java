@@ -0,0 +1,165 @@
+package com.example.libraryserver.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fixed size pool of threads for slow password hashing with a bounded queue.
+ *
+ * <p>Callers wait for their hash to be computed, or continue once it is done with {@link
+ * #submit(Supplier)}. If the queue is full the task is rejected immediately with a {@link
+ * PasswordHashingRejectedException} instead of queueing more callers than the pool can serve.
+ * Callers wait at most the given time for a hash, e.g. if the hashing threads are starved of CPU;
+ * afterwards the task is cancelled and rejected the same way. Queue depth, wait time, rejected and
+ * timed out tasks are published as {@code password.hashing.*} metrics.
+ */
+public class PasswordHashingExecutor implements MeterBinder, DisposableBean {
+
+  private final ThreadPoolExecutor executor;
+  private final Duration maxWait;
+  private final Duration retryAfter;
+  private final Timer.Builder waitTimeBuilder =
+      Timer.builder("password.hashing.wait").description("Time spent in the hashing queue");
+  private final Counter.Builder rejectedBuilder =
+      Counter.builder("password.hashing.rejected").description("Rejected hashing tasks");
+  private final Counter.Builder timedOutBuilder =
+      Counter.builder("password.hashing.timeouts").description("Hashing tasks waited too long for");
+  private volatile Timer waitTime;
+  private volatile Counter rejected;
+  private volatile Counter timedOut;
+
+  public PasswordHashingExecutor(
+      int threads, int queueCapacity, Duration maxWait, Duration retryAfter) {
+    AtomicInteger count = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+              Thread thread = new Thread(r, "password-hashing-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.maxWait = maxWait;
+    this.retryAfter = retryAfter;
+  }
+
+  /** Runs the task on the hashing pool and waits at most the maximum wait time for its result. */
+  public <T> T execute(Supplier<T> task) {
+    CompletableFuture<T> result = submit(task);
+    try {
+      return result.get();
+    } catch (InterruptedException ex) {
+      result.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingRejectedException(retryAfter);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  /**
+   * Runs the task on the hashing pool without waiting for it. The result fails with a {@link
+   * PasswordHashingRejectedException} if the task is not done within the maximum wait time, and
+   * dependent stages without an executor of their own run on the hashing thread.
+   *
+   * @throws PasswordHashingRejectedException if the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    long submitted = System.nanoTime();
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Future<?> future;
+    try {
+      future =
+          executor.submit(
+              () -> {
+                Timer timer = waitTime;
+                if (timer != null) {
+                  timer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                }
+                try {
+                  result.complete(task.get());
+                } catch (RuntimeException | Error ex) {
+                  result.completeExceptionally(ex);
+                }
+              });
+    } catch (RejectedExecutionException ex) {
+      Counter counter = rejected;
+      if (counter != null) {
+        counter.increment();
+      }
+      throw new PasswordHashingRejectedException(retryAfter);
+    }
+    CompletableFuture<T> hashed =
+        result
+            .orTimeout(maxWait.toNanos(), TimeUnit.NANOSECONDS)
+            .handle(
+                (value, ex) -> {
+                  if (ex == null) {
+                    return value;
+                  }
+                  future.cancel(true);
+                  if (ex instanceof TimeoutException) {
+                    Counter counter = timedOut;
+                    if (counter != null) {
+                      counter.increment();
+                    }
+                    throw new PasswordHashingRejectedException(retryAfter);
+                  }
+                  throw ex instanceof CompletionException
+                      ? (CompletionException) ex
+                      : new CompletionException(ex);
+                });
+    hashed.whenComplete(
+        (value, ex) -> {
+          if (hashed.isCancelled()) {
+            result.cancel(true);
+          }
+        });
+    return hashed;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size())
+        .description("Hashing tasks waiting for a thread")
+        .register(registry);
+    Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing tasks being executed")
+        .register(registry);
+    waitTime = waitTimeBuilder.register(registry);
+    rejected = rejectedBuilder.register(registry);
+    timedOut = timedOutBuilder.register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
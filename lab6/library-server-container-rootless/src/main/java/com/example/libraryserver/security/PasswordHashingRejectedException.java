@@ -0,0 +1,21 @@
+package com.example.libraryserver.security;
+
+import java.time.Duration;
+
+/** Thrown if a password can not be hashed because the hashing pool is saturated. */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Duration retryAfter;
+
+  public PasswordHashingRejectedException(Duration retryAfter) {
+    super("Password hashing capacity exceeded");
+    this.retryAfter = retryAfter;
+  }
+
+  /** Number of seconds clients should wait before retrying, as used by {@code Retry-After}. */
+  public long getRetryAfterSeconds() {
+    return Math.max(1, retryAfter.getSeconds());
+  }
+}
@@ -0,0 +1,44 @@
+package com.example.libraryserver.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers requests whose authentication failed because the hashing pool is saturated with status
+ * {@code 503} and a {@code Retry-After} header, instead of an internal server error.
+ */
+public class PasswordHashingRejectedFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } catch (RuntimeException | ServletException | IOException ex) {
+      PasswordHashingRejectedException rejected = findRejection(ex);
+      if (rejected == null || response.isCommitted()) {
+        throw ex;
+      }
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rejected.getRetryAfterSeconds()));
+      response.getWriter().write(rejected.getMessage());
+    }
+  }
+
+  private static PasswordHashingRejectedException findRejection(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof PasswordHashingRejectedException) {
+        return (PasswordHashingRejectedException) cause;
+      }
+    }
+    return null;
+  }
+}
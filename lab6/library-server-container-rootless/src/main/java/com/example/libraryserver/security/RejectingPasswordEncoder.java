@@ -0,0 +1,20 @@
+package com.example.libraryserver.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Matches no password. Stored hashes without a known <code>{id}</code> prefix are checked with it,
+ * so users with such hashes fail authentication instead of causing an error.
+ */
+public class RejectingPasswordEncoder implements PasswordEncoder {
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    throw new UnsupportedOperationException("Passwords are never encoded without encoding id");
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return false;
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.security.AuthenticatedUser;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Collection;
+
+/** Authentication of a user by a verified access token issued by {@link TokenService}. */
+public class TokenAuthentication extends AbstractAuthenticationToken {
+
+  private static final long serialVersionUID = 1L;
+
+  private final AuthenticatedUser principal;
+  private final Jwt token;
+
+  public TokenAuthentication(
+      AuthenticatedUser principal, Jwt token, Collection<? extends GrantedAuthority> authorities) {
+    super(authorities);
+    this.principal = principal;
+    this.token = token;
+    setAuthenticated(true);
+  }
+
+  @Override
+  public Jwt getCredentials() {
+    return token;
+  }
+
+  @Override
+  public AuthenticatedUser getPrincipal() {
+    return principal;
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.security.AuthenticatedUser;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Restores the {@link AuthenticatedUser} from the claims of a verified token, using the {@code
+ * ROLE_} authorities precomputed by the user. The restored user has no database id.
+ *
+ * <p>With a user lookup, the user named by the subject is resolved instead, so changed roles apply
+ * at once and tokens of deleted users are rejected as invalid, at the cost of a lookup per request.
+ */
+public class TokenAuthenticationConverter implements Converter<Jwt, TokenAuthentication> {
+
+  private final Function<UUID, Optional<AuthenticatedUser>> userLookup;
+
+  public TokenAuthenticationConverter() {
+    this(null);
+  }
+
+  public TokenAuthenticationConverter(Function<UUID, Optional<AuthenticatedUser>> userLookup) {
+    this.userLookup = userLookup;
+  }
+
+  @Override
+  public TokenAuthentication convert(Jwt jwt) {
+    UUID identifier;
+    try {
+      identifier = UUID.fromString(String.valueOf(jwt.getSubject()));
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidBearerTokenException("Token has no valid subject");
+    }
+    AuthenticatedUser user =
+        userLookup != null
+            ? userLookup
+                .apply(identifier)
+                .orElseThrow(() -> new InvalidBearerTokenException("User of token does not exist"))
+            : fromClaims(identifier, jwt);
+    return new TokenAuthentication(user, jwt, user.getAuthorities());
+  }
+
+  private static AuthenticatedUser fromClaims(UUID identifier, Jwt jwt) {
+    List<String> roles = jwt.getClaimAsStringList(TokenService.ROLES_CLAIM);
+    return new AuthenticatedUser(
+        null,
+        identifier,
+        jwt.getClaimAsString(TokenService.GIVEN_NAME_CLAIM),
+        jwt.getClaimAsString(TokenService.FAMILY_NAME_CLAIM),
+        jwt.getClaimAsString(TokenService.EMAIL_CLAIM),
+        roles != null ? roles : Collections.emptyList());
+  }
+}
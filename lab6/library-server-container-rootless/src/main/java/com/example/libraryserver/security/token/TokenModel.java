@@ -0,0 +1,45 @@
+package com.example.libraryserver.security.token;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/** Access token response as defined for OAuth 2.0 (RFC 6749, section 5.1). */
+public class TokenModel {
+
+  @JsonProperty("access_token")
+  private final String accessToken;
+
+  @JsonProperty("token_type")
+  private final String tokenType;
+
+  @JsonProperty("expires_in")
+  private final long expiresIn;
+
+  public TokenModel(String accessToken, String tokenType, long expiresIn) {
+    this.accessToken = accessToken;
+    this.tokenType = tokenType;
+    this.expiresIn = expiresIn;
+  }
+
+  public String getAccessToken() {
+    return accessToken;
+  }
+
+  public String getTokenType() {
+    return tokenType;
+  }
+
+  public long getExpiresIn() {
+    return expiresIn;
+  }
+
+  @Override
+  public String toString() {
+    return "TokenModel{"
+        + "tokenType='"
+        + tokenType
+        + '\''
+        + ", expiresIn="
+        + expiresIn
+        + '}';
+  }
+}
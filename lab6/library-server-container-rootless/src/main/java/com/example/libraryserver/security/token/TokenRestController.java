@@ -0,0 +1,42 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.security.AuthenticatedUser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@ConditionalOnProperty(prefix = "library.security.token", name = "enabled", havingValue = "true")
+@RestController
+@RequestMapping("/token")
+public class TokenRestController {
+
+  private final TokenService tokenService;
+
+  public TokenRestController(TokenService tokenService) {
+    this.tokenService = tokenService;
+  }
+
+  @PostMapping
+  public ResponseEntity<TokenModel> createToken(Authentication authentication) {
+    if (authentication instanceof TokenAuthentication
+        || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    OAuth2AccessToken token = tokenService.issue((AuthenticatedUser) authentication.getPrincipal());
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noStore())
+        .body(
+            new TokenModel(
+                token.getTokenValue(),
+                token.getTokenType().getValue(),
+                Duration.between(token.getIssuedAt(), token.getExpiresAt()).getSeconds()));
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.security.AuthenticatedUser;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Issues short-lived access tokens signed with a local key, carrying everything needed to
+ * authorize later requests without a database lookup. The subject is the public identifier of the
+ * user, the database id is never part of a token.
+ */
+public class TokenService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+
+  static final String EMAIL_CLAIM = "email";
+  static final String GIVEN_NAME_CLAIM = "given_name";
+  static final String FAMILY_NAME_CLAIM = "family_name";
+  static final String ROLES_CLAIM = "roles";
+
+  private final MACSigner signer;
+  private final Duration timeToLive;
+
+  public TokenService(SecretKey signingKey, Duration timeToLive) {
+    try {
+      this.signer = new MACSigner(signingKey);
+    } catch (JOSEException ex) {
+      throw new IllegalArgumentException("Invalid token signing key", ex);
+    }
+    this.timeToLive = timeToLive;
+  }
+
+  public OAuth2AccessToken issue(AuthenticatedUser user) {
+    LOGGER.trace("Issue token for user {}", user.getIdentifier());
+
+    Instant issuedAt = Instant.now();
+    Instant expiresAt = issuedAt.plus(timeToLive);
+    JWTClaimsSet claims =
+        new JWTClaimsSet.Builder()
+            .subject(user.getIdentifier().toString())
+            .issueTime(Date.from(issuedAt))
+            .expirationTime(Date.from(expiresAt))
+            .claim(EMAIL_CLAIM, user.getEmail())
+            .claim(GIVEN_NAME_CLAIM, user.getFirstName())
+            .claim(FAMILY_NAME_CLAIM, user.getLastName())
+            .claim(ROLES_CLAIM, new ArrayList<>(user.getRoles()))
+            .build();
+    SignedJWT token = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+    try {
+      token.sign(signer);
+    } catch (JOSEException ex) {
+      throw new IllegalStateException("Cannot sign token", ex);
+    }
+    return new OAuth2AccessToken(
+        OAuth2AccessToken.TokenType.BEARER, token.serialize(), issuedAt, expiresAt);
+  }
+}
@@ -1,11 +1,19 @@
 package com.example.libraryserver.user.data;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Version;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -13,10 +21,17 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
+@BatchSize(size = 100)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Entity
 public class User extends AbstractPersistable<Long> {
 
-  @NotNull private UUID identifier;
+  @NotNull
+  @NaturalId
+  @Column(columnDefinition = "binary(16)", nullable = false)
+  private UUID identifier;
 
   @NotNull
   @Size(min = 1, max = 50)
@@ -33,9 +48,13 @@ public class User extends AbstractPersistable<Long> {
   @Size(min = 1, max = 200)
   private String password;
 
+  @BatchSize(size = 100)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   @ElementCollection(fetch = FetchType.EAGER)
   private Set<String> roles = new HashSet<>();
 
+  @Version private Long version;
+
   public User() {}
 
   public User(String firstName, String lastName, String email, String password, Set<String> roles) {
@@ -105,6 +124,10 @@ public class User extends AbstractPersistable<Long> {
     this.roles = roles;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
   @Override
   public String toString() {
     return "User{"
@@ -121,6 +144,8 @@ public class User extends AbstractPersistable<Long> {
         + '\''
         + ", roles="
         + roles
+        + ", version="
+        + version
         + '}';
   }
 }
@@ -0,0 +1,13 @@
+package com.example.libraryserver.user.data;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserNaturalIdRepository {
+
+  /**
+   * Loads a user by its natural identifier. Identifiers and entities loaded before are resolved from
+   * the second level cache without querying the database.
+   */
+  Optional<User> findOneByNaturalId(UUID identifier);
+}
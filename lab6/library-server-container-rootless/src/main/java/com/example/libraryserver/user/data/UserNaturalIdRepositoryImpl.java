@@ -0,0 +1,26 @@
+package com.example.libraryserver.user.data;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+import java.util.UUID;
+
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+  private final EntityManager entityManager;
+
+  UserNaturalIdRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Transactional(readOnly = true)
+  @Override
+  public Optional<User> findOneByNaturalId(UUID identifier) {
+    return entityManager
+        .unwrap(Session.class)
+        .bySimpleNaturalId(User.class)
+        .loadOptional(identifier);
+  }
+}
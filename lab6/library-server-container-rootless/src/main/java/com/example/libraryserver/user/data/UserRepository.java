@@ -1,13 +1,28 @@
 package com.example.libraryserver.user.data;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
 
+  @Override
+  @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+  List<User> findAll();
+
+  @EntityGraph(attributePaths = "roles")
+  @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
   Optional<User> findOneByIdentifier(UUID identifier);
 
+  @EntityGraph(attributePaths = "roles")
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+    @QueryHint(name = "org.hibernate.cacheable", value = "true")
+  })
   Optional<User> findOneByEmail(String email);
 }
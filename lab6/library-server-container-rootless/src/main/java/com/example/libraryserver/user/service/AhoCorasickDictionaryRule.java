@@ -0,0 +1,211 @@
+package com.example.libraryserver.user.service;
+
+import org.passay.DictionarySubstringRule;
+import org.passay.PasswordData;
+import org.passay.Rule;
+import org.passay.RuleResult;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Drop-in replacement of passay's {@link DictionarySubstringRule} backed by an Aho-Corasick
+ * automaton.
+ *
+ * <p>The automaton is built once from all dictionary words and finds every dictionary word
+ * contained in a password in a single pass over its characters, independent of the size of the
+ * dictionary. Like {@link DictionarySubstringRule} the shortest matching word (the leftmost one for
+ * equal lengths) is reported with error code {@link DictionarySubstringRule#ERROR_CODE}, so
+ * validation messages stay the same. States are kept in primitive arrays and transitions in an
+ * open addressing hash table to keep large dictionaries compact.
+ */
+public class AhoCorasickDictionaryRule implements Rule {
+
+  private static final int ROOT = 0;
+  private static final long NO_KEY = -1L;
+
+  private final boolean caseSensitive;
+  private final int size;
+
+  /* transitions: key = state << 16 | character, value = target state */
+  private long[] keys;
+  private int[] targets;
+  private int transitions;
+
+  /* per state */
+  private int[] failure;
+  private int[] shortest;
+  private int states;
+
+  public AhoCorasickDictionaryRule(Iterable<String> words, boolean caseSensitive) {
+    this.caseSensitive = caseSensitive;
+    this.keys = new long[1024];
+    Arrays.fill(keys, NO_KEY);
+    this.targets = new int[keys.length];
+    this.failure = new int[256];
+    this.shortest = new int[failure.length];
+    this.states = 1;
+
+    int[] parent = new int[failure.length];
+    char[] label = new char[failure.length];
+    int[] depth = new int[failure.length];
+    int maxDepth = 0;
+    int count = 0;
+    for (String word : words) {
+      if (word == null || word.isEmpty()) {
+        continue;
+      }
+      int state = ROOT;
+      for (int i = 0; i < word.length(); i++) {
+        char c = normalize(word.charAt(i));
+        int next = next(state, c);
+        if (next == ROOT) {
+          if (states == failure.length) {
+            int capacity = states * 2;
+            failure = Arrays.copyOf(failure, capacity);
+            shortest = Arrays.copyOf(shortest, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            label = Arrays.copyOf(label, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+          }
+          next = states++;
+          parent[next] = state;
+          label[next] = c;
+          depth[next] = i + 1;
+          maxDepth = Math.max(maxDepth, i + 1);
+          put(state, c, next);
+        }
+        state = next;
+      }
+      if (shortest[state] == 0) {
+        shortest[state] = word.length();
+        count++;
+      }
+    }
+    this.size = count;
+    this.failure = Arrays.copyOf(failure, states);
+    this.shortest = Arrays.copyOf(shortest, states);
+
+    // compute failure links in breadth first order, i.e. by increasing depth of the states
+    int[] start = new int[maxDepth + 2];
+    for (int state = 1; state < states; state++) {
+      start[depth[state] + 1]++;
+    }
+    for (int d = 1; d < start.length; d++) {
+      start[d] += start[d - 1];
+    }
+    int[] order = new int[states];
+    for (int state = 1; state < states; state++) {
+      order[start[depth[state]]++] = state;
+    }
+    for (int i = 0; i < states - 1; i++) {
+      int state = order[i];
+      int link = ROOT;
+      if (parent[state] != ROOT) {
+        int candidate = failure[parent[state]];
+        while (true) {
+          link = next(candidate, label[state]);
+          if (link != ROOT || candidate == ROOT) {
+            break;
+          }
+          candidate = failure[candidate];
+        }
+      }
+      failure[state] = link;
+      if (shortest[link] != 0 && (shortest[state] == 0 || shortest[link] < shortest[state])) {
+        shortest[state] = shortest[link];
+      }
+    }
+  }
+
+  /** Number of distinct dictionary words. */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public RuleResult validate(PasswordData passwordData) {
+    RuleResult result = new RuleResult();
+    String match = find(passwordData.getPassword());
+    if (match != null) {
+      result.addError(
+          DictionarySubstringRule.ERROR_CODE, Collections.singletonMap("matchingWord", match));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the shortest (and for equal lengths the leftmost) dictionary word contained in the
+   * text, or {@code null} if there is none.
+   */
+  public String find(String text) {
+    int state = ROOT;
+    int matchStart = -1;
+    int matchLength = Integer.MAX_VALUE;
+    for (int i = 0; i < text.length(); i++) {
+      char c = normalize(text.charAt(i));
+      int next = next(state, c);
+      while (next == ROOT && state != ROOT) {
+        state = failure[state];
+        next = next(state, c);
+      }
+      state = next;
+      int length = shortest[state];
+      if (length != 0 && length < matchLength) {
+        matchLength = length;
+        matchStart = i + 1 - length;
+      }
+    }
+    return matchStart < 0 ? null : text.substring(matchStart, matchStart + matchLength);
+  }
+
+  private char normalize(char c) {
+    /* same character equality as String.compareToIgnoreCase used by case insensitive word lists */
+    return caseSensitive ? c : Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  private int next(int state, char c) {
+    long key = ((long) state << 16) | c;
+    int mask = keys.length - 1;
+    for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return targets[slot];
+      }
+      if (keys[slot] == NO_KEY) {
+        return ROOT;
+      }
+    }
+  }
+
+  private void put(int state, char c, int target) {
+    if ((transitions + 1) * 2 > keys.length) {
+      long[] oldKeys = keys;
+      int[] oldTargets = targets;
+      keys = new long[oldKeys.length * 2];
+      Arrays.fill(keys, NO_KEY);
+      targets = new int[keys.length];
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldKeys[slot] != NO_KEY) {
+          insert(oldKeys[slot], oldTargets[slot]);
+        }
+      }
+    }
+    insert(((long) state << 16) | c, target);
+    transitions++;
+  }
+
+  private void insert(long key, int target) {
+    int mask = keys.length - 1;
+    int slot = hash(key) & mask;
+    while (keys[slot] != NO_KEY) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    targets[slot] = target;
+  }
+
+  private static int hash(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -0,0 +1,269 @@
+package com.example.libraryserver.user.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read only list of SHA-1 hashes of breached passwords, memory mapped from a file.
+ *
+ * <p>The file starts with a header (magic, number of hashes, number of Bloom filter hash functions
+ * and Bloom filter size in longs), followed by a fanout index of 65536 cumulative counts of hashes
+ * per two byte prefix, the Bloom filter bits and finally the sorted 20 byte hashes. Only the fanout
+ * index and the Bloom filter are loaded on the heap. The Bloom filter answers most lookups of
+ * passwords that have not been breached without touching the hashes, all other lookups binary
+ * search the mapped hashes within the range of their prefix. Files are created by {@link
+ * #write(BufferedReader, Path, int)} from the sorted hex hashes of e.g. the Pwned Passwords list.
+ */
+public final class BreachedPasswordList {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BreachedPasswordList.class);
+
+  static final int MAGIC = 0x42505731;
+  static final int HASH_LENGTH = 20;
+  private static final int FANOUT = 65536;
+  private static final int HEADER_LENGTH = 16;
+  private static final int HASHES_PER_SEGMENT = Integer.MAX_VALUE / HASH_LENGTH;
+
+  private final int size;
+  private final int[] fanout;
+  private final long[] bloomFilter;
+  private final int bloomHashes;
+  private final MappedByteBuffer[] segments;
+
+  private BreachedPasswordList(
+      int size, int[] fanout, long[] bloomFilter, int bloomHashes, MappedByteBuffer[] segments) {
+    this.size = size;
+    this.fanout = fanout;
+    this.bloomFilter = bloomFilter;
+    this.bloomHashes = bloomHashes;
+    this.segments = segments;
+  }
+
+  public static BreachedPasswordList open(Path path) throws IOException {
+    long start = System.nanoTime();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new EOFException("Invalid breached password list " + path);
+        }
+      }
+      header.flip();
+      int magic = header.getInt();
+      int size = header.getInt();
+      int bloomHashes = header.getInt();
+      int bloomLongs = header.getInt();
+      long hashesOffset = HEADER_LENGTH + FANOUT * 4L + bloomLongs * 8L;
+      if (magic != MAGIC
+          || size < 0
+          || bloomHashes < 1
+          || bloomLongs < 1
+          || channel.size() != hashesOffset + (long) size * HASH_LENGTH) {
+        throw new IOException("Invalid breached password list " + path);
+      }
+
+      MappedByteBuffer index =
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, hashesOffset - HEADER_LENGTH);
+      int[] fanout = new int[FANOUT];
+      index.asIntBuffer().get(fanout);
+      index.position(FANOUT * 4);
+      long[] bloomFilter = new long[bloomLongs];
+      index.slice().asLongBuffer().get(bloomFilter);
+
+      MappedByteBuffer[] segments =
+          new MappedByteBuffer[(size + HASHES_PER_SEGMENT - 1) / HASHES_PER_SEGMENT];
+      for (int i = 0; i < segments.length; i++) {
+        long first = (long) i * HASHES_PER_SEGMENT;
+        long count = Math.min(HASHES_PER_SEGMENT, size - first);
+        segments[i] =
+            channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                hashesOffset + first * HASH_LENGTH,
+                count * HASH_LENGTH);
+      }
+
+      LOGGER.info(
+          "Mapped breached password list {} with {} hashes in {} ms, "
+              + "{} bytes on heap, {} bytes mapped",
+          path,
+          size,
+          (System.nanoTime() - start) / 1_000_000,
+          FANOUT * 4L + bloomLongs * 8L,
+          (long) size * HASH_LENGTH);
+      return new BreachedPasswordList(size, fanout, bloomFilter, bloomHashes, segments);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Checks whether the given 20 byte SHA-1 hash is contained in the list. */
+  public boolean contains(byte[] hash) {
+    if (hash.length != HASH_LENGTH) {
+      throw new IllegalArgumentException("Expected SHA-1 hash of 20 bytes");
+    }
+    if (!mightContain(bloomFilter, bloomHashes, hash)) {
+      return false;
+    }
+    int prefix = (Byte.toUnsignedInt(hash[0]) << 8) | Byte.toUnsignedInt(hash[1]);
+    int low = prefix == 0 ? 0 : fanout[prefix - 1];
+    int high = fanout[prefix] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compare(middle, hash);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int compare(int index, byte[] hash) {
+    MappedByteBuffer segment = segments[index / HASHES_PER_SEGMENT];
+    int offset = (index % HASHES_PER_SEGMENT) * HASH_LENGTH;
+    for (int i = 0; i < HASH_LENGTH; i++) {
+      int comparison =
+          Integer.compare(
+              Byte.toUnsignedInt(segment.get(offset + i)), Byte.toUnsignedInt(hash[i]));
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Writes a list file from hex encoded SHA-1 hashes in ascending order, one per line. Anything
+   * after the 40 hex digits, like the {@code :count} suffix of the Pwned Passwords list, is
+   * ignored.
+   *
+   * @param bitsPerHash Bloom filter bits per hash, e.g. 10 for about 1% false positives
+   */
+  public static void write(BufferedReader hexHashes, Path target, int bitsPerHash)
+      throws IOException {
+    if (bitsPerHash < 1) {
+      throw new IllegalArgumentException("Bloom filter needs at least one bit per hash");
+    }
+    Path hashes = Files.createTempFile(target.toAbsolutePath().getParent(), "hashes", ".tmp");
+    try {
+      int[] fanout = new int[FANOUT];
+      int size = 0;
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(hashes))) {
+        byte[] previous = null;
+        String line;
+        while ((line = hexHashes.readLine()) != null) {
+          if (line.isBlank()) {
+            continue;
+          }
+          byte[] hash = parse(line);
+          int comparison = previous == null ? 1 : Arrays.compareUnsigned(hash, previous);
+          if (comparison < 0) {
+            throw new IOException("Hashes are not in ascending order: " + line);
+          } else if (comparison > 0) {
+            out.write(hash);
+            fanout[(Byte.toUnsignedInt(hash[0]) << 8) | Byte.toUnsignedInt(hash[1])]++;
+            size++;
+            previous = hash;
+          }
+        }
+      }
+      for (int i = 1; i < FANOUT; i++) {
+        fanout[i] += fanout[i - 1];
+      }
+
+      long bits = Math.max(64L, (long) size * bitsPerHash);
+      long[] bloomFilter = new long[(int) ((bits + 63) / 64)];
+      int bloomHashes = Math.max(1, (int) Math.round(bitsPerHash * Math.log(2)));
+      try (DataInputStream in =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(hashes)))) {
+        byte[] hash = new byte[HASH_LENGTH];
+        for (int i = 0; i < size; i++) {
+          in.readFully(hash);
+          add(bloomFilter, bloomHashes, hash);
+        }
+      }
+
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(size);
+        out.writeInt(bloomHashes);
+        out.writeInt(bloomFilter.length);
+        for (int count : fanout) {
+          out.writeInt(count);
+        }
+        for (long word : bloomFilter) {
+          out.writeLong(word);
+        }
+        try (InputStream in = Files.newInputStream(hashes)) {
+          in.transferTo(out);
+        }
+      }
+    } finally {
+      Files.deleteIfExists(hashes);
+    }
+  }
+
+  private static byte[] parse(String line) throws IOException {
+    if (line.length() < HASH_LENGTH * 2) {
+      throw new IOException("Invalid SHA-1 hash: " + line);
+    }
+    byte[] hash = new byte[HASH_LENGTH];
+    for (int i = 0; i < HASH_LENGTH; i++) {
+      int high = Character.digit(line.charAt(2 * i), 16);
+      int low = Character.digit(line.charAt(2 * i + 1), 16);
+      if (high < 0 || low < 0) {
+        throw new IOException("Invalid SHA-1 hash: " + line);
+      }
+      hash[i] = (byte) (high << 4 | low);
+    }
+    return hash;
+  }
+
+  /* SHA-1 hashes are uniformly distributed, so the Bloom filter indexes are derived from them */
+
+  private static void add(long[] bloomFilter, int bloomHashes, byte[] hash) {
+    long bits = bloomFilter.length * 64L;
+    long h1 = ByteBuffer.wrap(hash, 4, 8).getLong();
+    long h2 = ByteBuffer.wrap(hash, 12, 8).getLong();
+    for (int i = 0; i < bloomHashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bits);
+      bloomFilter[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  private static boolean mightContain(long[] bloomFilter, int bloomHashes, byte[] hash) {
+    long bits = bloomFilter.length * 64L;
+    long h1 = ByteBuffer.wrap(hash, 4, 8).getLong();
+    long h2 = ByteBuffer.wrap(hash, 12, 8).getLong();
+    for (int i = 0; i < bloomHashes; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bits);
+      if ((bloomFilter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
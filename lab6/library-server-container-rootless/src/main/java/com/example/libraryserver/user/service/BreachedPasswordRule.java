@@ -0,0 +1,45 @@
+package com.example.libraryserver.user.service;
+
+import org.passay.DigestDictionaryRule;
+import org.passay.PasswordData;
+import org.passay.Rule;
+import org.passay.RuleResult;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+
+/**
+ * Rejects passwords whose SHA-1 hash is contained in a {@link BreachedPasswordList}, reported with
+ * error code {@link DigestDictionaryRule#ERROR_CODE}.
+ */
+public class BreachedPasswordRule implements Rule {
+
+  private final BreachedPasswordList breachedPasswordList;
+
+  public BreachedPasswordRule(BreachedPasswordList breachedPasswordList) {
+    this.breachedPasswordList = breachedPasswordList;
+  }
+
+  @Override
+  public RuleResult validate(PasswordData passwordData) {
+    RuleResult result = new RuleResult();
+    if (isBreached(passwordData.getPassword())) {
+      result.addError(DigestDictionaryRule.ERROR_CODE, Collections.emptyMap());
+    }
+    return result;
+  }
+
+  boolean isBreached(String password) {
+    return breachedPasswordList.contains(sha1(password));
+  }
+
+  private static byte[] sha1(String password) {
+    try {
+      return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -1,90 +1,221 @@
 package com.example.libraryserver.user.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.passay.CharacterCharacteristicsRule;
 import org.passay.CharacterRule;
-import org.passay.DictionarySubstringRule;
 import org.passay.EnglishCharacterData;
 import org.passay.LengthRule;
 import org.passay.PasswordData;
 import org.passay.PasswordValidator;
 import org.passay.RepeatCharacterRegexRule;
+import org.passay.Rule;
 import org.passay.RuleResult;
 import org.passay.UsernameRule;
 import org.passay.WhitespaceRule;
-import org.passay.dictionary.ArrayWordList;
-import org.passay.dictionary.WordList;
-import org.passay.dictionary.WordListDictionary;
-import org.passay.dictionary.WordLists;
-import org.passay.dictionary.sort.ArraysSort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 
 import javax.annotation.PostConstruct;
-import java.io.FileReader;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Password policy validator. Uses recommendations from
  * https://pages.nist.gov/800-63-3/sp800-63b.html (section 5.1.1.2 Memorized Secret Verifiers)
+ *
+ * <p>The password list is streamed from any {@link Resource}, gzip compressed if its name ends
+ * with {@code .gz}, in the background. Until it has been loaded passwords are validated against a
+ * small built-in list. The resource is checked for modifications periodically, a changed list is
+ * loaded again and swapped in atomically, while a list that fails to load keeps the previous one in
+ * place. Word count and load time of the current list are published as {@code
+ * password.dictionary.*} metrics.
+ *
+ * <p>Valid passwords are accepted by a {@link SinglePassPasswordPolicy}, the passay rules are only
+ * evaluated to report the violations of invalid passwords.
  */
-public class PasswordValidationService {
+public class PasswordValidationService implements MeterBinder {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PasswordValidationService.class);
 
   /* https://github.com/danielmiessler/SecLists/blob/master/Passwords/darkweb2017-top100.txt */
   private static final String PASSWORD_LIST_TXT = "password-list.txt";
 
-  private PasswordValidator passwordValidator;
+  private static final int MINIMUM_LENGTH = 12;
+  private static final int MAXIMUM_LENGTH = 64;
+  private static final int CHARACTERISTICS = 3;
+  private static final int REPEAT_LENGTH = 4;
+
+  private static final List<String> FALLBACK_WORDS =
+      Arrays.asList("password", "Password", "123456", "12345678", "admin", "geheim", "secret");
+
+  private final Resource passwordList;
+  private final Duration checkInterval;
+  private final BreachedPasswordRule breachedPasswordRule;
+
+  private ScheduledExecutorService executorService;
+  private volatile LoadedPasswordList loadedPasswordList;
+  private long checkedLastModified = -1;
+
+  public PasswordValidationService() {
+    this(null);
+  }
+
+  /** Additionally rejects passwords contained in the given list of breached passwords, if any. */
+  public PasswordValidationService(BreachedPasswordList breachedPasswordList) {
+    this(new ClassPathResource(PASSWORD_LIST_TXT), Duration.ZERO, breachedPasswordList);
+  }
+
+  /**
+   * Loads the password list from the given resource and checks it for modifications with the given
+   * interval, or never if the interval is not positive.
+   */
+  public PasswordValidationService(
+      Resource passwordList, Duration checkInterval, BreachedPasswordList breachedPasswordList) {
+    this.passwordList = passwordList;
+    this.checkInterval = checkInterval;
+    this.breachedPasswordRule =
+        breachedPasswordList != null ? new BreachedPasswordRule(breachedPasswordList) : null;
+  }
 
   @PostConstruct
   public void init() {
+    this.loadedPasswordList =
+        createLoadedPasswordList(
+            new AhoCorasickDictionaryRule(FALLBACK_WORDS, false), Duration.ZERO);
+    this.executorService =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "password-list-loader");
+              thread.setDaemon(true);
+              return thread;
+            });
+    reload();
+    if (!checkInterval.isZero() && !checkInterval.isNegative()) {
+      executorService.scheduleWithFixedDelay(
+          this::reloadIfModified,
+          checkInterval.toMillis(),
+          checkInterval.toMillis(),
+          TimeUnit.MILLISECONDS);
+    }
+  }
 
-    WordList wordList;
-    try {
-      ClassPathResource resource = new ClassPathResource(PASSWORD_LIST_TXT);
-      wordList =
-          WordLists.createFromReader(
-              new FileReader[] {new FileReader(resource.getFile())}, false, new ArraysSort());
+  @PreDestroy
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  /** Loads the password list again in the background. */
+  public CompletableFuture<Void> reload() {
+    return CompletableFuture.runAsync(this::load, executorService);
+  }
+
+  private void reloadIfModified() {
+    if (lastModified() != checkedLastModified) {
+      load();
+    }
+  }
+
+  private void load() {
+    long start = System.nanoTime();
+    checkedLastModified = lastModified();
+    try (BufferedReader reader = open()) {
+      AhoCorasickDictionaryRule dictionaryRule =
+          new AhoCorasickDictionaryRule(
+              () -> reader.lines().map(String::trim).iterator(), false);
+      Duration loadTime = Duration.ofNanos(System.nanoTime() - start);
+      this.loadedPasswordList = createLoadedPasswordList(dictionaryRule, loadTime);
       LOGGER.info(
-          "Successfully loaded the password list from {} with size {}",
-          resource.getURL(),
-          wordList.size());
+          "Successfully loaded the password list from {} with size {} in {} ms",
+          passwordList.getDescription(),
+          dictionaryRule.size(),
+          loadTime.toMillis());
+    } catch (IOException | UncheckedIOException ex) {
+      LOGGER.warn(
+          "Error loading the password list from {}, keeping the previous list: {}",
+          passwordList.getDescription(),
+          ex.getMessage());
+    }
+  }
+
+  private BufferedReader open() throws IOException {
+    InputStream inputStream = passwordList.getInputStream();
+    String filename = passwordList.getFilename();
+    if (filename != null && filename.endsWith(".gz")) {
+      inputStream = new GZIPInputStream(inputStream);
+    }
+    return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+  }
+
+  private long lastModified() {
+    try {
+      return passwordList.lastModified();
     } catch (IOException ex) {
-      wordList =
-          new ArrayWordList(
-              new String[] {
-                "password", "Password", "123456", "12345678", "admin", "geheim", "secret"
-              },
-              false,
-              new ArraysSort());
-      LOGGER.warn("Error loading the password list: {}", ex.getMessage());
+      return -1;
     }
+  }
 
+  private LoadedPasswordList createLoadedPasswordList(
+      AhoCorasickDictionaryRule dictionaryRule, Duration loadTime) {
     CharacterCharacteristicsRule characteristicsRule = new CharacterCharacteristicsRule();
 
-    characteristicsRule.setNumberOfCharacteristics(3);
+    characteristicsRule.setNumberOfCharacteristics(CHARACTERISTICS);
 
     characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.UpperCase, 1));
     characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.LowerCase, 1));
     characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.Digit, 1));
     characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.Special, 1));
 
-    this.passwordValidator =
-        new PasswordValidator(
+    List<Rule> rules =
+        new ArrayList<>(
             Arrays.asList(
-                new LengthRule(12, 64),
+                new LengthRule(MINIMUM_LENGTH, MAXIMUM_LENGTH),
                 characteristicsRule,
-                new RepeatCharacterRegexRule(4),
+                new RepeatCharacterRegexRule(REPEAT_LENGTH),
                 new UsernameRule(),
                 new WhitespaceRule(),
-                new DictionarySubstringRule(new WordListDictionary(wordList))));
+                dictionaryRule));
+    if (breachedPasswordRule != null) {
+      rules.add(breachedPasswordRule);
+    }
+    SinglePassPasswordPolicy policy =
+        new SinglePassPasswordPolicy(
+            MINIMUM_LENGTH,
+            MAXIMUM_LENGTH,
+            CHARACTERISTICS,
+            REPEAT_LENGTH,
+            dictionaryRule,
+            breachedPasswordRule);
+    return new LoadedPasswordList(
+        new PasswordValidator(rules), policy, dictionaryRule.size(), loadTime);
   }
 
   public void validate(String username, String password) {
-    RuleResult result = this.passwordValidator.validate(new PasswordData(username, password));
+    LoadedPasswordList current = this.loadedPasswordList;
+    if (current.policy.isValid(username, password)) {
+      LOGGER.info("Password validated successfully");
+      return;
+    }
+    PasswordValidator passwordValidator = current.passwordValidator;
+    RuleResult result = passwordValidator.validate(new PasswordData(username, password));
     if (!result.isValid()) {
       List<String> messages = passwordValidator.getMessages(result);
       LOGGER.warn("Password validation failed");
@@ -94,4 +225,37 @@ public class PasswordValidationService {
       LOGGER.info("Password validated successfully");
     }
   }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("password.dictionary.words", this, s -> s.loadedPasswordList.words)
+        .description("Number of words in the current password list")
+        .register(registry);
+    TimeGauge.builder(
+            "password.dictionary.load.time",
+            this,
+            TimeUnit.MILLISECONDS,
+            s -> s.loadedPasswordList.loadTime.toMillis())
+        .description("Time taken to load the current password list")
+        .register(registry);
+  }
+
+  private static final class LoadedPasswordList {
+
+    private final PasswordValidator passwordValidator;
+    private final SinglePassPasswordPolicy policy;
+    private final int words;
+    private final Duration loadTime;
+
+    LoadedPasswordList(
+        PasswordValidator passwordValidator,
+        SinglePassPasswordPolicy policy,
+        int words,
+        Duration loadTime) {
+      this.passwordValidator = passwordValidator;
+      this.policy = policy;
+      this.words = words;
+      this.loadTime = loadTime;
+    }
+  }
 }
@@ -0,0 +1,101 @@
+package com.example.libraryserver.user.service;
+
+import org.passay.EnglishCharacterData;
+import org.passay.WhitespaceRule;
+
+/**
+ * Checks the rules of the passay password policy built by {@link PasswordValidationService} in a
+ * single pass over the password, without creating any objects.
+ *
+ * <p>Character classes, whitespace and repeated characters are derived from a lookup table built
+ * from the passay character data, so they match the passay rules. This is only used to accept
+ * valid passwords fast: if a password is rejected here, the passay rules are evaluated to report
+ * the exact messages. Passwords with surrogate characters are always rejected here, because the
+ * regular expression used by passay for repeated characters works on code points.
+ */
+final class SinglePassPasswordPolicy {
+
+  private static final byte UPPER_CASE = 1;
+  private static final byte LOWER_CASE = 2;
+  private static final byte DIGIT = 4;
+  private static final byte SPECIAL = 8;
+  private static final byte WHITESPACE = 16;
+
+  private static final byte[] CHARACTER_CLASSES = new byte[Character.MAX_VALUE + 1];
+
+  static {
+    mark(EnglishCharacterData.UpperCase.getCharacters(), UPPER_CASE);
+    mark(EnglishCharacterData.LowerCase.getCharacters(), LOWER_CASE);
+    mark(EnglishCharacterData.Digit.getCharacters(), DIGIT);
+    mark(EnglishCharacterData.Special.getCharacters(), SPECIAL);
+    mark(new String(new WhitespaceRule().getWhitespaceCharacters()), WHITESPACE);
+  }
+
+  private final int minimumLength;
+  private final int maximumLength;
+  private final int characteristics;
+  private final int repeatLength;
+  private final AhoCorasickDictionaryRule dictionaryRule;
+  private final BreachedPasswordRule breachedPasswordRule;
+
+  SinglePassPasswordPolicy(
+      int minimumLength,
+      int maximumLength,
+      int characteristics,
+      int repeatLength,
+      AhoCorasickDictionaryRule dictionaryRule,
+      BreachedPasswordRule breachedPasswordRule) {
+    this.minimumLength = minimumLength;
+    this.maximumLength = maximumLength;
+    this.characteristics = characteristics;
+    this.repeatLength = repeatLength;
+    this.dictionaryRule = dictionaryRule;
+    this.breachedPasswordRule = breachedPasswordRule;
+  }
+
+  private static void mark(String characters, byte characterClass) {
+    for (int i = 0; i < characters.length(); i++) {
+      CHARACTER_CLASSES[characters.charAt(i)] |= characterClass;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the password satisfies all rules, {@code false} if it violates any of
+   * them or has to be checked by passay.
+   */
+  boolean isValid(String username, String password) {
+    if (password == null
+        || password.length() < minimumLength
+        || password.length() > maximumLength) {
+      return false;
+    }
+    int classes = 0;
+    char previous = 0;
+    int repeated = 0;
+    for (int i = 0; i < password.length(); i++) {
+      char c = password.charAt(i);
+      if (Character.isSurrogate(c)) {
+        return false;
+      }
+      classes |= CHARACTER_CLASSES[c];
+      if (c == previous && c > 0x1F) {
+        if (++repeated == repeatLength) {
+          return false;
+        }
+      } else {
+        previous = c;
+        repeated = 1;
+      }
+    }
+    if ((classes & WHITESPACE) != 0
+        || Integer.bitCount(classes & (UPPER_CASE | LOWER_CASE | DIGIT | SPECIAL))
+            < characteristics) {
+      return false;
+    }
+    if (username != null && !username.isEmpty() && password.contains(username)) {
+      return false;
+    }
+    return dictionaryRule.find(password) == null
+        && (breachedPasswordRule == null || !breachedPasswordRule.isBreached(password));
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.libraryserver.user.service;
+
+import java.util.UUID;
+
+/** Published by {@link UserService} whenever a user has been stored or deleted. */
+public class UserChangedEvent {
+
+  private final UUID identifier;
+
+  public UserChangedEvent(UUID identifier) {
+    this.identifier = identifier;
+  }
+
+  public UUID getIdentifier() {
+    return identifier;
+  }
+
+  @Override
+  public String toString() {
+    return "UserChangedEvent{" + "identifier=" + identifier + '}';
+  }
+}
@@ -5,6 +5,7 @@ import com.example.libraryserver.user.data.UserRepository;
 import org.owasp.security.logging.SecurityMarkers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,15 +23,25 @@ public class UserService {
 
   private final UserRepository userRepository;
   private final IdGenerator idGenerator;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public UserService(UserRepository userRepository, IdGenerator idGenerator) {
+  public UserService(
+      UserRepository userRepository,
+      IdGenerator idGenerator,
+      ApplicationEventPublisher eventPublisher) {
     this.userRepository = userRepository;
     this.idGenerator = idGenerator;
+    this.eventPublisher = eventPublisher;
   }
 
   @PreAuthorize("hasRole('LIBRARY_ADMIN')")
   public Optional<User> findOneByIdentifier(UUID identifier) {
-    return userRepository.findOneByIdentifier(identifier);
+    return userRepository.findOneByNaturalId(identifier);
+  }
+
+  /** Finds the user of an access token, which is not authenticated yet. */
+  public Optional<User> findOneForAuthentication(UUID identifier) {
+    return userRepository.findOneByNaturalId(identifier);
   }
 
   public Optional<User> findOneByEmail(String email) {
@@ -54,7 +65,9 @@ public class UserService {
     if (user.getIdentifier() == null) {
       user.setIdentifier(idGenerator.generateId());
     }
-    return userRepository.save(user);
+    User savedUser = userRepository.save(user);
+    eventPublisher.publishEvent(new UserChangedEvent(user.getIdentifier()));
+    return savedUser;
   }
 
   @PreAuthorize("hasRole('LIBRARY_ADMIN')")
@@ -63,10 +76,11 @@ public class UserService {
     LOGGER.trace("delete user with identifier {}", userIdentifier);
 
     return userRepository
-        .findOneByIdentifier(userIdentifier)
+        .findOneByNaturalId(userIdentifier)
         .map(
             u -> {
               userRepository.delete(u);
+              eventPublisher.publishEvent(new UserChangedEvent(userIdentifier));
               return true;
             })
         .orElse(false);
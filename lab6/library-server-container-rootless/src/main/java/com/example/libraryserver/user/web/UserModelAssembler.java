@@ -1,26 +1,43 @@
 package com.example.libraryserver.user.web;
 
+import com.example.libraryserver.common.web.HtmlJavaScriptEncoder;
+import com.example.libraryserver.common.web.IdentifierLinkTemplate;
 import com.example.libraryserver.user.data.User;
-import org.owasp.encoder.Encode;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @Component
 public class UserModelAssembler extends RepresentationModelAssemblerSupport<User, UserModel> {
 
+  private final IdentifierLinkTemplate selfLink =
+      IdentifierLinkTemplate.of(
+          UserRestController.class,
+          identifier -> methodOn(UserRestController.class).getSingleUser(identifier, null),
+          IanaLinkRelations.SELF);
+
   public UserModelAssembler() {
     super(UserRestController.class, UserModel.class);
   }
 
+  /** Base URI for users links in the current request. */
+  public String baseUri() {
+    return selfLink.baseUri();
+  }
+
   @Override
   public UserModel toModel(User user) {
+    return toModel(user, baseUri());
+  }
+
+  public UserModel toModel(User user, String baseUri) {
     UserModel userModel =
         outputEscaping(
             new UserModel(
@@ -29,9 +46,25 @@ public class UserModelAssembler extends RepresentationModelAssemblerSupport<User
                 user.getLastName(),
                 user.getEmail(),
                 user.getRoles()));
-    userModel.add(
-        linkTo(methodOn(UserRestController.class).getSingleUser(userModel.getIdentifier()))
-            .withSelfRel());
+    userModel.add(selfLink.expand(baseUri, userModel.getIdentifier()));
+
+    return userModel;
+  }
+
+  public UserModel toBorrowerModel(UUID identifier, String firstName, String lastName) {
+    return toBorrowerModel(identifier, firstName, lastName, baseUri());
+  }
+
+  public UserModel toBorrowerModel(
+      UUID identifier, String firstName, String lastName, String baseUri) {
+    UserModel userModel =
+        new UserModel(
+            identifier,
+            HtmlJavaScriptEncoder.encode(firstName),
+            HtmlJavaScriptEncoder.encode(lastName),
+            null,
+            null);
+    userModel.add(selfLink.expand(baseUri, identifier));
 
     return userModel;
   }
@@ -40,9 +73,10 @@ public class UserModelAssembler extends RepresentationModelAssemblerSupport<User
   public CollectionModel<UserModel> toCollectionModel(Iterable<? extends User> entities) {
 
     List<UserModel> result = new ArrayList<>();
+    String baseUri = baseUri();
 
     for (User entity : entities) {
-      result.add(toModel(entity));
+      result.add(toModel(entity, baseUri));
     }
 
     return new UserModelList(result);
@@ -50,12 +84,12 @@ public class UserModelAssembler extends RepresentationModelAssemblerSupport<User
 
   private UserModel outputEscaping(UserModel input) {
     UserModel output = new UserModel();
-    output.setEmail(Encode.forJavaScript(Encode.forHtml(input.getEmail())));
-    output.setFirstName(Encode.forJavaScript(Encode.forHtml(input.getFirstName())));
-    output.setLastName(Encode.forJavaScript(Encode.forHtml(input.getLastName())));
+    output.setEmail(HtmlJavaScriptEncoder.encode(input.getEmail()));
+    output.setFirstName(HtmlJavaScriptEncoder.encode(input.getFirstName()));
+    output.setLastName(HtmlJavaScriptEncoder.encode(input.getLastName()));
     output.setIdentifier(input.getIdentifier());
     for (String role : input.getRoles()) {
-      output.getRoles().add(Encode.forJavaScript(Encode.forHtml(role)));
+      output.getRoles().add(HtmlJavaScriptEncoder.encode(role));
     }
 
     return output;
@@ -1,16 +1,23 @@
 package com.example.libraryserver.user.web;
 
+import com.example.libraryserver.common.web.EntityTags;
+import com.example.libraryserver.security.BoundedPasswordEncoder;
 import com.example.libraryserver.user.data.User;
 import com.example.libraryserver.user.service.PasswordValidationService;
 import com.example.libraryserver.user.service.UserService;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,6 +27,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.net.URI;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.http.HttpStatus.NO_CONTENT;
@@ -32,60 +41,98 @@ public class UserRestController {
   private final UserService userService;
   private final PasswordValidationService passwordValidationService;
   private final UserModelAssembler userModelAssembler;
+  private final BoundedPasswordEncoder passwordEncoder;
 
   public UserRestController(
       UserService userService,
       PasswordValidationService passwordValidationService,
-      UserModelAssembler userModelAssembler) {
+      UserModelAssembler userModelAssembler,
+      BoundedPasswordEncoder passwordEncoder) {
     this.userService = userService;
     this.passwordValidationService = passwordValidationService;
     this.userModelAssembler = userModelAssembler;
+    this.passwordEncoder = passwordEncoder;
   }
 
+  /**
+   * Registers a user. The request thread is released while the password is hashed, the user is
+   * stored on the hashing thread once the hash is done.
+   */
   @PostMapping
-  public ResponseEntity<UserModel> registerUser(
+  public CompletableFuture<ResponseEntity<UserModel>> registerUser(
       @RequestBody @Valid CreateUserModel createUserModel, HttpServletRequest request) {
 
     passwordValidationService.validate(createUserModel.getEmail(), createUserModel.getPassword());
 
-    User user =
-        userService.save(
-            new User(
-                createUserModel.getFirstName(),
-                createUserModel.getLastName(),
-                createUserModel.getEmail(),
-                createUserModel.getPassword(),
-                createUserModel.getRoles()));
-    URI uri =
-        ServletUriComponentsBuilder.fromServletMapping(request)
-            .path("/users/" + user.getIdentifier())
-            .build()
-            .toUri();
-
-    return ResponseEntity.created(uri).body(userModelAssembler.toModel(user));
+    ServletUriComponentsBuilder servletMapping =
+        ServletUriComponentsBuilder.fromServletMapping(request);
+    String baseUri = userModelAssembler.baseUri();
+    return passwordEncoder
+        .encodeAsync(createUserModel.getPassword())
+        .thenApplyAsync(
+            encodedPassword -> {
+              User user =
+                  userService.save(
+                      new User(
+                          createUserModel.getFirstName(),
+                          createUserModel.getLastName(),
+                          createUserModel.getEmail(),
+                          encodedPassword,
+                          createUserModel.getRoles()));
+              URI uri = servletMapping.path("/users/" + user.getIdentifier()).build().toUri();
+
+              return ResponseEntity.created(uri).body(userModelAssembler.toModel(user, baseUri));
+            },
+            withSecurityContext());
   }
 
+  /**
+   * Updates a user. Like on registration, checking and hashing a changed password does not hold
+   * the request thread.
+   */
   @PutMapping("/{userIdentifier}")
-  public ResponseEntity<UserModel> updateUser(
+  public CompletableFuture<ResponseEntity<UserModel>> updateUser(
       @PathVariable("userIdentifier") UUID userIdentifier,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid CreateUserModel createUserModel) {
 
+    String baseUri = userModelAssembler.baseUri();
     return userService
         .findOneByIdentifier(userIdentifier)
         .map(
             u -> {
-              if (!u.getPassword().equals(createUserModel.getPassword())) {
-                passwordValidationService.validate(
-                    createUserModel.getEmail(), createUserModel.getPassword());
+              if (ifMatch != null && !EntityTags.matches(ifMatch, EntityTags.of(u.getVersion()))) {
+                return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                        .eTag(EntityTags.of(u.getVersion()))
+                        .<UserModel>build());
               }
-              u.setFirstName(createUserModel.getFirstName());
-              u.setLastName(createUserModel.getLastName());
-              u.setEmail(createUserModel.getEmail());
-              u.setPassword(createUserModel.getPassword());
-              u.setRoles(createUserModel.getRoles());
-              return ResponseEntity.ok(userModelAssembler.toModel(userService.save(u)));
+              return passwordEncoder
+                  .matchesAsync(createUserModel.getPassword(), u.getPassword())
+                  .thenCompose(
+                      unchanged -> {
+                        if (unchanged) {
+                          return CompletableFuture.completedFuture(u.getPassword());
+                        }
+                        passwordValidationService.validate(
+                            createUserModel.getEmail(), createUserModel.getPassword());
+                        return passwordEncoder.encodeAsync(createUserModel.getPassword());
+                      })
+                  .thenApplyAsync(
+                      encodedPassword -> {
+                        u.setFirstName(createUserModel.getFirstName());
+                        u.setLastName(createUserModel.getLastName());
+                        u.setEmail(createUserModel.getEmail());
+                        u.setPassword(encodedPassword);
+                        u.setRoles(createUserModel.getRoles());
+                        User updatedUser = userService.save(u);
+                        return ResponseEntity.ok()
+                            .eTag(EntityTags.of(updatedUser.getVersion()))
+                            .body(userModelAssembler.toModel(updatedUser, baseUri));
+                      },
+                      withSecurityContext());
             })
-        .orElse(ResponseEntity.notFound().build());
+        .orElse(CompletableFuture.completedFuture(ResponseEntity.notFound().build()));
   }
 
   @ResponseStatus(OK)
@@ -99,10 +146,20 @@ public class UserRestController {
 
   @GetMapping("/{userIdentifier}")
   public ResponseEntity<UserModel> getSingleUser(
-      @PathVariable("userIdentifier") UUID userIdentifier) {
+      @PathVariable("userIdentifier") UUID userIdentifier,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     return userService
         .findOneByIdentifier(userIdentifier)
-        .map(u -> ResponseEntity.ok(userModelAssembler.toModel(u)))
+        .map(
+            u -> {
+              String entityTag = EntityTags.of(u.getVersion());
+              if (EntityTags.matchesWeakly(ifNoneMatch, entityTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(entityTag)
+                    .<UserModel>build();
+              }
+              return ResponseEntity.ok().eTag(entityTag).body(userModelAssembler.toModel(u));
+            })
         .orElse(ResponseEntity.notFound().build());
   }
 
@@ -113,4 +170,9 @@ public class UserRestController {
         ? ResponseEntity.noContent().build()
         : ResponseEntity.notFound().build();
   }
+
+  /** Continues on the thread completing the previous stage, as the user of the request. */
+  private static Executor withSecurityContext() {
+    return new DelegatingSecurityContextExecutor(Runnable::run, SecurityContextHolder.getContext());
+  }
 }
@@ -23,7 +23,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(webEnvironment = MOCK)
+@SpringBootTest(
+    webEnvironment = MOCK,
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DirtiesContext
 @ActiveProfiles("test")
 @DisplayName("Calling spring boot actuator")
@@ -88,6 +90,17 @@ class ActuatorIntegrationTest {
           .andExpect(status().isOk())
           .andExpect(jsonPath("$.names").exists());
     }
+
+    @Test
+    @DisplayName("for second level cache metrics")
+    void secondLevelCacheMetrics() throws Exception {
+
+      mvc.perform(
+              get("/actuator/metrics/hibernate.second.level.cache.requests")
+                  .with(user("user").roles("LIBRARY_ACTUATOR")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.availableTags[?(@.tag == 'region')]").exists());
+    }
   }
 
   @Nested
@@ -0,0 +1,227 @@
+package com.example.libraryserver.book.data;
+
+import com.example.libraryserver.user.data.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Book repository")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookRepositoryIntegrationTest {
+
+  private static final int BOOK_COUNT = 30;
+  private static final int BORROWER_COUNT = 10;
+
+  @Autowired private BookRepository cut;
+  @Autowired private TestEntityManager entityManager;
+
+  private Statistics statistics;
+  private UUID borrowedBookIdentifier;
+
+  @BeforeEach
+  void setup() {
+    List<User> borrowers =
+        IntStream.range(0, BORROWER_COUNT)
+            .mapToObj(
+                i ->
+                    entityManager.persist(
+                        new User(
+                            UUID.randomUUID(),
+                            "first" + i,
+                            "last" + i,
+                            "user" + i + "@example.com",
+                            "secret",
+                            new HashSet<>(Collections.singleton("LIBRARY_USER")))))
+            .collect(Collectors.toList());
+    List<Book> books =
+        IntStream.range(0, BOOK_COUNT)
+            .mapToObj(
+                i ->
+                    entityManager.persist(
+                        new Book(
+                            UUID.randomUUID(),
+                            "9780132350884",
+                            "title " + i,
+                            "description " + i,
+                            new HashSet<>(Collections.singleton("author " + i)),
+                            borrowers.get(i % BORROWER_COUNT))))
+            .collect(Collectors.toList());
+    borrowedBookIdentifier = books.get(0).getIdentifier();
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics =
+        entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+            .getStatistics();
+    statistics.clear();
+  }
+
+  @DisplayName("reads a page of book summaries in a constant number of statements")
+  @Test
+  void findSummaries() {
+    List<BookSummary> books = cut.findSummaries(PageRequest.of(0, BOOK_COUNT));
+    List<BookRepository.BookAuthor> authors =
+        cut.findAuthorsByIdentifierIn(
+            books.stream().map(BookSummary::getIdentifier).collect(Collectors.toList()));
+
+    assertThat(books).hasSize(BOOK_COUNT).allMatch(BookSummary::isBorrowed);
+    assertThat(books).allMatch(b -> b.getDescription() == null);
+    assertThat(authors).hasSize(BOOK_COUNT);
+    // summaries with borrowers + authors
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+    assertThat(statistics.getCollectionLoadCount()).isZero();
+  }
+
+  @DisplayName("reads a single book summary without loading entities")
+  @Test
+  void findSummaryByIdentifier() {
+    Optional<BookSummary> book = cut.findSummaryByIdentifier(borrowedBookIdentifier);
+
+    assertThat(book).isPresent();
+    assertThat(book.get().getBorrowerFirstName()).isEqualTo("first0");
+    assertThat(book.get().getDescription()).isEqualTo("description 0");
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    assertThat(statistics.getEntityLoadCount()).isZero();
+  }
+
+  @DisplayName("loads a single book with authors and borrower in one statement")
+  @Test
+  void findOneByIdentifier() {
+    Optional<Book> book = cut.findOneByIdentifier(borrowedBookIdentifier);
+
+    assertThat(book).isPresent();
+    assertThat(book.get().getAuthors()).hasSize(1);
+    assertThat(book.get().getBorrowedByUser().getRoles()).containsExactly("LIBRARY_USER");
+    assertThat(book.get().isDescriptionLoaded()).isFalse();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @DisplayName("streams all books with description, authors and borrower in one statement")
+  @Test
+  void streamAll() {
+    List<Book> books;
+    try (Stream<Book> stream = cut.streamAll()) {
+      books = stream.collect(Collectors.toList());
+    }
+
+    assertThat(books).hasSize(BOOK_COUNT).allMatch(Book::isDescriptionLoaded);
+    assertThat(books).allMatch(b -> b.getAuthors().size() == 1);
+    assertThat(books).allMatch(b -> b.getBorrowedByUser() != null);
+    // books + roles of each borrower
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1 + BORROWER_COUNT);
+    assertThat(books)
+        .extracting(Book::getIdentifier)
+        .containsExactlyElementsOf(
+            cut.findSummaries(PageRequest.of(0, BOOK_COUNT)).stream()
+                .map(BookSummary::getIdentifier)
+                .collect(Collectors.toList()));
+  }
+
+  @DisplayName("loads the description of a book on first access only")
+  @Test
+  void lazyDescription() {
+    Book book = cut.findOneByIdentifier(borrowedBookIdentifier).orElseThrow();
+    long statements = statistics.getPrepareStatementCount();
+
+    assertThat(book.getDescription()).isEqualTo("description 0");
+    assertThat(book.isDescriptionLoaded()).isTrue();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+  }
+
+  @DisplayName("completes book summaries with their descriptions in one statement")
+  @Test
+  void withDescriptions() {
+    List<BookSummary> books = cut.findSummaries(PageRequest.of(0, BOOK_COUNT));
+    statistics.clear();
+
+    assertThat(cut.withDescriptions(books))
+        .hasSize(BOOK_COUNT)
+        .allMatch(b -> b.getDescription().equals("description " + b.getTitle().substring(6)));
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @DisplayName("increments the version of a book whose description is replaced")
+  @Test
+  void replaceDescription() {
+    Book book = cut.findOneByNaturalId(borrowedBookIdentifier).orElseThrow();
+    Long version = book.getVersion();
+
+    book.setDescription("updated");
+    cut.saveAndFlush(book);
+    entityManager.clear();
+
+    Optional<BookSummary> updated = cut.findSummaryByIdentifier(borrowedBookIdentifier);
+    assertThat(updated).isPresent();
+    assertThat(updated.get().getDescription()).isEqualTo("updated");
+    assertThat(updated.get().getVersion()).isGreaterThan(version);
+    assertThat(
+            entityManager
+                .getEntityManager()
+                .createQuery("select count(d) from BookDescription d", Long.class)
+                .getSingleResult())
+        .isEqualTo(BOOK_COUNT);
+  }
+
+  @DisplayName("keeps the version of a detached book updated with unchanged values")
+  @Test
+  void updateUnchanged() {
+    Book book = cut.findOneWithDescriptionByIdentifier(borrowedBookIdentifier).orElseThrow();
+    Long version = book.getVersion();
+    entityManager.clear();
+
+    book.setTitle("title 0");
+    book.setDescription("description 0");
+    book.setAuthors(new HashSet<>(Collections.singleton("author 0")));
+    cut.saveAndFlush(book);
+
+    assertThat(statistics.getEntityInsertCount()).isZero();
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+    assertThat(statistics.getEntityDeleteCount()).isZero();
+    assertThat(statistics.getCollectionUpdateCount()).isZero();
+    assertThat(cut.findOneByNaturalId(borrowedBookIdentifier).orElseThrow().getVersion())
+        .isEqualTo(version);
+  }
+
+  @DisplayName("inserts books in JDBC batches with pooled ids")
+  @Test
+  void saveAll() {
+    List<Book> books =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    new Book(
+                        UUID.randomUUID(),
+                        "9780132350884",
+                        "batch " + i,
+                        "description " + i,
+                        new HashSet<>(Collections.singleton("author " + i))))
+            .collect(Collectors.toList());
+
+    cut.saveAll(books);
+    entityManager.flush();
+
+    assertThat(books).allMatch(b -> b.getId() != null);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(200);
+    // four sequence calls for 200 pooled ids of books and descriptions
+    // + one batched insert each for descriptions, books and authors
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(7);
+  }
+}
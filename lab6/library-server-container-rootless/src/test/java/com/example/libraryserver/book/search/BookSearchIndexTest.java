@@ -0,0 +1,269 @@
+package com.example.libraryserver.book.search;
+
+import com.example.libraryserver.book.data.BookSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Book search index")
+class BookSearchIndexTest {
+
+  private final UUID cleanCode = UUID.randomUUID();
+  private final UUID cloudNative = UUID.randomUUID();
+  private final UUID codeComplete = UUID.randomUUID();
+
+  private BookSearchIndex cut;
+
+  private static BookSummary book(
+      UUID identifier, long version, String title, String description, String... authors) {
+    return new BookSummary(
+        identifier,
+        version,
+        "9780132350884",
+        title,
+        description,
+        new HashSet<>(Arrays.asList(authors)),
+        null,
+        null,
+        null,
+        null);
+  }
+
+  @BeforeEach
+  void setup() {
+    cut = new BookSearchIndex();
+    cut.index(
+        book(
+            cleanCode,
+            0,
+            "Clean Code",
+            "A handbook of agile software craftsmanship",
+            "Robert C. Martin"));
+    cut.index(
+        book(
+            cloudNative,
+            0,
+            "Cloud Native Java",
+            "Designing resilient systems with Spring Boot and clean code",
+            "Josh Long",
+            "Kenny Bastani"));
+    cut.index(
+        book(
+            codeComplete,
+            0,
+            "Code Complete",
+            "A practical handbook of software construction",
+            "Steve McConnell"));
+  }
+
+  @DisplayName("tokenizes case and accent insensitive")
+  @Test
+  void tokenize() {
+    assertThat(BookSearchIndex.tokenize("Café-Society: Über 2 Ärzte!"))
+        .containsExactly("cafe", "society", "uber", "2", "arzte");
+    assertThat(BookSearchIndex.tokenize("  ")).isEmpty();
+  }
+
+  @DisplayName("ranks title matches before description matches")
+  @Test
+  void ranking() {
+    assertThat(cut.search("clean", 10)).containsExactly(cleanCode, cloudNative);
+  }
+
+  @DisplayName("requires all query terms to match")
+  @Test
+  void allTermsMatch() {
+    assertThat(cut.search("code handbook", 10)).containsExactly(cleanCode, codeComplete);
+    assertThat(cut.search("clean handbook", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("clean unknown", 10)).isEmpty();
+  }
+
+  @DisplayName("matches prefixes and ranks exact terms first")
+  @Test
+  void prefixMatching() {
+    assertThat(cut.search("mart", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("co", 10))
+        .containsExactlyInAnyOrder(cleanCode, cloudNative, codeComplete);
+  }
+
+  @DisplayName("limits the number of results")
+  @Test
+  void limit() {
+    assertThat(cut.search("code", 1)).containsExactly(cleanCode);
+    assertThat(cut.search("code", 0)).isEmpty();
+    assertThat(cut.search(" ", 10)).isEmpty();
+  }
+
+  @DisplayName("replaces the terms of an updated book")
+  @Test
+  void update() {
+    cut.index(
+        book(cleanCode, 1, "The Clean Coder", "Professional programmers", "Robert C. Martin"));
+
+    assertThat(cut.search("handbook", 10)).containsExactly(codeComplete);
+    assertThat(cut.search("coder", 10)).containsExactly(cleanCode);
+    assertThat(cut.size()).isEqualTo(3);
+  }
+
+  @DisplayName("keeps the indexed description of a book updated without description")
+  @Test
+  void updateWithoutDescription() {
+    cut.index(book(cleanCode, 1, "Clean Code", null, "Robert C. Martin"));
+
+    assertThat(cut.search("craftsmanship", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("clean", 10)).containsExactly(cleanCode, cloudNative);
+  }
+
+  @DisplayName("ignores outdated versions of a book")
+  @Test
+  void outdatedUpdate() {
+    cut.index(book(cleanCode, 2, "Clean Code", "Second edition", "Robert C. Martin"));
+    cut.index(book(cleanCode, 1, "Dirty Code", "First edition", "Robert C. Martin"));
+
+    assertThat(cut.search("dirty", 10)).isEmpty();
+    assertThat(cut.search("second", 10)).hasSize(1);
+  }
+
+  @DisplayName("forgets removed books")
+  @Test
+  void remove() {
+    cut.remove(cleanCode, 0L);
+    cut.remove(UUID.randomUUID(), 0L);
+
+    assertThat(cut.search("clean", 10)).containsExactly(cloudNative);
+    assertThat(cut.search("martin", 10)).isEmpty();
+    assertThat(cut.size()).isEqualTo(2);
+  }
+
+  @DisplayName("replaces title and authors of a book updated without description")
+  @Test
+  void updateTitleWithoutDescription() {
+    cut.index(book(cleanCode, 1, "Clean Code Revised", null, "Uncle Bob"));
+
+    assertThat(cut.search("revised", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("craftsmanship", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("uncle bob", 10)).containsExactly(cleanCode);
+    assertThat(cut.search("martin", 10)).isEmpty();
+    assertThat(cut.search("clean", 10)).containsExactly(cleanCode, cloudNative);
+  }
+
+  @DisplayName("does not add a deleted book again for a save arriving late")
+  @Test
+  void saveAfterRemove() {
+    cut.index(book(cleanCode, 1, "Clean Code", "Second edition", "Robert C. Martin"));
+    cut.remove(cleanCode, 1L);
+    cut.index(book(cleanCode, 1, "Clean Code", "Second edition", "Robert C. Martin"));
+    UUID unknown = UUID.randomUUID();
+    cut.remove(unknown, 3L);
+    cut.index(book(unknown, 2, "Unknown", "Deleted before indexed"));
+
+    assertThat(cut.search("clean", 10)).containsExactly(cloudNative);
+    assertThat(cut.search("unknown", 10)).isEmpty();
+    assertThat(cut.size()).isEqualTo(2);
+  }
+
+  @DisplayName("finds the same books after compaction")
+  @Test
+  void compact() {
+    cut.index(
+        book(cleanCode, 1, "The Clean Coder", "Professional programmers", "Robert C. Martin"));
+    cut.remove(codeComplete, 0L);
+    cut.compact();
+    cut.index(book(codeComplete, 0, "Code Complete", "A practical handbook"));
+
+    assertThat(cut.search("clean", 10)).containsExactly(cleanCode, cloudNative);
+    assertThat(cut.search("handbook", 10)).isEmpty();
+    assertThat(cut.search("professional", 10)).containsExactly(cleanCode);
+    assertThat(cut.size()).isEqualTo(2);
+  }
+
+  @DisplayName("expands a prefix to the terms found in most books only")
+  @Test
+  void prefixExpansionLimit() {
+    List<UUID> common = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      common.add(UUID.randomUUID());
+      cut.index(book(common.get(i), 0, "Xqcommon " + i, null));
+    }
+    for (int i = 0; i < BookSearchIndex.MAX_PREFIX_TERMS + 2; i++) {
+      cut.index(book(UUID.randomUUID(), 0, "Xqrare" + i, null));
+    }
+
+    assertThat(cut.search("xq", 100))
+        .hasSize(BookSearchIndex.MAX_PREFIX_TERMS + 1)
+        .containsAll(common);
+    assertThat(cut.search("xqrare33", 100)).hasSize(1);
+  }
+
+  @DisplayName("finds books with an empty author list")
+  @Test
+  void noAuthors() {
+    UUID identifier = UUID.randomUUID();
+    cut.index(
+        new BookSummary(
+            identifier,
+            0L,
+            "1234567890123",
+            "Anonymous",
+            "Unknown",
+            Collections.emptySet(),
+            null,
+            null,
+            null,
+            null));
+
+    assertThat(cut.search("anonymous", 10)).containsExactly(identifier);
+  }
+
+  @DisplayName("ranks many books of equal weight by title, also after changes")
+  @Test
+  void rankingBeyondRankedDocuments() {
+    List<UUID> identifiers = new ArrayList<>();
+    for (int i = 0; i < 2 * BookSearchIndex.RANKED_DOCUMENTS; i++) {
+      identifiers.add(UUID.randomUUID());
+      cut.index(book(identifiers.get(i), 0, String.format("Volume %04d", i), "Shared words"));
+    }
+
+    assertThat(cut.search("shared", 2)).containsExactly(identifiers.get(0), identifiers.get(1));
+    assertThat(cut.search("sha", 2)).containsExactly(identifiers.get(0), identifiers.get(1));
+
+    UUID last = identifiers.get(identifiers.size() - 1);
+    cut.index(book(last, 1, "Appendix", null));
+    assertThat(cut.search("shared", 2)).containsExactly(last, identifiers.get(0));
+
+    for (int i = 0; i < BookSearchIndex.RANKED_DOCUMENTS; i++) {
+      cut.remove(identifiers.get(i), 0L);
+    }
+    assertThat(cut.search("shared", 2))
+        .containsExactly(last, identifiers.get(BookSearchIndex.RANKED_DOCUMENTS));
+  }
+
+  @DisplayName("forgets deleted books once late saves can no longer arrive")
+  @Test
+  void tombstoneRetention() {
+    Clock clock = mock(Clock.class);
+    given(clock.millis()).willReturn(0L);
+    cut = new BookSearchIndex(clock);
+    cut.index(book(cleanCode, 0, "Clean Code", "A handbook", "Robert C. Martin"));
+    cut.remove(cleanCode, 0L);
+
+    cut.index(book(cleanCode, 0, "Clean Code", "A handbook", "Robert C. Martin"));
+    assertThat(cut.search("clean", 10)).isEmpty();
+
+    given(clock.millis()).willReturn(BookSearchIndex.TOMBSTONE_RETENTION.toMillis());
+    cut.index(book(cleanCode, 0, "Clean Code", "A handbook", "Robert C. Martin"));
+    assertThat(cut.search("clean", 10)).containsExactly(cleanCode);
+  }
+}
@@ -2,6 +2,7 @@ package com.example.libraryserver.book.service;
 
 import com.example.libraryserver.book.data.Book;
 import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.book.search.BookSearchIndex;
 import com.example.libraryserver.config.IdGeneratorConfiguration;
 import com.example.libraryserver.security.AuthenticatedUser;
 import com.example.libraryserver.user.data.User;
@@ -28,6 +29,9 @@ import java.util.Collections;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
 
 @DisplayName("Book service")
 @SpringJUnitConfig(classes = BookServiceAuthorizationIntegrationTest.BookServiceConfig.class)
@@ -67,7 +71,7 @@ class BookServiceAuthorizationIntegrationTest {
 
   @TestConfiguration
   @EnableGlobalMethodSecurity(prePostEnabled = true)
-  @Import({BookService.class, IdGeneratorConfiguration.class})
+  @Import({BookService.class, BookSearchIndex.class, IdGeneratorConfiguration.class})
   static class BookServiceConfig {}
 
   @DisplayName("is authorized for")
@@ -81,19 +85,41 @@ class BookServiceAuthorizationIntegrationTest {
       cut.findOneByIdentifier(UUID.randomUUID());
     }
 
-    @DisplayName("finding all books")
+    @DisplayName("finding book summary by identifier")
     @Test
-    void findAll() {
-      cut.findAll();
+    void findSummaryByIdentifier() {
+      cut.findSummaryByIdentifier(UUID.randomUUID());
+    }
+
+    @DisplayName("finding a page of books")
+    @Test
+    void findPage() {
+      cut.findPage(null, null, 20);
+    }
+
+    @DisplayName("searching books")
+    @Test
+    void search() {
+      cut.search("clean code", 20);
     }
 
     @DisplayName("saving a book")
     @WithMockUser(roles = "LIBRARY_CURATOR")
     @Test
     void verifySave() {
+      given(bookRepository.save(any())).willAnswer(returnsFirstArg());
       cut.save(new Book("1234567890", "title", "desc", Collections.singleton("author")));
     }
 
+    @DisplayName("saving a batch of books")
+    @WithMockUser(roles = "LIBRARY_CURATOR")
+    @Test
+    void saveAll() {
+      cut.saveAll(
+          Collections.singletonList(
+              new Book("1234567890", "title", "desc", Collections.singleton("author"))));
+    }
+
     @DisplayName("borrowing a book")
     @Test
     void borrowForUser() {
@@ -132,6 +158,20 @@ class BookServiceAuthorizationIntegrationTest {
                       new Book("1234567890", "title", "desc", Collections.singleton("author"))));
     }
 
+    @DisplayName("saving a batch of books with")
+    @ParameterizedTest
+    @ValueSource(strings = {"ROLE_LIBRARY_USER", "ROLE_LIBRARY_ADMIN", "ROLE_USER"})
+    void saveAll(String role) {
+      createAuthenticationContext(role);
+      assertThatExceptionOfType(AccessDeniedException.class)
+          .isThrownBy(
+              () ->
+                  cut.saveAll(
+                      Collections.singletonList(
+                          new Book(
+                              "1234567890", "title", "desc", Collections.singleton("author")))));
+    }
+
     @DisplayName("borrowing a book with")
     @ParameterizedTest
     @ValueSource(strings = {"ROLE_LIBRARY_CURATOR", "ROLE_LIBRARY_ADMIN", "ROLE_USER"})
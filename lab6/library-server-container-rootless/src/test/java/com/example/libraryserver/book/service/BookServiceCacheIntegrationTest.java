@@ -0,0 +1,135 @@
+package com.example.libraryserver.book.service;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.security.AuthenticatedUser;
+import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.data.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+
+@DisplayName("Book service with second level cache under borrow traffic")
+@SpringBootTest(
+    webEnvironment = MOCK,
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext
+@ActiveProfiles("test")
+class BookServiceCacheIntegrationTest {
+
+  private static final int BOOKS = 20;
+
+  @Autowired private BookService cut;
+  @Autowired private BookRepository bookRepository;
+  @Autowired private UserRepository userRepository;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private AuthenticatedUser borrower;
+  private List<UUID> bookIdentifiers;
+
+  @BeforeEach
+  void setup() {
+    borrower =
+        new AuthenticatedUser(
+            userRepository.save(
+                new User(
+                    UUID.randomUUID(),
+                    "Cache",
+                    "Borrower",
+                    "cache.borrower@example.com",
+                    "secret",
+                    new HashSet<>(Collections.singleton("LIBRARY_USER")))));
+    bookIdentifiers =
+        IntStream.range(0, BOOKS)
+            .mapToObj(
+                i ->
+                    bookRepository
+                        .save(
+                            new Book(
+                                UUID.randomUUID(),
+                                "9780132350884",
+                                "Cached book " + i,
+                                "Read from the cache",
+                                new HashSet<>(Collections.singleton("author")),
+                                null))
+                        .getIdentifier())
+            .collect(Collectors.toList());
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new UsernamePasswordAuthenticationToken(
+                borrower, "secret", AuthorityUtils.createAuthorityList("ROLE_LIBRARY_USER")));
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    bookIdentifiers.forEach(bookRepository::findOneByNaturalId);
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+    bookRepository.deleteAll(
+        bookIdentifiers.stream()
+            .map(i -> bookRepository.findOneByNaturalId(i).orElseThrow())
+            .collect(Collectors.toList()));
+    userRepository.delete(userRepository.findOneByNaturalId(borrower.getIdentifier()).orElseThrow());
+  }
+
+  @DisplayName("evicts only the borrowed and returned book from the cache")
+  @Test
+  void borrowAndReturnKeepOtherBooksCached() {
+    UUID borrowed = bookIdentifiers.get(0);
+
+    assertThat(cut.borrowForUser(borrowed, borrower.getIdentifier(), borrower)).isPresent();
+    assertThat(cut.returnForUser(borrowed, borrower.getIdentifier(), borrower)).isPresent();
+    statistics.clear();
+
+    bookIdentifiers.stream()
+        .filter(i -> !i.equals(borrowed))
+        .forEach(i -> assertThat(bookRepository.findOneByNaturalId(i)).isPresent());
+
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(statistics.getSecondLevelCacheMissCount()).isZero();
+    assertThat(bookRepository.findOneByNaturalId(borrowed)).isPresent();
+    assertThat(statistics.getSecondLevelCacheMissCount()).isEqualTo(1);
+  }
+
+  @DisplayName("reads books from the cache while other books are borrowed and returned")
+  @Test
+  void cacheHitRatioUnderBorrowTraffic() {
+    for (UUID identifier : bookIdentifiers) {
+      assertThat(cut.borrowForUser(identifier, borrower.getIdentifier(), borrower)).isPresent();
+      bookIdentifiers.forEach(bookRepository::findOneByNaturalId);
+      assertThat(cut.returnForUser(identifier, borrower.getIdentifier(), borrower)).isPresent();
+    }
+
+    long entityHits =
+        statistics.getDomainDataRegionStatistics(Book.class.getName()).getHitCount();
+    long entityMisses =
+        statistics.getDomainDataRegionStatistics(Book.class.getName()).getMissCount();
+    // a borrowed or returned book is read from the database by the service and the next reader
+    assertThat(entityHits).isGreaterThanOrEqualTo((long) BOOKS * (BOOKS - 2));
+    assertThat(entityMisses).isLessThanOrEqualTo(4L * BOOKS);
+  }
+}
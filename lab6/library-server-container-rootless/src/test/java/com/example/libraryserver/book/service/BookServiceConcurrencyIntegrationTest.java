@@ -0,0 +1,150 @@
+package com.example.libraryserver.book.service;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookRepository;
+import com.example.libraryserver.security.AuthenticatedUser;
+import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.data.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+
+@DisplayName("Book service under concurrent borrowing")
+@SpringBootTest(webEnvironment = MOCK)
+@DirtiesContext
+@ActiveProfiles("test")
+class BookServiceConcurrencyIntegrationTest {
+
+  private static final int THREADS = 16;
+  private static final int ROUNDS = 20;
+
+  @Autowired private BookService cut;
+  @Autowired private BookRepository bookRepository;
+  @Autowired private UserRepository userRepository;
+
+  private ExecutorService executorService;
+  private List<AuthenticatedUser> borrowers;
+  private UUID bookIdentifier;
+
+  @BeforeEach
+  void setup() {
+    executorService = Executors.newFixedThreadPool(THREADS);
+    borrowers =
+        IntStream.range(0, THREADS)
+            .mapToObj(
+                i ->
+                    new AuthenticatedUser(
+                        userRepository.save(
+                            new User(
+                                UUID.randomUUID(),
+                                "first" + i,
+                                "last" + i,
+                                "concurrent" + i + "@example.com",
+                                "secret",
+                                new HashSet<>(Collections.singleton("LIBRARY_USER"))))))
+            .collect(Collectors.toList());
+    bookIdentifier =
+        bookRepository
+            .save(
+                new Book(
+                    UUID.randomUUID(),
+                    "9780132350884",
+                    "Hot book",
+                    "Everybody wants to read it",
+                    new HashSet<>(Collections.singleton("author")),
+                    null))
+            .getIdentifier();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @DisplayName("lets exactly one user borrow the same book")
+  @Test
+  void exactlyOneBorrowerWins() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Optional<Book>>> results = new ArrayList<>();
+      for (AuthenticatedUser borrower : borrowers) {
+        results.add(executorService.submit(asUser(borrower, start, this::borrow)));
+      }
+      start.countDown();
+
+      List<UUID> winners = new ArrayList<>();
+      for (int i = 0; i < borrowers.size(); i++) {
+        if (results.get(i).get().isPresent()) {
+          winners.add(borrowers.get(i).getIdentifier());
+        }
+      }
+
+      assertThat(winners).hasSize(1);
+      assertThat(bookRepository.findSummaryByIdentifier(bookIdentifier))
+          .hasValueSatisfying(b -> assertThat(b.getBorrowerIdentifier()).isEqualTo(winners.get(0)));
+
+      AuthenticatedUser winner =
+          borrowers.stream()
+              .filter(b -> b.getIdentifier().equals(winners.get(0)))
+              .findFirst()
+              .orElseThrow();
+      assertThat(
+              executorService.submit(asUser(winner, new CountDownLatch(0), this::giveBack)).get())
+          .isPresent();
+    }
+  }
+
+  private Optional<Book> borrow(AuthenticatedUser user) {
+    return cut.borrowForUser(bookIdentifier, user.getIdentifier(), user);
+  }
+
+  private Optional<Book> giveBack(AuthenticatedUser user) {
+    return cut.returnForUser(bookIdentifier, user.getIdentifier(), user);
+  }
+
+  private Callable<Optional<Book>> asUser(
+      AuthenticatedUser user, CountDownLatch start, BookAction action) {
+    return () -> {
+      SecurityContextHolder.getContext()
+          .setAuthentication(
+              new UsernamePasswordAuthenticationToken(
+                  user, "secret", AuthorityUtils.createAuthorityList("ROLE_LIBRARY_USER")));
+      try {
+        start.await();
+        return action.apply(user);
+      } finally {
+        SecurityContextHolder.clearContext();
+      }
+    };
+  }
+
+  @FunctionalInterface
+  private interface BookAction {
+    Optional<Book> apply(AuthenticatedUser user);
+  }
+}
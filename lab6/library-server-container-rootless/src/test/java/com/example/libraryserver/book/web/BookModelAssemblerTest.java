@@ -0,0 +1,138 @@
+package com.example.libraryserver.book.web;
+
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.web.UserModel;
+import com.example.libraryserver.user.web.UserModelAssembler;
+import com.example.libraryserver.user.web.UserRestController;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@DisplayName("Book model assembler")
+class BookModelAssemblerTest {
+
+  private final UserModelAssembler userModelAssembler = new UserModelAssembler();
+  private final BookModelAssembler cut = new BookModelAssembler(userModelAssembler);
+
+  @BeforeEach
+  void setup() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setScheme("https");
+    request.setServerName("library.example.com");
+    request.setServerPort(8443);
+    request.setContextPath("/library");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static List<String> render(List<Link> links) {
+    return links.stream().map(Link::toString).collect(Collectors.toList());
+  }
+
+  @DisplayName("builds the same links as methodOn for books and borrowers")
+  @Test
+  void sameLinksAsMethodOn() {
+    UUID bookIdentifier = UUID.randomUUID();
+    UUID borrowerIdentifier = UUID.randomUUID();
+    BookSummary borrowed =
+        new BookSummary(
+            bookIdentifier,
+            0L,
+            "9780132350884",
+            "Clean Code",
+            "description",
+            Collections.singleton("Robert C. Martin"),
+            borrowerIdentifier,
+            1L,
+            "Bruce",
+            "Wayne");
+    BookSummary available =
+        new BookSummary(
+            UUID.randomUUID(),
+            0L,
+            "9780132350884",
+            "Cloud Native Java",
+            "description",
+            Collections.singleton("Josh Long"),
+            null,
+            null,
+            null,
+            null);
+
+    List<BookModel> models =
+        new ArrayList<>(
+            ((BookModelList) cut.toCollectionModel(Arrays.asList(borrowed, available))).getBooks());
+
+    assertThat(models).hasSize(2);
+    for (BookModel model : models) {
+      assertThat(render(model.getLinks().toList()))
+          .containsExactlyElementsOf(
+              render(
+                  Arrays.asList(
+                      linkTo(
+                              methodOn(BookRestController.class)
+                                  .getSingleBook(model.getIdentifier(), null))
+                          .withSelfRel(),
+                      linkTo(
+                              methodOn(BookRestController.class)
+                                  .borrowBook(model.getIdentifier(), null, null))
+                          .withRel("borrow"),
+                      linkTo(
+                              methodOn(BookRestController.class)
+                                  .returnBook(model.getIdentifier(), null, null))
+                          .withRel("return"))));
+    }
+    assertThat(cut.toModel(borrowed).getLinks()).isEqualTo(models.get(0).getLinks());
+
+    UserModel borrower = models.get(0).getBorrowedByUser();
+    assertThat(render(borrower.getLinks().toList()))
+        .containsExactly(
+            linkTo(methodOn(UserRestController.class).getSingleUser(borrowerIdentifier, null))
+                .withSelfRel()
+                .toString());
+    assertThat(borrower.getLinks().toList().get(0).getHref())
+        .isEqualTo("https://library.example.com:8443/library/users/" + borrowerIdentifier);
+  }
+
+  @DisplayName("builds the same links as methodOn for users")
+  @Test
+  void sameUserLinksAsMethodOn() {
+    User user =
+        new User(
+            UUID.randomUUID(),
+            "Bruce",
+            "Wayne",
+            "bruce.wayne@example.com",
+            "secret",
+            Collections.singleton("LIBRARY_USER"));
+
+    UserModel model = userModelAssembler.toModel(user);
+
+    assertThat(render(model.getLinks().toList()))
+        .containsExactly(
+            linkTo(methodOn(UserRestController.class).getSingleUser(user.getIdentifier(), null))
+                .withSelfRel()
+                .toString());
+  }
+}
@@ -0,0 +1,218 @@
+package com.example.libraryserver.book.web;
+
+import com.example.libraryserver.book.data.Book;
+import com.example.libraryserver.book.data.BookSummary;
+import com.example.libraryserver.book.service.BookChangedEvent;
+import com.example.libraryserver.user.service.UserChangedEvent;
+import com.example.libraryserver.user.web.UserModelAssembler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Book model cache")
+class BookModelCacheTest {
+
+  private final UUID identifier = UUID.randomUUID();
+  private final UUID borrowerIdentifier = UUID.randomUUID();
+  private final BookModelCache cut =
+      new BookModelCache(new BookModelAssembler(new UserModelAssembler()), new ObjectMapper());
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private MockHttpServletRequest request;
+
+  private BookSummary book(long version, String borrowerFirstName) {
+    return new BookSummary(
+        identifier,
+        version,
+        "9780132350884",
+        "Clean Code",
+        "A handbook of <agile> software craftsmanship",
+        Collections.singleton("Robert C. Martin"),
+        borrowerFirstName != null ? borrowerIdentifier : null,
+        borrowerFirstName != null ? 1L : null,
+        borrowerFirstName,
+        borrowerFirstName != null ? "Wayne" : null);
+  }
+
+  private Function<UUID, Optional<BookSummary>> loader(BookSummary book) {
+    return i -> {
+      loads.incrementAndGet();
+      return Optional.of(book).filter(b -> b.getIdentifier().equals(i));
+    };
+  }
+
+  private BookModelCache.Representation get(BookSummary book) {
+    return cut.get(book.getIdentifier(), loader(book)).orElseThrow();
+  }
+
+  private static String content(BookModelCache.Representation representation) {
+    return new String(representation.getContent(), StandardCharsets.UTF_8);
+  }
+
+  private BookChangedEvent saved(long version) {
+    Book book = new Book("9780132350884", "Clean Code", "updated", Collections.emptySet());
+    book.setIdentifier(identifier);
+    ReflectionTestUtils.setField(book, "version", version);
+    return BookChangedEvent.saved(book);
+  }
+
+  @BeforeEach
+  void setup() {
+    request = new MockHttpServletRequest();
+    request.setContextPath("/library");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @DisplayName("answers an unchanged book without loading it again")
+  @Test
+  void hit() {
+    BookModelCache.Representation representation = get(book(0, null));
+
+    assertThat(content(representation)).contains("\\\\x26lt;agile\\\\x26gt;");
+    assertThat(representation.getEntityTag()).isEqualTo("\"0\"");
+    assertThat(get(book(0, null))).isSameAs(representation);
+    assertThat(loads).hasValue(1);
+    assertThat(cut.size()).isEqualTo(1);
+  }
+
+  @DisplayName("answers nothing for unknown books")
+  @Test
+  void unknown() {
+    assertThat(cut.get(UUID.randomUUID(), loader(book(0, null)))).isEmpty();
+    assertThat(cut.size()).isZero();
+  }
+
+  @DisplayName("renders again for another base uri")
+  @Test
+  void baseUri() {
+    BookModelCache.Representation representation = get(book(0, null));
+
+    request = new MockHttpServletRequest();
+    request.setServerName("library.example.com");
+    request.setContextPath("/library");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    assertThat(content(get(book(0, null))))
+        .contains("http://library.example.com/library/books/" + identifier)
+        .isNotEqualTo(content(representation));
+    assertThat(cut.size()).isEqualTo(1);
+  }
+
+  @DisplayName("evicts books that have been changed or deleted")
+  @Test
+  void invalidation() {
+    get(book(0, null));
+
+    cut.onBookChanged(saved(1));
+    assertThat(cut.size()).isZero();
+    BookModelCache.Representation borrowed = get(book(1, "Bruce"));
+    assertThat(content(borrowed)).contains("Bruce");
+    assertThat(borrowed.getEntityTag()).isEqualTo("\"1-" + borrowerIdentifier + "-1\"");
+    assertThat(get(book(1, "Bruce"))).isSameAs(borrowed);
+
+    cut.onBookChanged(BookChangedEvent.deleted(identifier, 1L));
+    assertThat(cut.size()).isZero();
+  }
+
+  @DisplayName("does not store books read before a change committed")
+  @Test
+  void staleRead() {
+    cut.onBookChanged(saved(2));
+
+    get(book(1, null));
+    assertThat(cut.size()).isZero();
+    get(book(2, null));
+    assertThat(cut.size()).isEqualTo(1);
+
+    cut.onBookChanged(BookChangedEvent.deleted(identifier, 2L));
+    get(book(2, null));
+    assertThat(cut.size()).isZero();
+  }
+
+  @DisplayName("evicts books borrowed by a changed user")
+  @Test
+  void userChanged() {
+    get(book(1, "Bruce"));
+
+    cut.onUserChanged(new UserChangedEvent(UUID.randomUUID()));
+    assertThat(cut.size()).isEqualTo(1);
+
+    cut.onUserChanged(new UserChangedEvent(borrowerIdentifier));
+    assertThat(cut.size()).isZero();
+    assertThat(content(get(book(1, "Batman")))).contains("Batman");
+  }
+
+  @DisplayName("evicts books when exceeding the maximum weight")
+  @Test
+  void eviction() {
+    long capacity = BookModelCache.MAXIMUM_WEIGHT / BookModelCache.ENTRY_OVERHEAD;
+    for (int i = 0; i < capacity + 1000; i++) {
+      BookSummary book =
+          new BookSummary(
+              UUID.randomUUID(),
+              0L,
+              "9780132350884",
+              "Title " + i,
+              "Description " + i,
+              Collections.emptySet(),
+              null,
+              null,
+              null,
+              null);
+      get(book);
+    }
+
+    assertThat(cut.size()).isLessThan(capacity);
+  }
+
+  @DisplayName("publishes hit, miss and eviction counts")
+  @Test
+  void metrics() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cut.bindTo(registry);
+
+    get(book(0, null));
+    get(book(0, null));
+    get(book(0, null));
+
+    assertThat(
+            registry
+                .get("cache.gets")
+                .tag("cache", BookModelCache.NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count())
+        .isEqualTo(2);
+    assertThat(
+            registry
+                .get("cache.gets")
+                .tag("cache", BookModelCache.NAME)
+                .tag("result", "miss")
+                .functionCounter()
+                .count())
+        .isEqualTo(1);
+    assertThat(registry.get("cache.evictions").tag("cache", BookModelCache.NAME).meter())
+        .isNotNull();
+  }
+}
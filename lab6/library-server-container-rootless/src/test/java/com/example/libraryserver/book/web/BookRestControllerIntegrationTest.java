@@ -2,8 +2,10 @@ package com.example.libraryserver.book.web;
 
 import com.example.libraryserver.DataInitializer;
 import com.example.libraryserver.security.AuthenticatedUser;
-import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.data.UserRepository;
+import com.example.libraryserver.user.service.UserChangedEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,28 +13,48 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.restdocs.RestDocumentationContextProvider;
 import org.springframework.restdocs.RestDocumentationExtension;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.modifyUris;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -53,6 +75,8 @@ class BookRestControllerIntegrationTest {
 
   private final ObjectMapper objectMapper = new ObjectMapper();
   @Autowired private WebApplicationContext context;
+  @Autowired private UserRepository userRepository;
+  @Autowired private PlatformTransactionManager transactionManager;
   private MockMvc mvc;
 
   @BeforeEach
@@ -68,15 +92,32 @@ class BookRestControllerIntegrationTest {
             .build();
   }
 
-  private UserDetails userDetails(UUID identifier, String role) {
-    return new AuthenticatedUser(
-        new User(
-            identifier,
-            "Hans",
-            "Mustermann",
-            "test@example.com",
-            "secret",
-            Collections.singleton(role)));
+  private Authentication borrower(UUID identifier) {
+    return new UsernamePasswordAuthenticationToken(
+        new AuthenticatedUser(userRepository.findOneByIdentifier(identifier).orElseThrow()),
+        "secret",
+        AuthorityUtils.createAuthorityList("ROLE_LIBRARY_USER"));
+  }
+
+  /* renames like UserService, publishing the change for cached books of the user */
+  private void renameUser(UUID userIdentifier, String firstName) {
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              userRepository
+                  .findOneByNaturalId(userIdentifier)
+                  .orElseThrow()
+                  .setFirstName(firstName);
+              context.publishEvent(new UserChangedEvent(userIdentifier));
+            });
+  }
+
+  private String entityTag(UUID bookIdentifier) throws Exception {
+    return mvc.perform(get("/books/{bookIdentifier}", bookIdentifier).with(user("user")))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
   }
 
   @Nested
@@ -101,6 +142,73 @@ class BookRestControllerIntegrationTest {
           .andDo(document("create-book"));
     }
 
+    @Test
+    @DisplayName("in importing a batch of books")
+    void importBooks() throws Exception {
+      List<BookModel> models =
+          Arrays.asList(
+              new BookModel("1234567890123", "first", "description", Collections.singleton("a")),
+              new BookModel("123", "second", "description", Collections.singleton("b")),
+              new BookModel("1234567890124", "third", "description", Collections.singleton("c")));
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(models))
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.imported").value(2))
+          .andExpect(jsonPath("$.failed").value(1))
+          .andExpect(jsonPath("$.errors[0].index").value(1))
+          .andExpect(jsonPath("$.errors[0].message").value(startsWith("isbn")))
+          .andDo(document("import-books"));
+    }
+
+    @Test
+    @DisplayName("in importing a batch with a book the database rejects")
+    void importBooksStoringFails() throws Exception {
+      List<BookModel> models =
+          Arrays.asList(
+              new BookModel("1234567890123", "first", "description", Collections.singleton("a")),
+              new BookModel(
+                  "1234567890124", "second", "description", Collections.singleton("b".repeat(300))),
+              new BookModel("1234567890125", "third", "description", Collections.singleton("c")));
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(models))
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.imported").value(2))
+          .andExpect(jsonPath("$.failed").value(1))
+          .andExpect(jsonPath("$.errors.length()").value(1))
+          .andExpect(jsonPath("$.errors[0].index").value(1))
+          .andExpect(jsonPath("$.errors[0].message").value("Could not store book"));
+    }
+
+    @Test
+    @DisplayName("in importing newline delimited books")
+    void importNdJsonBooks() throws Exception {
+      String content =
+          objectMapper.writeValueAsString(
+                  new BookModel("1234567890123", "first", "desc", Collections.singleton("a")))
+              + "\n{\"isbn\": \"1234567890123\", \"title\": \n"
+              + objectMapper.writeValueAsString(
+                  new BookModel("1234567890124", "third", "desc", Collections.singleton("c")))
+              + "\n";
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_NDJSON)
+                  .content(content)
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.imported").value(2))
+          .andExpect(jsonPath("$.failed").value(1))
+          .andExpect(jsonPath("$.errors[0].index").value(1));
+    }
+
     @Test
     @DisplayName("in updating a book")
     void updateBook() throws Exception {
@@ -117,6 +225,56 @@ class BookRestControllerIntegrationTest {
           .andDo(document("update-book"));
     }
 
+    @Test
+    @DisplayName("in updating a book with a matching entity tag")
+    void updateBookIfMatch() throws Exception {
+      String entityTag = entityTag(DataInitializer.BOOK_SPRING_ACTION_IDENTIFIER);
+      BookModel model =
+          new BookModel("1234567890123", "title", "description", Collections.singleton("author"));
+      mvc.perform(
+              put("/books/{bookIdentifier}", DataInitializer.BOOK_SPRING_ACTION_IDENTIFIER)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .header(HttpHeaders.IF_MATCH, entityTag)
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isOk())
+          .andExpect(header().exists(HttpHeaders.ETAG))
+          .andExpect(header().string(HttpHeaders.ETAG, not(entityTag)))
+          .andDo(document("update-book-if-match"));
+    }
+
+    @Test
+    @DisplayName("in updating a book without changes keeping its entity tag")
+    void updateBookUnchanged() throws Exception {
+      BookModel model =
+          new BookModel(
+              "1234567890123", "Unchanged", "Same description", Collections.singleton("author"));
+      String content =
+          mvc.perform(
+                  post("/books")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(model))
+                      .with(csrf())
+                      .with(user("user").roles("LIBRARY_CURATOR")))
+              .andExpect(status().isCreated())
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      UUID bookIdentifier = UUID.fromString(JsonPath.read(content, "$.identifier"));
+      String entityTag = entityTag(bookIdentifier);
+
+      mvc.perform(
+              put("/books/{bookIdentifier}", bookIdentifier)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .header(HttpHeaders.IF_MATCH, entityTag)
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isOk())
+          .andExpect(header().string(HttpHeaders.ETAG, entityTag));
+    }
+
     @Test
     @DisplayName("in borrowing a book")
     void borrowBook() throws Exception {
@@ -127,10 +285,7 @@ class BookRestControllerIntegrationTest {
                       DataInitializer.BANNER_USER_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .with(csrf())
-                  .with(
-                      user(
-                          userDetails(
-                              DataInitializer.BANNER_USER_IDENTIFIER, "ROLE_LIBRARY_USER"))))
+                  .with(authentication(borrower(DataInitializer.BANNER_USER_IDENTIFIER))))
           .andExpect(status().isOk())
           .andExpect(jsonPath("$.borrowedByUser").exists())
           .andDo(document("borrow-book"));
@@ -146,9 +301,7 @@ class BookRestControllerIntegrationTest {
                       DataInitializer.WAYNE_USER_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .with(csrf())
-                  .with(
-                      user(
-                          userDetails(DataInitializer.WAYNE_USER_IDENTIFIER, "ROLE_LIBRARY_USER"))))
+                  .with(authentication(borrower(DataInitializer.WAYNE_USER_IDENTIFIER))))
           .andExpect(status().isOk())
           .andExpect(jsonPath("$.borrowedByUser").doesNotExist())
           .andDo(document("return-book"));
@@ -163,6 +316,28 @@ class BookRestControllerIntegrationTest {
           .andDo(document("get-books"));
     }
 
+    @Test
+    @DisplayName("in getting pages of books")
+    void listBooksPaged() throws Exception {
+      MvcResult firstPage =
+          mvc.perform(get("/books").param("size", "2").with(user("user")))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$.books.length()").value(2))
+              .andExpect(jsonPath("$._links.self.href", endsWith("/books?size=2")))
+              .andExpect(jsonPath("$._links.prev").doesNotExist())
+              .andExpect(jsonPath("$._links.next.href", containsString("size=2")))
+              .andReturn();
+      String lastIdentifier =
+          JsonPath.read(firstPage.getResponse().getContentAsString(), "$.books[1].identifier");
+
+      mvc.perform(get("/books").param("after", lastIdentifier).param("size", "2").with(user("user")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.books.length()").value(greaterThan(0)))
+          .andExpect(jsonPath("$.books[*].identifier", not(hasItem(lastIdentifier))))
+          .andExpect(jsonPath("$._links.prev.href").exists())
+          .andDo(document("get-books-page"));
+    }
+
     @Test
     @DisplayName("in getting a single book")
     void getSingleBook() throws Exception {
@@ -176,6 +351,123 @@ class BookRestControllerIntegrationTest {
           .andDo(document("get-book"));
     }
 
+    @Test
+    @DisplayName("in getting a single book with basic authentication without storing a session")
+    void getSingleBookStateless() throws Exception {
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .with(httpBasic("bruce.wayne@example.com", "wayne")))
+          .andExpect(status().isOk())
+          .andExpect(
+              result ->
+                  assertThat(
+                          Optional.ofNullable(result.getRequest().getSession(false))
+                              .map(
+                                  s ->
+                                      s.getAttribute(
+                                          HttpSessionSecurityContextRepository
+                                              .SPRING_SECURITY_CONTEXT_KEY)))
+                      .isEmpty());
+    }
+
+    @Test
+    @DisplayName("in deleting an unknown book with basic authentication without csrf token")
+    void deleteUnknownBookWithoutCsrfToken() throws Exception {
+      mvc.perform(
+              delete("/books/{bookIdentifier}", UUID.randomUUID())
+                  .with(httpBasic("peter.parker@example.com", "parker")))
+          .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("in getting a list of all books after signing in with the login form")
+    void listAllBooksWithLoginSession() throws Exception {
+      MockHttpSession session =
+          (MockHttpSession)
+              mvc.perform(formLogin().user("bruce.wayne@example.com").password("wayne"))
+                  .andExpect(status().is3xxRedirection())
+                  .andReturn()
+                  .getRequest()
+                  .getSession(false);
+
+      mvc.perform(get("/books").session(session).accept(MediaType.TEXT_HTML, MediaType.ALL))
+          .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("in searching books")
+    void searchBooks() throws Exception {
+      mvc.perform(get("/books/search").param("q", "clean cod").with(user("user")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.books.length()").value(1))
+          .andExpect(jsonPath("$.books[0].title").value("Clean Code"))
+          .andExpect(jsonPath("$._links.self.href").exists())
+          .andDo(document("search-books"));
+    }
+
+    @Test
+    @DisplayName("in searching a newly created book")
+    void searchCreatedBook() throws Exception {
+      BookModel model =
+          new BookModel(
+              "1234567890123", "Searchable", "Quixotic words", Collections.singleton("author"));
+      mvc.perform(
+              post("/books")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isCreated());
+
+      mvc.perform(get("/books/search").param("q", "quixo").with(user("user")))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.books.length()").value(1))
+          .andExpect(jsonPath("$.books[0].title").value("Searchable"));
+    }
+
+    @Test
+    @DisplayName("in getting an unmodified book")
+    void getSingleBookIfNoneMatch() throws Exception {
+      String entityTag = entityTag(DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER);
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                  .with(user("user")))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+          .andExpect(content().string(""))
+          .andDo(document("get-book-if-none-match"));
+    }
+
+    @Test
+    @DisplayName("in getting an unmodified book with a weak entity tag")
+    void getSingleBookIfNoneMatchWeak() throws Exception {
+      String entityTag = entityTag(DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER);
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .header(HttpHeaders.IF_NONE_MATCH, "W/" + entityTag)
+                  .with(user("user")))
+          .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("in getting a book again after its borrower was renamed")
+    void getSingleBookBorrowerRenamed() throws Exception {
+      String entityTag = entityTag(DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER);
+      renameUser(DataInitializer.WAYNE_USER_IDENTIFIER, "Batman");
+      try {
+        mvc.perform(
+                get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                    .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                    .with(user("user")))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(entityTag)))
+            .andExpect(jsonPath("$.borrowedByUser.firstName").value("Batman"));
+      } finally {
+        renameUser(DataInitializer.WAYNE_USER_IDENTIFIER, "Bruce");
+      }
+    }
+
     @Test
     @DisplayName("in deleting a book")
     void deleteSingleBook() throws Exception {
@@ -192,6 +484,18 @@ class BookRestControllerIntegrationTest {
   @DisplayName("fails")
   class NegativeTests {
 
+    @Test
+    @DisplayName("in importing books without curator role")
+    void importBooksForbidden() throws Exception {
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content("[]")
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_USER")))
+          .andExpect(status().isForbidden());
+    }
+
     @Test
     @DisplayName("in creating a book with invalid ISBN number")
     void createBook() throws Exception {
@@ -241,6 +545,22 @@ class BookRestControllerIntegrationTest {
           .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("in updating a book with a stale entity tag")
+    void updateBookStaleEntityTag() throws Exception {
+      BookModel model =
+          new BookModel("1234567890123", "title", "description", Collections.singleton("author"));
+      mvc.perform(
+              put("/books/{bookIdentifier}", DataInitializer.BOOK_SPRING_ACTION_IDENTIFIER)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .header(HttpHeaders.IF_MATCH, "\"-1\"")
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_CURATOR")))
+          .andExpect(status().isPreconditionFailed())
+          .andExpect(header().exists(HttpHeaders.ETAG));
+    }
+
     @Test
     @DisplayName("in borrowing an unknown book")
     void borrowUnknownBook() throws Exception {
@@ -378,6 +698,14 @@ class BookRestControllerIntegrationTest {
       mvc.perform(get("/books")).andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @DisplayName("in getting a list of all books from a browser, redirecting to the login form")
+    void listAllBooksBrowserRedirectsToLogin() throws Exception {
+      mvc.perform(get("/books").accept(MediaType.TEXT_HTML, MediaType.ALL))
+          .andExpect(status().is3xxRedirection())
+          .andExpect(header().string(HttpHeaders.LOCATION, endsWith("/login")));
+    }
+
     @Test
     @DisplayName("in getting a single book")
     void getSingleBookUnauthorized() throws Exception {
@@ -385,6 +713,17 @@ class BookRestControllerIntegrationTest {
           .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @DisplayName("in importing books")
+    void importBooksUnauthorized() throws Exception {
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content("[]")
+                  .with(csrf()))
+          .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @DisplayName("in deleting a book")
     void deleteSingleBookUnauthorized() throws Exception {
@@ -395,10 +734,17 @@ class BookRestControllerIntegrationTest {
     }
   }
 
-  @DisplayName("fails for missing CSRF token")
+  @DisplayName("fails for missing CSRF token in a browser session")
   @Nested
   class CsrfTokenTests {
 
+    private RequestPostProcessor sessionCookie() {
+      return request -> {
+        request.setRequestedSessionId("browser-session");
+        return request;
+      };
+    }
+
     @Test
     @DisplayName("in creating a book")
     void createBookNoCsrfToken() throws Exception {
@@ -409,7 +755,8 @@ class BookRestControllerIntegrationTest {
               post("/books")
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
-                  .with(user("user").roles("LIBRARY_CURATOR")))
+                  .with(user("user").roles("LIBRARY_CURATOR"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -422,7 +769,8 @@ class BookRestControllerIntegrationTest {
               put("/books/{bookIdentifier}", DataInitializer.BOOK_DEVOPS_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
-                  .with(user("user").roles("LIBRARY_CURATOR")))
+                  .with(user("user").roles("LIBRARY_CURATOR"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -435,7 +783,8 @@ class BookRestControllerIntegrationTest {
                       DataInitializer.BOOK_SPRING_ACTION_IDENTIFIER,
                       DataInitializer.BANNER_USER_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
-                  .with(user("user").roles("LIBRARY_USER")))
+                  .with(user("user").roles("LIBRARY_USER"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -448,7 +797,20 @@ class BookRestControllerIntegrationTest {
                       DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER,
                       DataInitializer.WAYNE_USER_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
-                  .with(user("user").roles("LIBRARY_USER")))
+                  .with(user("user").roles("LIBRARY_USER"))
+                  .with(sessionCookie()))
+          .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("in importing books")
+    void importBooksNoCsrfToken() throws Exception {
+      mvc.perform(
+              post("/books/batch")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content("[]")
+                  .with(user("user").roles("LIBRARY_CURATOR"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -457,7 +819,8 @@ class BookRestControllerIntegrationTest {
     void deleteSingleBookNoCsrfToken() throws Exception {
       mvc.perform(
               delete("/books/{bookIdentifier}", DataInitializer.BOOK_CLOUD_NATIVE_IDENTIFIER)
-                  .with(user("user").roles("LIBRARY_CURATOR")))
+                  .with(user("user").roles("LIBRARY_CURATOR"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
   }
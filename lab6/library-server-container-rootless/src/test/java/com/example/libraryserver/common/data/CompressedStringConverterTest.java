@@ -0,0 +1,49 @@
+package com.example.libraryserver.common.data;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Verify compressed string converter")
+class CompressedStringConverterTest {
+
+  private static final String DESCRIPTION =
+      "Even bad code can function. But if code isn’t clean, it can bring a development "
+          + "organization to its knees. Every year, countless hours and significant resources are "
+          + "lost because of poorly written code. But it doesn’t have to be that way.";
+
+  private final CompressedStringConverter cut = new CompressedStringConverter();
+
+  @DisplayName("deflates longer texts")
+  @Test
+  void deflates() {
+    String text = DESCRIPTION.repeat(8);
+
+    byte[] stored = cut.convertToDatabaseColumn(text);
+
+    assertThat(stored[0]).isEqualTo(CompressedStringConverter.DEFLATED);
+    assertThat(stored.length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length / 4);
+    assertThat(cut.convertToEntityAttribute(stored)).isEqualTo(text);
+  }
+
+  @DisplayName("keeps short texts plain if deflating does not pay off")
+  @Test
+  void keepsPlain() {
+    byte[] stored = cut.convertToDatabaseColumn("Clean Code");
+
+    assertThat(stored[0]).isEqualTo(CompressedStringConverter.PLAIN);
+    assertThat(stored).hasSize("Clean Code".length() + 1);
+    assertThat(cut.convertToEntityAttribute(stored)).isEqualTo("Clean Code");
+  }
+
+  @DisplayName("converts empty and null values")
+  @Test
+  void emptyAndNull() {
+    assertThat(cut.convertToEntityAttribute(cut.convertToDatabaseColumn(""))).isEmpty();
+    assertThat(cut.convertToDatabaseColumn(null)).isNull();
+    assertThat(cut.convertToEntityAttribute(null)).isNull();
+  }
+}
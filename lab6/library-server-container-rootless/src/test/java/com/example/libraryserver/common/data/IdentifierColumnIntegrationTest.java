@@ -0,0 +1,134 @@
+package com.example.libraryserver.common.data;
+
+import com.example.libraryserver.book.data.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Identifier columns")
+@DataJpaTest
+class IdentifierColumnIntegrationTest {
+
+  @Autowired private TestEntityManager entityManager;
+
+  @DisplayName("are 16 byte binary columns with a unique index")
+  @ParameterizedTest(name = "in table {0}")
+  @ValueSource(strings = {"BOOK", "USER"})
+  void binaryColumnWithUniqueIndex(String table) {
+    Object[] column =
+        (Object[])
+            entityManager
+                .getEntityManager()
+                .createNativeQuery(
+                    "select type_name, character_maximum_length from information_schema.columns"
+                        + " where table_name = ?1 and column_name = 'IDENTIFIER'")
+                .setParameter(1, table)
+                .getSingleResult();
+    List<?> uniqueIndexes =
+        entityManager
+            .getEntityManager()
+            .createNativeQuery(
+                "select index_name from information_schema.indexes"
+                    + " where table_name = ?1 and column_name = 'IDENTIFIER' and not non_unique")
+            .setParameter(1, table)
+            .getResultList();
+
+    assertThat(column[0]).isIn("BINARY", "VARBINARY");
+    assertThat(((Number) column[1]).intValue()).isEqualTo(16);
+    assertThat(uniqueIndexes).isNotEmpty();
+  }
+
+  /**
+   * Generates identifiers while the clock passes milliseconds ending in {@code 0x7f} and {@code
+   * 0x80}, with more than 128 identifiers per millisecond, so both the timestamp and the counter
+   * cross a byte whose order differs between signed and unsigned comparison.
+   */
+  @DisplayName("are ordered by the database as they were generated")
+  @Test
+  void storedInGenerationOrder() {
+    SteppingClock clock = new SteppingClock(0x0190_0000_007eL, 300);
+    TimeOrderedIdGenerator idGenerator = new TimeOrderedIdGenerator(clock);
+    List<UUID> generated = new ArrayList<>();
+    for (int i = 0; i < 1200; i++) {
+      generated.add(idGenerator.generateId());
+    }
+    List<UUID> shuffled = new ArrayList<>(generated);
+    Collections.shuffle(shuffled, new Random(42));
+    shuffled.forEach(
+        identifier ->
+            entityManager.persist(
+                new Book(
+                    identifier,
+                    "9780132350884",
+                    "title",
+                    "description",
+                    new HashSet<>(Collections.singleton("author")))));
+    entityManager.flush();
+
+    List<UUID> stored =
+        entityManager
+            .getEntityManager()
+            .createQuery(
+                "select b.identifier from Book b where b.identifier in :identifiers"
+                    + " order by b.identifier",
+                UUID.class)
+            .setParameter("identifiers", generated)
+            .getResultList();
+
+    assertThat(stored).containsExactlyElementsOf(generated);
+  }
+
+  /** Advances by one millisecond after the given number of reads. */
+  private static final class SteppingClock extends Clock {
+
+    private final int readsPerMillisecond;
+    private long millis;
+    private int reads;
+
+    private SteppingClock(long millis, int readsPerMillisecond) {
+      this.millis = millis;
+      this.readsPerMillisecond = readsPerMillisecond;
+    }
+
+    @Override
+    public long millis() {
+      if (reads++ == readsPerMillisecond) {
+        reads = 1;
+        millis++;
+      }
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.example.libraryserver.common.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Verify read-only routing data source")
+class ReadOnlyRoutingDataSourceTest {
+
+  private final DataSource primary = database("primary");
+  private final List<DataSource> replicas =
+      Arrays.asList(database("replica1"), database("replica2"));
+
+  private ReadOnlyRoutingDataSource routingDataSource;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setup() {
+    routingDataSource = new ReadOnlyRoutingDataSource(primary, replicas);
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  @AfterEach
+  void shutdown() {
+    for (DataSource dataSource : Arrays.asList(primary, replicas.get(0), replicas.get(1))) {
+      new JdbcTemplate(dataSource).execute("drop table node");
+    }
+  }
+
+  @DisplayName("sends read-only transactions to the replicas in turn")
+  @Test
+  void readOnly() {
+    transactionTemplate.setReadOnly(true);
+
+    assertThat(nodeInTransaction()).isEqualTo("replica1");
+    assertThat(nodeInTransaction()).isEqualTo("replica2");
+    assertThat(nodeInTransaction()).isEqualTo("replica1");
+  }
+
+  @DisplayName("sends read-write transactions and statements without transaction to the primary")
+  @Test
+  void readWrite() {
+    assertThat(nodeInTransaction()).isEqualTo("primary");
+    assertThat(node()).isEqualTo("primary");
+  }
+
+  @DisplayName("sends everything to the primary without replicas")
+  @Test
+  void withoutReplicas() {
+    routingDataSource = new ReadOnlyRoutingDataSource(primary, List.of());
+    DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    transactionTemplate.setReadOnly(true);
+
+    assertThat(nodeInTransaction()).isEqualTo("primary");
+  }
+
+  private String nodeInTransaction() {
+    return transactionTemplate.execute(status -> node());
+  }
+
+  private String node() {
+    return jdbcTemplate.queryForObject("select name from node", String.class);
+  }
+
+  private static DataSource database(String name) {
+    DataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table node (name varchar(20))");
+    jdbcTemplate.update("insert into node (name) values (?)", name);
+    return dataSource;
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.libraryserver.common.data;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Verify time ordered id generator")
+class TimeOrderedIdGeneratorTest {
+
+  private static final Instant NOW = Instant.parse("2021-06-01T10:15:30.123Z");
+
+  @DisplayName("generates version 7 identifiers holding the timestamp")
+  @Test
+  void versionAndTimestamp() {
+    TimeOrderedIdGenerator cut = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    UUID identifier = cut.generateId();
+
+    assertThat(identifier.version()).isEqualTo(7);
+    assertThat(identifier.variant()).isEqualTo(2);
+    assertThat(identifier.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli());
+  }
+
+  @DisplayName("orders identifiers of the same millisecond and beyond counter overflow")
+  @Test
+  void ordered() {
+    TimeOrderedIdGenerator cut = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    UUID previous = cut.generateId();
+    for (int i = 0; i < 10_000; i++) {
+      UUID next = cut.generateId();
+      assertThat(next.getMostSignificantBits()).isGreaterThan(previous.getMostSignificantBits());
+      assertThat(next.version()).isEqualTo(7);
+      previous = next;
+    }
+  }
+
+  @DisplayName("generates unique identifiers ordered per thread for concurrent threads")
+  @Test
+  void concurrent() throws Exception {
+    TimeOrderedIdGenerator cut = new TimeOrderedIdGenerator();
+    Set<UUID> identifiers = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(64);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 64; t++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  UUID previous = cut.generateId();
+                  boolean ordered = identifiers.add(previous);
+                  for (int i = 0; i < 10_000; i++) {
+                    UUID next = cut.generateId();
+                    ordered &= next.compareTo(previous) > 0 && identifiers.add(next);
+                    previous = next;
+                  }
+                  return ordered;
+                }));
+      }
+      for (Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(identifiers).hasSize(64 * 10_001);
+  }
+}
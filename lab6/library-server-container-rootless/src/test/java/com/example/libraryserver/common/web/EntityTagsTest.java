@@ -0,0 +1,47 @@
+package com.example.libraryserver.common.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Entity tags")
+class EntityTagsTest {
+
+  @DisplayName("change with the version and the identity of a related entity")
+  @Test
+  void relatedEntity() {
+    UUID related = UUID.randomUUID();
+
+    assertThat(EntityTags.of(3L, null, null)).isEqualTo(EntityTags.of(3L)).isEqualTo("\"3\"");
+    assertThat(EntityTags.of(3L, related, 1L))
+        .isNotEqualTo(EntityTags.of(3L))
+        .isNotEqualTo(EntityTags.of(3L, related, 2L))
+        .isNotEqualTo(EntityTags.of(3L, UUID.randomUUID(), 1L))
+        .isNotEqualTo(EntityTags.of(4L, related, 1L));
+  }
+
+  @DisplayName("match strongly for If-Match")
+  @Test
+  void strongComparison() {
+    assertThat(EntityTags.matches("\"3\"", "\"3\"")).isTrue();
+    assertThat(EntityTags.matches("\"1\", \"3\"", "\"3\"")).isTrue();
+    assertThat(EntityTags.matches("*", "\"3\"")).isTrue();
+    assertThat(EntityTags.matches("W/\"3\"", "\"3\"")).isFalse();
+    assertThat(EntityTags.matches("\"4\"", "\"3\"")).isFalse();
+    assertThat(EntityTags.matches(null, "\"3\"")).isFalse();
+  }
+
+  @DisplayName("match weakly for If-None-Match")
+  @Test
+  void weakComparison() {
+    assertThat(EntityTags.matchesWeakly("\"3\"", "\"3\"")).isTrue();
+    assertThat(EntityTags.matchesWeakly("W/\"3\"", "\"3\"")).isTrue();
+    assertThat(EntityTags.matchesWeakly("\"1\", W/\"3\"", "\"3\"")).isTrue();
+    assertThat(EntityTags.matchesWeakly("*", "\"3\"")).isTrue();
+    assertThat(EntityTags.matchesWeakly("W/\"4\"", "\"3\"")).isFalse();
+    assertThat(EntityTags.matchesWeakly(null, "\"3\"")).isFalse();
+  }
+}
@@ -0,0 +1,94 @@
+package com.example.libraryserver.common.web;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.owasp.encoder.Encode;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("HTML and JavaScript encoder")
+class HtmlJavaScriptEncoderTest {
+
+  private static final String SPECIAL =
+      "<>&\"'/\\`=-+%#\t\r\n\u0000\u007f\u0085\u00a0\u2028\u2029\ufdd0\ufffe";
+
+  private static String owasp(String value) {
+    return Encode.forJavaScript(Encode.forHtml(value));
+  }
+
+  @DisplayName("returns input without special characters unchanged")
+  @Test
+  void fastPath() {
+    String input = "Clean Code: A Handbook of Agile Software Craftsmanship";
+    assertThat(HtmlJavaScriptEncoder.encode(input)).isSameAs(input);
+    assertThat(HtmlJavaScriptEncoder.encode("")).isEmpty();
+  }
+
+  @DisplayName("encodes every single code point like OWASP encoder")
+  @Test
+  void everyCharacter() {
+    for (int c = Character.MIN_VALUE; c <= Character.MAX_VALUE; c++) {
+      String input = "a" + (char) c + "b";
+      assertThat(HtmlJavaScriptEncoder.encode(input)).as("U+%04X", c).isEqualTo(owasp(input));
+    }
+    for (int c = Character.MIN_SUPPLEMENTARY_CODE_POINT; c <= Character.MAX_CODE_POINT; c++) {
+      String input = new StringBuilder("a").appendCodePoint(c).append('b').toString();
+      assertThat(HtmlJavaScriptEncoder.encode(input)).as("U+%04X", c).isEqualTo(owasp(input));
+    }
+  }
+
+  @DisplayName("encodes surrogates and null like OWASP encoder")
+  @Test
+  void surrogates() {
+    for (String input :
+        new String[] {
+          "\uD83D\uDE00",
+          "x\uD83D",
+          "\uDE00x",
+          "\uDE00\uD83D",
+          "\uD83D\uD83D\uDE00",
+          "<\uD83D>",
+          null
+        }) {
+      assertThat(HtmlJavaScriptEncoder.encode(input)).isEqualTo(owasp(input));
+    }
+  }
+
+  @DisplayName("encodes consecutive inputs of any length independently")
+  @Test
+  void reusedBuffer() {
+    String large = "<a href=\"x\">".repeat(4_000);
+    assertThat(HtmlJavaScriptEncoder.encode(large)).isEqualTo(owasp(large));
+    assertThat(HtmlJavaScriptEncoder.encode("a<b")).isEqualTo(owasp("a<b"));
+    assertThat(HtmlJavaScriptEncoder.encode("\u2028")).isEqualTo(owasp("\u2028"));
+    assertThat(HtmlJavaScriptEncoder.encode("c&d")).isEqualTo(owasp("c&d"));
+  }
+
+  @DisplayName("encodes random strings like OWASP encoder")
+  @Test
+  void randomStrings() {
+    Random random = new Random(4711);
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder input = new StringBuilder();
+      int length = random.nextInt(40);
+      for (int j = 0; j < length; j++) {
+        int kind = random.nextInt(10);
+        if (kind < 5) {
+          input.append((char) (' ' + random.nextInt(95)));
+        } else if (kind < 7) {
+          input.append(SPECIAL.charAt(random.nextInt(SPECIAL.length())));
+        } else if (kind < 8) {
+          input.append((char) random.nextInt(0x800));
+        } else if (kind < 9) {
+          input.appendCodePoint(0x10000 + random.nextInt(0x10000));
+        } else {
+          input.append((char) (Character.MIN_SURROGATE + random.nextInt(0x800)));
+        }
+      }
+      String value = input.toString();
+      assertThat(HtmlJavaScriptEncoder.encode(value)).as(value).isEqualTo(owasp(value));
+    }
+  }
+}
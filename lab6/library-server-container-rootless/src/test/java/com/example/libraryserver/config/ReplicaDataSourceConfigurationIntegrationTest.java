@@ -0,0 +1,64 @@
+package com.example.libraryserver.config;
+
+import com.example.libraryserver.book.service.BookService;
+import com.example.libraryserver.common.data.ReadOnlyRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:replicated;DB_CLOSE_DELAY=-1",
+      "library.datasource.replica-urls=jdbc:h2:mem:replicated;DB_CLOSE_DELAY=-1",
+      "spring.datasource.hikari.maximum-pool-size=4",
+      "spring.datasource.hikari.connection-timeout=5000",
+      "spring.datasource.hikari.pool-name=ignored",
+      "library.datasource.pools.replica-1.maximum-pool-size=6"
+    })
+@DirtiesContext
+@ActiveProfiles("test")
+@DisplayName("Replica data source configuration")
+class ReplicaDataSourceConfigurationIntegrationTest {
+
+  @Autowired private BookService bookService;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private ReadOnlyRoutingDataSource routingDataSource;
+
+  @DisplayName("reads books from the replica and publishes metrics per pool")
+  @WithMockUser(roles = "LIBRARY_USER")
+  @Test
+  void readFromReplica() {
+    assertThat(bookService.findPage(null, null, 10).getBooks()).isNotEmpty();
+
+    assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "primary").gauge())
+        .isNotNull();
+    assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-1").gauge().value())
+        .isPositive();
+  }
+
+  @DisplayName("configures all pools with the hikari settings and a replica with its overrides")
+  @Test
+  void poolSettings() {
+    HikariDataSource primary =
+        (HikariDataSource) routingDataSource.getResolvedDataSources().get("primary");
+    HikariDataSource replica =
+        (HikariDataSource) routingDataSource.getResolvedDataSources().get("replica-1");
+
+    assertThat(primary.getPoolName()).isEqualTo("primary");
+    assertThat(primary.getMaximumPoolSize()).isEqualTo(4);
+    assertThat(primary.getConnectionTimeout()).isEqualTo(5000);
+    assertThat(primary.isReadOnly()).isFalse();
+    assertThat(replica.getPoolName()).isEqualTo("replica-1");
+    assertThat(replica.getMaximumPoolSize()).isEqualTo(6);
+    assertThat(replica.getConnectionTimeout()).isEqualTo(5000);
+    assertThat(replica.isReadOnly()).isTrue();
+  }
+}
@@ -0,0 +1,74 @@
+package com.example.libraryserver.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Verify API authorization rules")
+class ApiAuthorizationManagerTest {
+
+  private static final String[] ROLES = {
+    "LIBRARY_USER", "LIBRARY_CURATOR", "LIBRARY_ADMIN", "LIBRARY_ACTUATOR"
+  };
+
+  private final ApiAuthorizationManager cut = new ApiAuthorizationManager();
+
+  private boolean granted(String method, String path, Authentication authentication) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+    request.setServletPath(path);
+    return cut.check(() -> authentication, new RequestAuthorizationContext(request)).isGranted();
+  }
+
+  @DisplayName("grants requests only to the expected role")
+  @ParameterizedTest(name = "{0} {1} requires {2}")
+  @CsvSource({
+    "GET, /books, ",
+    "GET, /books/, ",
+    "GET, /books/search, ",
+    "GET, /books/b1, ",
+    "POST, /books, LIBRARY_CURATOR",
+    "POST, /books/, LIBRARY_CURATOR",
+    "POST, /books/batch, LIBRARY_CURATOR",
+    "PUT, /books/b1, LIBRARY_CURATOR",
+    "DELETE, /books/b1, LIBRARY_CURATOR",
+    "DELETE, //books//b1/, LIBRARY_CURATOR",
+    "POST, /books/b1/borrow/u1, LIBRARY_USER",
+    "POST, /books/b1/return/u1, LIBRARY_USER",
+    "POST, /books/b1/borrow/u1/, LIBRARY_USER",
+    "POST, /books/b1/lend/u1, ",
+    "POST, /books;jsessionid=s1, LIBRARY_CURATOR",
+    "GET, /users, LIBRARY_ADMIN",
+    "POST, /users, LIBRARY_ADMIN",
+    "GET, /users/, LIBRARY_ADMIN",
+    "GET, /users/u1, LIBRARY_ADMIN",
+    "DELETE, /users/u1, LIBRARY_ADMIN",
+    "POST, /token, "
+  })
+  void rules(String method, String path, String requiredRole) {
+    assertThat(
+            granted(
+                method,
+                path,
+                new AnonymousAuthenticationToken(
+                    "key", "anonymous", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"))))
+        .isFalse();
+    for (String role : ROLES) {
+      assertThat(
+              granted(
+                  method,
+                  path,
+                  new TestingAuthenticationToken(
+                      "user", "secret", AuthorityUtils.createAuthorityList("ROLE_" + role))))
+          .as(role)
+          .isEqualTo(requiredRole == null || requiredRole.equals(role));
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.libraryserver.security;
+
+import com.example.libraryserver.user.data.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.util.SerializationUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DisplayName("Authenticated user")
+class AuthenticatedUserTest {
+
+  private final User user =
+      new User(
+          "Hans",
+          "Test",
+          "test@example.com",
+          "secret",
+          new HashSet<>(Arrays.asList("LIBRARY_USER", "LIBRARY_CURATOR", "ROLE_LIBRARY_ADMIN")));
+
+  @DisplayName("computes ROLE_ authorities once")
+  @Test
+  void authorities() {
+    AuthenticatedUser cut = new AuthenticatedUser(user);
+
+    assertThat(AuthorityUtils.authorityListToSet(cut.getAuthorities()))
+        .containsExactlyInAnyOrder(
+            "ROLE_LIBRARY_USER", "ROLE_LIBRARY_CURATOR", "ROLE_LIBRARY_ADMIN");
+    assertThat(cut.getAuthorities()).isSameAs(cut.getAuthorities());
+  }
+
+  @DisplayName("checks roles")
+  @Test
+  void hasRole() {
+    AuthenticatedUser cut = new AuthenticatedUser(user);
+
+    assertThat(cut.hasRole("LIBRARY_USER")).isTrue();
+    assertThat(cut.hasRole("LIBRARY_CURATOR")).isTrue();
+    assertThat(cut.hasRole("LIBRARY_ACTUATOR")).isFalse();
+  }
+
+  @DisplayName("is not affected by changes of the user")
+  @Test
+  void immutable() {
+    AuthenticatedUser cut = new AuthenticatedUser(user);
+    user.setEmail("changed@example.com");
+    user.getRoles().add("LIBRARY_ACTUATOR");
+
+    assertThat(cut.getUsername()).isEqualTo("test@example.com");
+    assertThat(cut.hasRole("LIBRARY_ACTUATOR")).isFalse();
+    assertThatExceptionOfType(UnsupportedOperationException.class)
+        .isThrownBy(() -> cut.getRoles().add("LIBRARY_ACTUATOR"));
+    @SuppressWarnings("unchecked")
+    List<GrantedAuthority> authorities = (List<GrantedAuthority>) cut.getAuthorities();
+    assertThatExceptionOfType(UnsupportedOperationException.class)
+        .isThrownBy(authorities::clear);
+  }
+
+  @DisplayName("restores all attributes and authorities when deserialized")
+  @Test
+  void serialization() {
+    AuthenticatedUser cut =
+        new AuthenticatedUser(
+            4711L,
+            UUID.randomUUID(),
+            "Hans",
+            "Test",
+            "test@example.com",
+            Arrays.asList("LIBRARY_USER", "LIBRARY_CURATOR"));
+
+    AuthenticatedUser restored =
+        (AuthenticatedUser) SerializationUtils.deserialize(SerializationUtils.serialize(cut));
+
+    assertThat(restored).isEqualTo(cut).isNotSameAs(cut);
+    assertThat(restored)
+        .extracting(
+            AuthenticatedUser::getId,
+            AuthenticatedUser::getIdentifier,
+            AuthenticatedUser::getFirstName,
+            AuthenticatedUser::getLastName,
+            AuthenticatedUser::getPassword,
+            AuthenticatedUser::getRoles)
+        .containsExactly(
+            cut.getId(),
+            cut.getIdentifier(),
+            "Hans",
+            "Test",
+            null,
+            List.of("LIBRARY_CURATOR", "LIBRARY_USER"));
+    assertThat(restored.getAuthorities()).isEqualTo(cut.getAuthorities());
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.libraryserver.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+
+@DisplayName("Verify caching password encoder")
+class CachingPasswordEncoderTest {
+
+  private final PasswordEncoder delegate = spy(new BCryptPasswordEncoder(4));
+  private final CachingPasswordEncoder cut = new CachingPasswordEncoder(delegate);
+
+  @DisplayName("verifies matching credentials only once")
+  @Test
+  void matchesCached() {
+    String encoded = cut.encode("secret");
+
+    assertThat(cut.matches("secret", encoded)).isTrue();
+    assertThat(cut.matches("secret", encoded)).isTrue();
+    assertThat(cut.matches(new StringBuilder("secret"), encoded)).isTrue();
+
+    then(delegate).should(times(1)).matches(any(), anyString());
+  }
+
+  @DisplayName("always verifies wrong passwords")
+  @Test
+  void mismatchNotCached() {
+    String encoded = cut.encode("secret");
+
+    assertThat(cut.matches("wrong", encoded)).isFalse();
+    assertThat(cut.matches("wrong", encoded)).isFalse();
+
+    then(delegate).should(times(2)).matches(any(), anyString());
+  }
+
+  @DisplayName("verifies again after the password has been changed")
+  @Test
+  void passwordChanged() {
+    String encoded = cut.encode("secret");
+    String changed = cut.encode("secret");
+
+    assertThat(cut.matches("secret", encoded)).isTrue();
+    assertThat(cut.matches("secret", changed)).isTrue();
+    assertThat(cut.matches("other", cut.encode("other"))).isTrue();
+
+    then(delegate).should(times(3)).matches(any(), anyString());
+  }
+
+  @DisplayName("does not change the stored hash format")
+  @Test
+  void encodeDelegates() {
+    String encoded = cut.encode("secret");
+
+    assertThat(delegate.matches("secret", encoded)).isTrue();
+    assertThat(cut.upgradeEncoding(encoded)).isFalse();
+  }
+}
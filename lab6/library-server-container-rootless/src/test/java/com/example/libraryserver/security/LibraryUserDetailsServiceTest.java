@@ -1,11 +1,13 @@
 package com.example.libraryserver.security;
 
 import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.service.UserChangedEvent;
 import com.example.libraryserver.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,11 +15,15 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
 
 @DisplayName("Verify UserDetailsService")
 @ExtendWith(MockitoExtension.class)
@@ -25,7 +31,14 @@ class LibraryUserDetailsServiceTest {
 
   @Mock private UserService userService;
 
-  @InjectMocks private LibraryUserDetailsService cut;
+  private final AuthenticatedUserCache authenticatedUserCache = new AuthenticatedUserCache();
+
+  private LibraryUserDetailsService cut;
+
+  @BeforeEach
+  void setup() {
+    cut = new LibraryUserDetailsService(userService, authenticatedUserCache);
+  }
 
   @DisplayName("can load existing user")
   @Test
@@ -83,4 +96,130 @@ class LibraryUserDetailsServiceTest {
         .withMessage("No user found for test@example.com")
         .withNoCause();
   }
+
+  @DisplayName("loads a user only once")
+  @Test
+  void loadUserByUsernameCached() {
+    User user =
+        new User(
+            UUID.randomUUID(),
+            "Hans",
+            "Test",
+            "test@example.com",
+            "secret",
+            Collections.singleton("USER"));
+    given(userService.findOneByEmail("test@example.com")).willReturn(Optional.of(user));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    authenticatedUserCache.bindTo(registry);
+
+    UserDetails userDetails = cut.loadUserByUsername("test@example.com");
+
+    assertThat(cut.loadUserByUsername("test@example.com")).isSameAs(userDetails);
+    then(userService).should(times(1)).findOneByEmail("test@example.com");
+    assertThat(
+            registry
+                .get("cache.gets")
+                .tag("cache", AuthenticatedUserCache.NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count())
+        .isEqualTo(1);
+  }
+
+  @DisplayName("loads a user again after it has been changed")
+  @Test
+  void loadUserByUsernameAfterChange() {
+    User user =
+        new User(
+            UUID.randomUUID(),
+            "Hans",
+            "Test",
+            "test@example.com",
+            "secret",
+            Collections.singleton("USER"));
+    given(userService.findOneByEmail("test@example.com")).willReturn(Optional.of(user));
+
+    cut.loadUserByUsername("test@example.com");
+    authenticatedUserCache.onUserChanged(new UserChangedEvent(UUID.randomUUID()));
+    cut.loadUserByUsername("test@example.com");
+    authenticatedUserCache.onUserChanged(new UserChangedEvent(user.getIdentifier()));
+    cut.loadUserByUsername("test@example.com");
+
+    then(userService).should(times(2)).findOneByEmail("test@example.com");
+  }
+
+  @DisplayName("loads a user again if it was changed while loading")
+  @Test
+  void loadUserByUsernameChangedWhileLoading() {
+    User user =
+        new User(
+            UUID.randomUUID(),
+            "Hans",
+            "Test",
+            "test@example.com",
+            "secret",
+            Collections.singleton("USER"));
+    AtomicBoolean changeWhileLoading = new AtomicBoolean(true);
+    given(userService.findOneByEmail("test@example.com"))
+        .willAnswer(
+            invocation -> {
+              if (changeWhileLoading.getAndSet(false)) {
+                authenticatedUserCache.onUserChanged(new UserChangedEvent(user.getIdentifier()));
+              }
+              return Optional.of(user);
+            });
+
+    cut.loadUserByUsername("test@example.com");
+    cut.loadUserByUsername("test@example.com");
+    cut.loadUserByUsername("test@example.com");
+
+    then(userService).should(times(2)).findOneByEmail("test@example.com");
+  }
+
+  @DisplayName("does not remember users that do not exist")
+  @Test
+  void loadUserByUsernameNotFoundNotCached() {
+    given(userService.findOneByEmail(any())).willReturn(Optional.empty());
+
+    assertThatExceptionOfType(UsernameNotFoundException.class)
+        .isThrownBy(() -> cut.loadUserByUsername("test@example.com"));
+    assertThatExceptionOfType(UsernameNotFoundException.class)
+        .isThrownBy(() -> cut.loadUserByUsername("test@example.com"));
+    then(userService).should(times(2)).findOneByEmail("test@example.com");
+  }
+
+  @DisplayName("loads the user of a token by identifier only once and evicts it after a change")
+  @Test
+  void loadUserByIdentifierCached() {
+    User user =
+        new User(
+            UUID.randomUUID(),
+            "Hans",
+            "Test",
+            "test@example.com",
+            "secret",
+            Collections.singleton("USER"));
+    given(userService.findOneForAuthentication(user.getIdentifier())).willReturn(Optional.of(user));
+
+    AuthenticatedUser authenticatedUser =
+        cut.loadUserByIdentifier(user.getIdentifier()).orElseThrow();
+
+    assertThat(cut.loadUserByIdentifier(user.getIdentifier())).containsSame(authenticatedUser);
+    assertThat(cut.loadUserByUsername("test@example.com")).isSameAs(authenticatedUser);
+    authenticatedUserCache.onUserChanged(new UserChangedEvent(user.getIdentifier()));
+    assertThat(cut.loadUserByIdentifier(user.getIdentifier())).isPresent();
+    then(userService).should(times(2)).findOneForAuthentication(user.getIdentifier());
+    then(userService).shouldHaveNoMoreInteractions();
+  }
+
+  @DisplayName("does not find the user of a token after it has been deleted")
+  @Test
+  void loadUserByIdentifierNotFound() {
+    UUID identifier = UUID.randomUUID();
+    given(userService.findOneForAuthentication(identifier)).willReturn(Optional.empty());
+
+    assertThat(cut.loadUserByIdentifier(identifier)).isEmpty();
+    assertThat(cut.loadUserByIdentifier(identifier)).isEmpty();
+    then(userService).should(times(2)).findOneForAuthentication(identifier);
+  }
 }
@@ -0,0 +1,155 @@
+package com.example.libraryserver.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Verify password hashing executor")
+class PasswordHashingExecutorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final PasswordHashingExecutor cut =
+      new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(3));
+
+  @AfterEach
+  void shutdown() {
+    cut.destroy();
+  }
+
+  @DisplayName("hashes passwords with the delegate")
+  @Test
+  void encodes() {
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), cut);
+    cut.bindTo(registry);
+
+    String encoded = encoder.encode("secret");
+
+    assertThat(encoder.matches("secret", encoded)).isTrue();
+    assertThat(encoder.matches("wrong", encoded)).isFalse();
+    assertThat(registry.get("password.hashing.wait").timer().count()).isEqualTo(3);
+  }
+
+  @DisplayName("rejects tasks immediately if the queue is full")
+  @Test
+  void rejectsWhenSaturated() throws Exception {
+    cut.bindTo(registry);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> running =
+        CompletableFuture.supplyAsync(
+            () ->
+                cut.execute(
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      return "running";
+                    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> queued =
+        CompletableFuture.supplyAsync(() -> cut.execute(() -> "queued"));
+    while (registry.get("password.hashing.queue").gauge().value() < 1) {
+      Thread.onSpinWait();
+    }
+
+    assertThatThrownBy(() -> cut.execute(() -> "rejected"))
+        .isInstanceOf(PasswordHashingRejectedException.class)
+        .extracting("retryAfterSeconds")
+        .isEqualTo(3L);
+    assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+    assertThat(registry.get("password.hashing.active").gauge().value()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("running");
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+  }
+
+  @DisplayName("rejects tasks taking longer than the maximum wait time")
+  @Test
+  void rejectsAfterMaxWait() {
+    PasswordHashingExecutor executor =
+        new PasswordHashingExecutor(1, 1, Duration.ofMillis(50), Duration.ofSeconds(3));
+    executor.bindTo(registry);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      assertThatThrownBy(
+              () ->
+                  executor.execute(
+                      () -> {
+                        await(release);
+                        return "slow";
+                      }))
+          .isInstanceOf(PasswordHashingRejectedException.class)
+          .extracting("retryAfterSeconds")
+          .isEqualTo(3L);
+      assertThat(registry.get("password.hashing.timeouts").counter().count()).isEqualTo(1);
+      assertThat(executor.execute(() -> "next")).isEqualTo("next");
+    } finally {
+      release.countDown();
+      executor.destroy();
+    }
+  }
+
+  @DisplayName("returns submitted tasks before they are done and rejects them after the wait")
+  @Test
+  void submitsWithoutWaiting() throws Exception {
+    PasswordHashingExecutor executor =
+        new PasswordHashingExecutor(1, 1, Duration.ofMillis(200), Duration.ofSeconds(3));
+    executor.bindTo(registry);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<String> released =
+          executor.submit(
+              () -> {
+                await(release);
+                return "released";
+              });
+      assertThat(released).isNotDone();
+      release.countDown();
+      assertThat(released.get(5, TimeUnit.SECONDS)).isEqualTo("released");
+
+      CompletableFuture<String> slow =
+          executor.submit(
+              () -> {
+                await(new CountDownLatch(1));
+                return "slow";
+              });
+      assertThatThrownBy(() -> slow.get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(PasswordHashingRejectedException.class);
+      assertThat(registry.get("password.hashing.timeouts").counter().count()).isEqualTo(1);
+      assertThat(executor.submit(() -> "next").get(5, TimeUnit.SECONDS)).isEqualTo("next");
+    } finally {
+      executor.destroy();
+    }
+  }
+
+  @DisplayName("propagates exceptions of the task")
+  @Test
+  void propagatesExceptions() {
+    assertThatThrownBy(
+            () ->
+                cut.execute(
+                    () -> {
+                      throw new IllegalArgumentException("invalid hash");
+                    }))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("invalid hash");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.example.libraryserver.security;
 import com.example.libraryserver.config.PasswordValidationConfiguration;
 import com.example.libraryserver.user.service.InvalidPasswordError;
 import com.example.libraryserver.user.service.PasswordValidationService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +32,11 @@ public class PasswordValidationTest {
     this.passwordValidationService = passwordValidationService;
   }
 
+  @BeforeEach
+  void awaitPasswordList() {
+    passwordValidationService.reload().join();
+  }
+
   @Test
   @DisplayName("succeeds for valid password")
   void verifyValidPassword() {
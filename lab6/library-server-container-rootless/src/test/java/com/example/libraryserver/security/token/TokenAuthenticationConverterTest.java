@@ -0,0 +1,97 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.security.AuthenticatedUser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@DisplayName("Verify token authentication converter")
+class TokenAuthenticationConverterTest {
+
+  private final UUID identifier = UUID.randomUUID();
+
+  private Jwt token(String subject) {
+    return Jwt.withTokenValue("token")
+        .header("alg", "HS256")
+        .subject(subject)
+        .claim(TokenService.EMAIL_CLAIM, "test@example.com")
+        .claim(TokenService.GIVEN_NAME_CLAIM, "Hans")
+        .claim(TokenService.FAMILY_NAME_CLAIM, "Test")
+        .claim(TokenService.ROLES_CLAIM, Arrays.asList("LIBRARY_USER", "LIBRARY_CURATOR"))
+        .build();
+  }
+
+  @DisplayName("restores the user and its authorities from the claims alone")
+  @Test
+  void convertFromClaims() {
+    TokenAuthentication authentication =
+        new TokenAuthenticationConverter().convert(token(identifier.toString()));
+
+    assertThat(authentication.getPrincipal())
+        .isInstanceOfSatisfying(
+            AuthenticatedUser.class,
+            u -> {
+              assertThat(u.getId()).isNull();
+              assertThat(u.getIdentifier()).isEqualTo(identifier);
+              assertThat(u.getUsername()).isEqualTo("test@example.com");
+            });
+    assertThat(authentication.getAuthorities())
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactlyInAnyOrder("ROLE_LIBRARY_USER", "ROLE_LIBRARY_CURATOR");
+  }
+
+  @DisplayName("looks up the user of the token if configured")
+  @Test
+  void convertWithUserLookup() {
+    AuthenticatedUser user =
+        new AuthenticatedUser(
+            4711L,
+            identifier,
+            "Hans",
+            "Test",
+            "test@example.com",
+            Collections.singletonList("LIBRARY_USER"));
+    AtomicInteger lookups = new AtomicInteger();
+    TokenAuthenticationConverter cut =
+        new TokenAuthenticationConverter(
+            i -> {
+              lookups.incrementAndGet();
+              return Optional.of(user).filter(u -> u.getIdentifier().equals(i));
+            });
+
+    TokenAuthentication authentication = cut.convert(token(identifier.toString()));
+
+    assertThat(authentication.getPrincipal()).isSameAs(user);
+    assertThat(authentication.getAuthorities())
+        .extracting(GrantedAuthority::getAuthority)
+        .containsExactly("ROLE_LIBRARY_USER");
+    assertThat(lookups).hasValue(1);
+  }
+
+  @DisplayName("rejects the token of a deleted user if users are looked up")
+  @Test
+  void convertDeletedUser() {
+    TokenAuthenticationConverter cut = new TokenAuthenticationConverter(i -> Optional.empty());
+
+    assertThatExceptionOfType(InvalidBearerTokenException.class)
+        .isThrownBy(() -> cut.convert(token(identifier.toString())));
+  }
+
+  @DisplayName("rejects a token without an identifier as subject")
+  @Test
+  void convertInvalidSubject() {
+    assertThatExceptionOfType(InvalidBearerTokenException.class)
+        .isThrownBy(() -> new TokenAuthenticationConverter().convert(token("test@example.com")));
+  }
+}
@@ -0,0 +1,245 @@
+package com.example.libraryserver.security.token;
+
+import com.example.libraryserver.DataInitializer;
+import com.example.libraryserver.user.web.CreateUserModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.restdocs.RestDocumentationContextProvider;
+import org.springframework.restdocs.RestDocumentationExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.documentationConfiguration;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.modifyUris;
+import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({SpringExtension.class, RestDocumentationExtension.class})
+@SpringBootTest(webEnvironment = MOCK, properties = "library.security.token.enabled=true")
+@DirtiesContext
+@ActiveProfiles("test")
+@DisplayName("Calling token rest api")
+class TokenRestControllerIntegrationTest {
+
+  @Autowired private WebApplicationContext context;
+  @Autowired private ObjectMapper objectMapper;
+  private MockMvc mvc;
+
+  @BeforeEach
+  void setup(RestDocumentationContextProvider restDocumentationContextProvider) {
+    mvc =
+        MockMvcBuilders.webAppContextSetup(context)
+            .apply(springSecurity())
+            .apply(
+                documentationConfiguration(restDocumentationContextProvider)
+                    .operationPreprocessors()
+                    .withRequestDefaults(prettyPrint(), modifyUris().port(9090))
+                    .withResponseDefaults(prettyPrint(), modifyUris().port(9090)))
+            .build();
+  }
+
+  private String token(String username, String password) throws Exception {
+    String content =
+        mvc.perform(post("/token").with(httpBasic(username, password)))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return JsonPath.read(content, "$.access_token");
+  }
+
+  @Nested
+  @DisplayName("succeeds")
+  class PositiveTests {
+
+    @Test
+    @DisplayName("in creating a token")
+    void createToken() throws Exception {
+      mvc.perform(post("/token").with(httpBasic("bruce.wayne@example.com", "wayne")))
+          .andExpect(status().isOk())
+          .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+          .andExpect(jsonPath("$.access_token").exists())
+          .andExpect(jsonPath("$.token_type").value("Bearer"))
+          .andExpect(jsonPath("$.expires_in").value(300))
+          .andDo(document("create-token"));
+    }
+
+    @Test
+    @DisplayName("in creating a token carrying the roles but not the database id of the user")
+    void createTokenWithRoles() throws Exception {
+      String token = token("bruce.wayne@example.com", "wayne");
+      String payload =
+          new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+      Map<String, Object> claims = JsonPath.read(payload, "$");
+
+      assertThat(claims)
+          .containsEntry("sub", DataInitializer.WAYNE_USER_IDENTIFIER.toString())
+          .containsEntry("roles", Collections.singletonList("LIBRARY_USER"))
+          .doesNotContainKey("id");
+    }
+
+    @Test
+    @DisplayName("in reading books with a token")
+    void getBooksWithToken() throws Exception {
+      String token = token("bruce.wayne@example.com", "wayne");
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isOk())
+          .andDo(document("get-book-with-token"));
+    }
+
+    @Test
+    @DisplayName("in borrowing a book with a token without csrf token")
+    void borrowBookWithToken() throws Exception {
+      String token = token("bruce.banner@example.com", "banner");
+      mvc.perform(
+              post(
+                      "/books/{bookIdentifier}/borrow/{userIdentifier}",
+                      DataInitializer.BOOK_DEVOPS_IDENTIFIER,
+                      DataInitializer.BANNER_USER_IDENTIFIER)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isOk())
+          .andExpect(
+              jsonPath("$.borrowedByUser.identifier")
+                  .value(DataInitializer.BANNER_USER_IDENTIFIER.toString()));
+    }
+
+    @Test
+    @DisplayName("in administering users with a token")
+    void getUsersWithToken() throws Exception {
+      String token = token("clark.kent@example.com", "kent");
+      mvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isOk());
+    }
+  }
+
+  @Nested
+  @DisplayName("fails")
+  class NegativeTests {
+
+    @Test
+    @DisplayName("in creating a token without credentials")
+    void createTokenUnauthorized() throws Exception {
+      mvc.perform(post("/token")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("in creating a token with wrong credentials")
+    void createTokenWrongPassword() throws Exception {
+      mvc.perform(post("/token").with(httpBasic("bruce.wayne@example.com", "wrong")))
+          .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("in creating a token with a token")
+    void createTokenWithToken() throws Exception {
+      String token = token("bruce.wayne@example.com", "wayne");
+      mvc.perform(post("/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("in reading books with a tampered token")
+    void getBooksWithTamperedToken() throws Exception {
+      String token = token("bruce.wayne@example.com", "wayne");
+      String[] parts = token.split("\\.");
+      String tampered =
+          parts[0]
+              + "."
+              + parts[1].substring(0, parts[1].length() - 2)
+              + (parts[1].endsWith("A") ? "BB" : "AA")
+              + "."
+              + parts[2];
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered))
+          .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("in borrowing a book with a still valid token of a deleted user")
+    void borrowBookWithTokenOfDeletedUser() throws Exception {
+      String adminToken = token("clark.kent@example.com", "kent");
+      CreateUserModel model =
+          new CreateUserModel(
+              "Peter",
+              "Deleted",
+              "peter.deleted@example.com",
+              "MySecret4Test",
+              Collections.singleton("LIBRARY_USER"));
+      MvcResult registration =
+          mvc.perform(
+                  post("/users")
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .content(objectMapper.writeValueAsString(model))
+                      .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+              .andExpect(request().asyncStarted())
+              .andReturn();
+      String content =
+          mvc.perform(asyncDispatch(registration))
+              .andExpect(status().isCreated())
+              .andReturn()
+              .getResponse()
+              .getContentAsString();
+      String userIdentifier = JsonPath.read(content, "$.identifier");
+      String token = token("peter.deleted@example.com", "MySecret4Test");
+      mvc.perform(
+              get("/books/{bookIdentifier}", DataInitializer.BOOK_CLEAN_CODE_IDENTIFIER)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isOk());
+
+      mvc.perform(
+              delete("/users/{userIdentifier}", userIdentifier)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+          .andExpect(status().isNoContent());
+
+      mvc.perform(
+              post(
+                      "/books/{bookIdentifier}/borrow/{userIdentifier}",
+                      DataInitializer.BOOK_CLOUD_NATIVE_IDENTIFIER,
+                      userIdentifier)
+                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("in administering users with a token of a library user")
+    void getUsersWithTokenForbidden() throws Exception {
+      String token = token("bruce.wayne@example.com", "wayne");
+      mvc.perform(get("/users").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+          .andExpect(status().isForbidden());
+    }
+  }
+}
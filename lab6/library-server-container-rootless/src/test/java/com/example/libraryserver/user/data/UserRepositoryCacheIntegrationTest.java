@@ -0,0 +1,96 @@
+package com.example.libraryserver.user.data;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("User repository with second level cache")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryCacheIntegrationTest {
+
+  @Autowired private UserRepository cut;
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private UUID userIdentifier;
+
+  @BeforeEach
+  void setup() {
+    userIdentifier = UUID.randomUUID();
+    cut.save(
+        new User(
+            userIdentifier,
+            "Hans",
+            "Cache",
+            "cache@example.com",
+            "secret",
+            new HashSet<>(Arrays.asList("LIBRARY_USER", "LIBRARY_CURATOR"))));
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void cleanup() {
+    cut.deleteAll();
+  }
+
+  @DisplayName("loads a user by natural id without statements when loaded before")
+  @Test
+  void findOneByNaturalId() {
+    assertThat(cut.findOneByNaturalId(userIdentifier)).isPresent();
+    statistics.clear();
+
+    Optional<User> user = cut.findOneByNaturalId(userIdentifier);
+
+    assertThat(user).isPresent();
+    assertThat(user.get().getRoles()).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+  }
+
+  @DisplayName("loads a user by email without statements when loaded before")
+  @Test
+  void findOneByEmail() {
+    assertThat(cut.findOneByEmail("cache@example.com")).isPresent();
+    statistics.clear();
+
+    Optional<User> user = cut.findOneByEmail("cache@example.com");
+
+    assertThat(user).isPresent();
+    assertThat(user.get().getRoles()).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isZero();
+    assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+  }
+
+  @DisplayName("loads the changed user after an update")
+  @Test
+  void evictedOnUpdate() {
+    User user = cut.findOneByNaturalId(userIdentifier).orElseThrow();
+    user.setLastName("Changed");
+    cut.save(user);
+
+    assertThat(cut.findOneByNaturalId(userIdentifier))
+        .map(User::getLastName)
+        .contains("Changed");
+    assertThat(cut.findOneByEmail("cache@example.com"))
+        .map(User::getLastName)
+        .contains("Changed");
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.libraryserver.user.data;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("User repository")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class UserRepositoryIntegrationTest {
+
+  @Autowired private UserRepository cut;
+  @Autowired private TestEntityManager entityManager;
+
+  private Statistics statistics;
+  private UUID userIdentifier;
+
+  @BeforeEach
+  void setup() {
+    userIdentifier = UUID.randomUUID();
+    entityManager.persist(
+        new User(
+            userIdentifier,
+            "Hans",
+            "Test",
+            "test@example.com",
+            "secret",
+            new HashSet<>(Arrays.asList("LIBRARY_USER", "LIBRARY_CURATOR"))));
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics =
+        entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+            .getStatistics();
+    statistics.clear();
+  }
+
+  @DisplayName("loads a user with roles by identifier in one statement")
+  @Test
+  void findOneByIdentifier() {
+    Optional<User> user = cut.findOneByIdentifier(userIdentifier);
+
+    assertThat(user).isPresent();
+    assertThat(user.get().getRoles()).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @DisplayName("loads a user with roles by email in one statement")
+  @Test
+  void findOneByEmail() {
+    Optional<User> user = cut.findOneByEmail("test@example.com");
+
+    assertThat(user).isPresent();
+    assertThat(user.get().getRoles()).hasSize(2);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+  }
+
+  @DisplayName("loads users read-only without dirty checking")
+  @Test
+  void readOnly() {
+    Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+    User user = cut.findOneByEmail("test@example.com").orElseThrow();
+    user.setLastName("Changed");
+    entityManager.flush();
+
+    assertThat(session.isReadOnly(user)).isTrue();
+    assertThat(cut.findOneByIdentifier(userIdentifier)).get().matches(session::isReadOnly);
+    assertThat(cut.findAll()).isNotEmpty().allMatch(session::isReadOnly);
+    assertThat(statistics.getEntityUpdateCount()).isZero();
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.libraryserver.user.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.passay.DictionarySubstringRule;
+import org.passay.PasswordData;
+import org.passay.RuleResult;
+import org.passay.dictionary.ArrayWordList;
+import org.passay.dictionary.WordListDictionary;
+import org.passay.dictionary.sort.ArraysSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Aho-Corasick dictionary rule")
+class AhoCorasickDictionaryRuleTest {
+
+  private static final String ALPHABET = "abcAB12!ÄäßΣσς";
+
+  @DisplayName("finds the shortest and leftmost dictionary word")
+  @Test
+  void find() {
+    AhoCorasickDictionaryRule cut =
+        new AhoCorasickDictionaryRule(
+            Arrays.asList("password", "word", "pass", "sword", "123456", "", "PASS"), false);
+
+    assertThat(cut.size()).isEqualTo(5);
+    assertThat(cut.find("my!Secret4test")).isNull();
+    assertThat(cut.find("")).isNull();
+    assertThat(cut.find("xPassWord1")).isEqualTo("Pass");
+    assertThat(cut.find("passwor123456")).isEqualTo("pass");
+    assertThat(cut.find("12345sword123456")).isEqualTo("word");
+  }
+
+  @DisplayName("distinguishes case if case sensitive")
+  @Test
+  void caseSensitive() {
+    AhoCorasickDictionaryRule cut =
+        new AhoCorasickDictionaryRule(Arrays.asList("Password", "secret"), true);
+
+    assertThat(cut.find("myPassword")).isEqualTo("Password");
+    assertThat(cut.find("mypassword")).isNull();
+    assertThat(cut.find("mySECRET")).isNull();
+  }
+
+  @DisplayName("reports the same result as passay dictionary substring rule")
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void sameAsDictionarySubstringRule(boolean caseSensitive) {
+    Random random = new Random(4711);
+    for (int run = 0; run < 200; run++) {
+      List<String> words = new ArrayList<>();
+      for (int i = 0, count = 1 + random.nextInt(50); i < count; i++) {
+        words.add(randomString(random, 1 + random.nextInt(5)));
+      }
+      String[] array = words.toArray(new String[0]);
+      DictionarySubstringRule expected =
+          new DictionarySubstringRule(
+              new WordListDictionary(new ArrayWordList(array, caseSensitive, new ArraysSort())));
+      AhoCorasickDictionaryRule cut = new AhoCorasickDictionaryRule(words, caseSensitive);
+
+      for (int i = 0; i < 100; i++) {
+        PasswordData password = new PasswordData(randomString(random, random.nextInt(20)));
+        RuleResult result = cut.validate(password);
+        RuleResult expectedResult = expected.validate(password);
+
+        assertThat(result.isValid())
+            .as("%s in %s", password.getPassword(), words)
+            .isEqualTo(expectedResult.isValid());
+        assertThat(result.getDetails())
+            .usingElementComparatorOnFields("errorCodes", "parameters")
+            .as("%s in %s", password.getPassword(), words)
+            .containsExactlyElementsOf(expectedResult.getDetails());
+      }
+    }
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder value = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      value.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+    return value.toString();
+  }
+}
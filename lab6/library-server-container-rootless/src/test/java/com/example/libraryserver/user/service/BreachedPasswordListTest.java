@@ -0,0 +1,141 @@
+package com.example.libraryserver.user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@DisplayName("Breached password list")
+class BreachedPasswordListTest {
+
+  private static final String BREACHED_PASSWORD = "my!Secret4test";
+
+  @TempDir Path directory;
+
+  private final List<byte[]> hashes = new ArrayList<>();
+  private Path file;
+
+  private static byte[] sha1(String value) throws NoSuchAlgorithmException {
+    return MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String hex(byte[] hash) {
+    StringBuilder value = new StringBuilder();
+    for (byte b : hash) {
+      value.append(String.format("%02X", b));
+    }
+    return value.toString();
+  }
+
+  @BeforeEach
+  void setup() throws Exception {
+    Random random = new Random(4711);
+    TreeSet<String> lines = new TreeSet<>();
+    for (int i = 0; i < 20_000; i++) {
+      byte[] hash = new byte[BreachedPasswordList.HASH_LENGTH];
+      random.nextBytes(hash);
+      if (i % 1000 == 0) {
+        hash[0] = 0;
+        hash[1] = 0;
+      }
+      hashes.add(hash);
+      lines.add(hex(hash) + ":" + (1 + random.nextInt(100)));
+    }
+    hashes.add(sha1(BREACHED_PASSWORD));
+    lines.add(hex(sha1(BREACHED_PASSWORD)) + ":42");
+
+    file = directory.resolve("breached-passwords.bin");
+    BreachedPasswordList.write(
+        new BufferedReader(new StringReader(String.join("\n", lines))), file, 10);
+  }
+
+  @DisplayName("contains all written hashes")
+  @Test
+  void contains() throws IOException {
+    BreachedPasswordList cut = BreachedPasswordList.open(file);
+
+    assertThat(cut.size()).isEqualTo(hashes.size());
+    for (byte[] hash : hashes) {
+      assertThat(cut.contains(hash)).as(hex(hash)).isTrue();
+    }
+  }
+
+  @DisplayName("does not contain other hashes")
+  @Test
+  void doesNotContain() throws Exception {
+    BreachedPasswordList cut = BreachedPasswordList.open(file);
+    Random random = new Random(42);
+
+    for (int i = 0; i < 20_000; i++) {
+      byte[] hash = new byte[BreachedPasswordList.HASH_LENGTH];
+      random.nextBytes(hash);
+      assertThat(cut.contains(hash)).as(hex(hash)).isFalse();
+    }
+    assertThat(cut.contains(sha1("my!Secret4other"))).isFalse();
+    assertThat(cut.contains(new byte[BreachedPasswordList.HASH_LENGTH])).isFalse();
+  }
+
+  @DisplayName("rejects hashes that are not in ascending order")
+  @Test
+  void unordered() {
+    String lines = "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF\n0000000000000000000000000000000000000000";
+
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(
+            () ->
+                BreachedPasswordList.write(
+                    new BufferedReader(new StringReader(lines)),
+                    directory.resolve("unordered.bin"),
+                    10))
+        .withMessageContaining("ascending order");
+  }
+
+  @DisplayName("rejects invalid files")
+  @Test
+  void invalid() throws IOException {
+    Path truncated = directory.resolve("truncated.bin");
+    byte[] content = Files.readAllBytes(file);
+    Files.write(truncated, Arrays.copyOf(content, content.length - 1));
+
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> BreachedPasswordList.open(truncated))
+        .withMessageStartingWith("Invalid breached password list");
+  }
+
+  @DisplayName("rejects breached passwords in password validation")
+  @Test
+  void validation() throws IOException {
+    PasswordValidationService passwordValidationService =
+        new PasswordValidationService(BreachedPasswordList.open(file));
+    passwordValidationService.init();
+    passwordValidationService.reload().join();
+
+    passwordValidationService.validate("user", "my!Secret4other");
+    InvalidPasswordError error =
+        catchThrowableOfType(
+            () -> passwordValidationService.validate("user", BREACHED_PASSWORD),
+            InvalidPasswordError.class);
+
+    assertThat(error).isNotNull();
+    assertThat(error.getValidationErrors())
+        .containsExactly("Password contains a dictionary word.");
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.libraryserver.user.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+@DisplayName("Password validation service")
+class PasswordValidationServiceTest {
+
+  @TempDir Path directory;
+
+  private PasswordValidationService cut;
+
+  @AfterEach
+  void tearDown() {
+    if (cut != null) {
+      cut.destroy();
+    }
+  }
+
+  private static void write(Path file, String... words) throws IOException {
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+      out.write(String.join("\n", words).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private void assertRejected(String password, String word) {
+    InvalidPasswordError error =
+        catchThrowableOfType(() -> cut.validate("user", password), InvalidPasswordError.class);
+
+    assertThat(error).as(password).isNotNull();
+    assertThat(error.getValidationErrors())
+        .containsExactly("Password contains the dictionary word '" + word + "'.");
+  }
+
+  private void assertAccepted(String password) {
+    assertThatCode(() -> cut.validate("user", password)).as(password).doesNotThrowAnyException();
+  }
+
+  private boolean isAccepted(String password) {
+    try {
+      cut.validate("user", password);
+      return true;
+    } catch (InvalidPasswordError ex) {
+      return false;
+    }
+  }
+
+  @DisplayName("streams a gzip compressed password list")
+  @Test
+  void gzip() throws IOException {
+    Path file = directory.resolve("password-list.txt.gz");
+    write(file, "library", " Batman ", "", "kryptonite");
+    cut = new PasswordValidationService(new FileSystemResource(file), Duration.ZERO, null);
+    cut.init();
+    cut.reload().join();
+
+    assertRejected("my!Secret4Batman", "Batman");
+    assertRejected("my!KRYPTONITE4u", "KRYPTONITE");
+    assertAccepted("my!Secret4test");
+  }
+
+  @DisplayName("keeps the previous password list if loading fails")
+  @Test
+  void fallback() {
+    cut =
+        new PasswordValidationService(
+            new FileSystemResource(directory.resolve("missing.txt")), Duration.ZERO, null);
+    cut.init();
+    cut.reload().join();
+
+    assertRejected("my!Batman4password", "password");
+    assertAccepted("my!Batman4qwerty");
+  }
+
+  @DisplayName("swaps the password list when the file has been modified")
+  @Test
+  void hotSwap() throws Exception {
+    Path file = directory.resolve("password-list.txt.gz");
+    write(file, "library");
+    cut = new PasswordValidationService(new FileSystemResource(file), Duration.ofMillis(20), null);
+    cut.init();
+    cut.reload().join();
+    assertRejected("my!Secret4library", "library");
+    assertAccepted("my!Secret4Batman");
+
+    write(file, "Batman");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+    long timeout = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (isAccepted("my!Secret4Batman") && System.nanoTime() < timeout) {
+      Thread.sleep(20);
+    }
+
+    assertRejected("my!Secret4Batman", "Batman");
+    assertAccepted("my!Secret4library");
+  }
+
+  @DisplayName("publishes word count and load time")
+  @Test
+  void metrics() {
+    cut =
+        new PasswordValidationService(
+            new ByteArrayResource("library\nBatman\nlibrary".getBytes(StandardCharsets.UTF_8)),
+            Duration.ZERO,
+            null);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    cut.init();
+    cut.bindTo(registry);
+    cut.reload().join();
+
+    assertThat(registry.get("password.dictionary.words").gauge().value()).isEqualTo(2);
+    assertThat(registry.get("password.dictionary.load.time").timeGauge().value()).isNotNegative();
+  }
+}
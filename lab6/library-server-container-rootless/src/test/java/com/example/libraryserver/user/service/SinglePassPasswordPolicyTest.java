@@ -0,0 +1,135 @@
+package com.example.libraryserver.user.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.passay.CharacterCharacteristicsRule;
+import org.passay.CharacterRule;
+import org.passay.EnglishCharacterData;
+import org.passay.LengthRule;
+import org.passay.PasswordData;
+import org.passay.PasswordValidator;
+import org.passay.RepeatCharacterRegexRule;
+import org.passay.UsernameRule;
+import org.passay.WhitespaceRule;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Single pass password policy")
+class SinglePassPasswordPolicyTest {
+
+  private static final List<String> WORDS = Arrays.asList("password", "qwerty", "Batman");
+
+  private static final String[] FRAGMENTS = {
+    "ABCXYZ", "abcxyz", "0189", "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~", "¡¿×÷€", "äöüßÄ",
+    " \t\n\u000B\f\r  ", "\u0000\u001F", "😂\uD83D", "\uDE02"
+  };
+
+  private final AhoCorasickDictionaryRule dictionaryRule =
+      new AhoCorasickDictionaryRule(WORDS, false);
+
+  private final SinglePassPasswordPolicy cut =
+      new SinglePassPasswordPolicy(12, 64, 3, 4, dictionaryRule, null);
+
+  private final PasswordValidator passwordValidator = passwordValidator();
+
+  private PasswordValidator passwordValidator() {
+    CharacterCharacteristicsRule characteristicsRule = new CharacterCharacteristicsRule();
+    characteristicsRule.setNumberOfCharacteristics(3);
+    characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.UpperCase, 1));
+    characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.LowerCase, 1));
+    characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.Digit, 1));
+    characteristicsRule.getRules().add(new CharacterRule(EnglishCharacterData.Special, 1));
+    return new PasswordValidator(
+        new LengthRule(12, 64),
+        characteristicsRule,
+        new RepeatCharacterRegexRule(4),
+        new UsernameRule(),
+        new WhitespaceRule(),
+        dictionaryRule);
+  }
+
+  private boolean isValidByPassay(String username, String password) {
+    return passwordValidator.validate(new PasswordData(username, password)).isValid();
+  }
+
+  @DisplayName("accepts and rejects passwords like the passay rules")
+  @Test
+  void examples() {
+    for (String password :
+        new String[] {
+          "my!Secret4test",
+          "my!Secret4öest😂",
+          "my!Sec4test",
+          "my!Sec4testedfrewasdefvbnhjlkilomngthfargtwbnhjlmnhsömnöämnhjqpolwk",
+          "my!Sec4teeeest",
+          "my!Sec4teeest",
+          "my!Secret4tuser",
+          "my Secret4test",
+          "my\u00A0Secret4test",
+          "my\tSecret4test",
+          "my!Secret4Qwerty",
+          "mysecret4test",
+          "\u0000\u0000\u0000\u0000my!Secret4"
+        }) {
+      assertThat(cut.isValid("user", password))
+          .as(password)
+          .isEqualTo(isValidByPassay("user", password) && !hasSurrogate(password));
+    }
+  }
+
+  @DisplayName("reports the same result as the passay rules for random passwords")
+  @Test
+  void sameAsPassay() {
+    Random random = new Random(4711);
+    int valid = 0;
+    for (int i = 0; i < 100_000; i++) {
+      String username = random.nextInt(4) == 0 ? "" : "user";
+      String password = randomPassword(random);
+      boolean expected = isValidByPassay(username, password);
+      boolean result = cut.isValid(username, password);
+
+      if (hasSurrogate(password)) {
+        assertThat(result).as(password).isFalse();
+      } else {
+        assertThat(result).as(password).isEqualTo(expected);
+      }
+      if (result) {
+        valid++;
+      }
+    }
+    assertThat(valid).isGreaterThan(5_000);
+  }
+
+  private static String randomPassword(Random random) {
+    StringBuilder password = new StringBuilder();
+    int length = 8 + random.nextInt(60);
+    while (password.length() < length) {
+      int kind = random.nextInt(100);
+      if (kind < 2) {
+        password.append(WORDS.get(random.nextInt(WORDS.size())));
+      } else if (kind < 4) {
+        password.append("user");
+      } else if (kind < 7 && password.length() > 0) {
+        char last = password.charAt(password.length() - 1);
+        password.append(last).append(last);
+      } else {
+        String fragment = FRAGMENTS[weightedFragment(random)];
+        password.append(fragment.charAt(random.nextInt(fragment.length())));
+      }
+    }
+    return password.toString();
+  }
+
+  private static int weightedFragment(Random random) {
+    int value = random.nextInt(100);
+    return value < 90 ? value % 5 : 5 + value % (FRAGMENTS.length - 5);
+  }
+
+  private static boolean hasSurrogate(String password) {
+    return password.chars().anyMatch(c -> Character.isSurrogate((char) c));
+  }
+}
@@ -1,6 +1,8 @@
 package com.example.libraryserver.user.web;
 
 import com.example.libraryserver.DataInitializer;
+import com.example.libraryserver.user.data.User;
+import com.example.libraryserver.user.data.UserRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -9,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationContextProvider;
 import org.springframework.restdocs.RestDocumentationExtension;
@@ -16,6 +19,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
@@ -23,6 +30,7 @@ import java.util.Collections;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
@@ -30,8 +38,10 @@ import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.docu
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.modifyUris;
 import static org.springframework.restdocs.operation.preprocess.Preprocessors.prettyPrint;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -50,6 +60,7 @@ class UserRestControllerIntegrationTest {
 
   private final ObjectMapper objectMapper = new ObjectMapper();
   @Autowired private WebApplicationContext context;
+  @Autowired private UserRepository userRepository;
   private MockMvc mvc;
 
   @BeforeEach
@@ -65,6 +76,23 @@ class UserRestControllerIntegrationTest {
             .build();
   }
 
+  /** Performs the request, followed by its async dispatch if the controller answers async. */
+  private ResultActions performAsync(RequestBuilder request) throws Exception {
+    ResultActions actions = mvc.perform(request);
+    MvcResult result = actions.andReturn();
+    return result.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(result)) : actions;
+  }
+
+  private String entityTag(UUID userIdentifier) throws Exception {
+    return mvc.perform(
+            get("/users/{userIdentifier}", userIdentifier)
+                .with(user("user").roles("LIBRARY_ADMIN")))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getHeader(HttpHeaders.ETAG);
+  }
+
   @Nested
   @DisplayName("succeeds")
   class PositiveTests {
@@ -79,7 +107,7 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("USER"));
-      mvc.perform(
+      performAsync(
               post("/users")
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -101,7 +129,7 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("LIBRARY_ADMIN"));
-      mvc.perform(
+      performAsync(
               put("/users/{userIdentifier}", DataInitializer.ADMIN_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -112,6 +140,72 @@ class UserRestControllerIntegrationTest {
           .andDo(document("update-user"));
     }
 
+    @Test
+    @DisplayName("in registering a new user who signs in with the password")
+    void registerUserSignIn() throws Exception {
+      CreateUserModel model =
+          new CreateUserModel(
+              "Peter",
+              "Signin",
+              "peter.signin@example.com",
+              "MySecret4Test",
+              Collections.singleton("LIBRARY_USER"));
+      performAsync(
+              post("/users")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_ADMIN")))
+          .andExpect(status().isCreated());
+
+      mvc.perform(get("/books").with(httpBasic("peter.signin@example.com", "MySecret4Test")))
+          .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("in updating an existing user keeping the password")
+    void updateUserSamePassword() throws Exception {
+      CreateUserModel model =
+          new CreateUserModel(
+              "Bruce",
+              "Wayne",
+              "bruce.wayne@example.com",
+              "wayne",
+              Collections.singleton("LIBRARY_USER"));
+      performAsync(
+              put("/users/{userIdentifier}", DataInitializer.WAYNE_USER_IDENTIFIER)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_ADMIN")))
+          .andExpect(status().isOk());
+
+      mvc.perform(get("/books").with(httpBasic("bruce.wayne@example.com", "wayne")))
+          .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("in updating an existing user with a matching entity tag")
+    void updateUserIfMatch() throws Exception {
+      String entityTag = entityTag(DataInitializer.BANNER_USER_IDENTIFIER);
+      CreateUserModel model =
+          new CreateUserModel(
+              "Bruce",
+              "Banner",
+              "bruce.banner@example.com",
+              "MySecret4Test",
+              Collections.singleton("LIBRARY_USER"));
+      performAsync(
+              put("/users/{userIdentifier}", DataInitializer.BANNER_USER_IDENTIFIER)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .header(HttpHeaders.IF_MATCH, entityTag)
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_ADMIN")))
+          .andExpect(status().isOk())
+          .andExpect(header().string(HttpHeaders.ETAG, not(entityTag)));
+    }
+
     @Test
     @DisplayName("in getting a list of all users")
     void listAllUsers() throws Exception {
@@ -134,6 +228,19 @@ class UserRestControllerIntegrationTest {
           .andDo(document("get-user"));
     }
 
+    @Test
+    @DisplayName("in getting an unmodified user")
+    void getSingleUserIfNoneMatch() throws Exception {
+      String entityTag = entityTag(DataInitializer.WAYNE_USER_IDENTIFIER);
+      mvc.perform(
+              get("/users/{userIdentifier}", DataInitializer.WAYNE_USER_IDENTIFIER)
+                  .header(HttpHeaders.IF_NONE_MATCH, entityTag)
+                  .with(user("user").roles("LIBRARY_ADMIN")))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+          .andExpect(content().string(""));
+    }
+
     @Test
     @DisplayName("in deleting an user")
     void deleteUser() throws Exception {
@@ -156,7 +263,7 @@ class UserRestControllerIntegrationTest {
       CreateUserModel model =
           new CreateUserModel(
               "Hans", "Mustermann", "example.com", "password", Collections.singleton("USER"));
-      mvc.perform(
+      performAsync(
               post("/users")
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -180,7 +287,7 @@ class UserRestControllerIntegrationTest {
               "example.com",
               "password",
               Collections.singleton("LIBRARY_ADMIN"));
-      mvc.perform(
+      performAsync(
               put("/users/{userIdentifier}", DataInitializer.ADMIN_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -194,6 +301,26 @@ class UserRestControllerIntegrationTest {
                           "Field error in object \\'createUserModel\\' on field \\'email\\'")));
     }
 
+    @Test
+    @DisplayName("in updating an existing user with a stale entity tag")
+    void updateUserStaleEntityTag() throws Exception {
+      CreateUserModel model =
+          new CreateUserModel(
+              "Hans",
+              "Mustermann",
+              "test@example.com",
+              "MySecret4Test",
+              Collections.singleton("LIBRARY_ADMIN"));
+      performAsync(
+              put("/users/{userIdentifier}", DataInitializer.ADMIN_IDENTIFIER)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(model))
+                  .header(HttpHeaders.IF_MATCH, "\"-1\"")
+                  .with(csrf())
+                  .with(user("user").roles("LIBRARY_ADMIN")))
+          .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("in getting an unknown user")
     void getSingleUser() throws Exception {
@@ -228,7 +355,7 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("USER"));
-      mvc.perform(
+      performAsync(
               post("/users")
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -246,7 +373,7 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("LIBRARY_ADMIN"));
-      mvc.perform(
+      performAsync(
               put("/users/{userIdentifier}", DataInitializer.ADMIN_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
@@ -254,6 +381,22 @@ class UserRestControllerIntegrationTest {
           .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @DisplayName("in signing in with a password stored without encoding id")
+    void signInUnknownHashFormat() throws Exception {
+      userRepository.save(
+          new User(
+              UUID.randomUUID(),
+              "Raw",
+              "Password",
+              "raw.password@example.com",
+              "MySecret4Test",
+              Collections.singleton("LIBRARY_USER")));
+
+      mvc.perform(get("/books").with(httpBasic("raw.password@example.com", "MySecret4Test")))
+          .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @DisplayName("in getting a list of all users")
     void listAllUsersUnAuthorized() throws Exception {
@@ -276,10 +419,17 @@ class UserRestControllerIntegrationTest {
     }
   }
 
-  @DisplayName("fails for missing CSRF token")
+  @DisplayName("fails for missing CSRF token in a browser session")
   @Nested
   class CsrfTokenTests {
 
+    private RequestPostProcessor sessionCookie() {
+      return request -> {
+        request.setRequestedSessionId("browser-session");
+        return request;
+      };
+    }
+
     @Test
     @DisplayName("in registering a new user")
     void registerUserNoCsrfToken() throws Exception {
@@ -290,11 +440,12 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("USER"));
-      mvc.perform(
+      performAsync(
               post("/users")
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
-                  .with(user("user").roles("LIBRARY_ADMIN")))
+                  .with(user("user").roles("LIBRARY_ADMIN"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -308,11 +459,12 @@ class UserRestControllerIntegrationTest {
               "test@example.com",
               "MySecret4Test",
               Collections.singleton("LIBRARY_ADMIN"));
-      mvc.perform(
+      performAsync(
               put("/users/{userIdentifier}", DataInitializer.ADMIN_IDENTIFIER)
                   .contentType(MediaType.APPLICATION_JSON)
                   .content(objectMapper.writeValueAsString(model))
-                  .with(user("user").roles("LIBRARY_ADMIN")))
+                  .with(user("user").roles("LIBRARY_ADMIN"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
 
@@ -321,7 +473,8 @@ class UserRestControllerIntegrationTest {
     void deleteUserNoCsrfToken() throws Exception {
       mvc.perform(
               delete("/users/{userIdentifier}", DataInitializer.CURATOR_IDENTIFIER)
-                  .with(user("user").roles("LIBRARY_ADMIN")))
+                  .with(user("user").roles("LIBRARY_ADMIN"))
+                  .with(sessionCookie()))
           .andExpect(status().isForbidden());
     }
   }